@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * Compares the {@link KdMap} implementations. All keys and values are created during setup, so only the map itself is
+ * measured. Lookups cycle through the prepared keys, hits and misses separately.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class KdMapBenchmark
+{
+    @Param
+    public Implementation implementation;
+    @Param({"2", "3"})
+    public int dimensionCount;
+    @Param({"1024", "65536"}) // coordinates range from 0 to coordinateRange - 1
+    public int coordinateRange;
+    @Param({"10000", "200000"})
+    public int size;
+    private KdPoint[] hits;
+    private KdPoint[] misses;
+    private int[] hitCoordinates; // coordinates of all hits, one after another
+    private Long[] values;
+    private KdMap<Long> map;
+    private int cursor;
+
+    @Setup
+    public void setUp()
+    {
+        Random random = new Random(4711);
+        Set<KdPoint> keys = new HashSet<>();
+        hits = createKeys(random, keys);
+        misses = createKeys(random, keys);
+        hitCoordinates = new int[size * dimensionCount];
+        values = new Long[size];
+        for (int i = 0; i < size; i++) {
+            for (int axis = 0; axis < dimensionCount; axis++) {
+                hitCoordinates[i * dimensionCount + axis] = hits[i].get(axis);
+            }
+            values[i] = (long) i;
+        }
+        map = fill();
+    }
+
+    /**
+     * @param keys keys created so far, to create unique ones only.
+     */
+    private KdPoint[] createKeys(Random random, Set<KdPoint> keys)
+    {
+        if (Math.pow(coordinateRange, dimensionCount) < 4.0 * size) {
+            throw new IllegalArgumentException("coordinate range too small for size");
+        }
+        KdPoint[] created = new KdPoint[size];
+        for (int i = 0; i < size; i++) {
+            KdPoint key = new KdPoint(dimensionCount);
+            do {
+                for (int axis = 0; axis < dimensionCount; axis++) {
+                    key.set(axis, random.nextInt(coordinateRange));
+                }
+            } while (!keys.add(new KdPoint(key)));
+            created[i] = key;
+        }
+        return created;
+    }
+
+    private KdMap<Long> fill()
+    {
+        KdMap<Long> newMap = implementation.newMap(dimensionCount, coordinateRange);
+        for (int i = 0; i < size; i++) {
+            newMap.add(hits[i], values[i]);
+        }
+        return newMap;
+    }
+
+    private int next()
+    {
+        int current = cursor;
+        cursor = (current + 1 == size) ? 0 : current + 1;
+        return current;
+    }
+
+    /**
+     * Creates a map and adds all keys, per operation.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 10)
+    public KdMap<Long> add()
+    {
+        return fill();
+    }
+
+    @Benchmark
+    public boolean containsKeyHit()
+    {
+        return map.containsKey(hits[next()]);
+    }
+
+    @Benchmark
+    public boolean containsKeyMiss()
+    {
+        return map.containsKey(misses[next()]);
+    }
+
+    @Benchmark
+    public Long get()
+    {
+        return map.get(hits[next()]);
+    }
+
+    @Benchmark
+    public Long getByCoordinates()
+    {
+        return map.get(hitCoordinates, next() * dimensionCount);
+    }
+
+    /**
+     * Visits all values, per operation.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long iterate()
+    {
+        long sum = 0;
+        for (Long value : map) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    public enum Implementation
+    {
+        HASH_TREE
+                {
+                    @Override
+                    KdMap<Long> newMap(int dimensionCount, int coordinateRange)
+                    {
+                        return new HashTreeKdMap<>(dimensionCount);
+                    }
+                },
+        CONCURRENT_HASH_TREE
+                {
+                    @Override
+                    KdMap<Long> newMap(int dimensionCount, int coordinateRange)
+                    {
+                        return new ConcurrentHashTreeKdMap<>(dimensionCount);
+                    }
+                },
+        KD_TREE
+                {
+                    @Override
+                    KdMap<Long> newMap(int dimensionCount, int coordinateRange)
+                    {
+                        return new KdTreeMap<>(dimensionCount);
+                    }
+                },
+        PACKED
+                {
+                    @Override
+                    KdMap<Long> newMap(int dimensionCount, int coordinateRange)
+                    {
+                        int[] bitWidths = new int[dimensionCount];
+                        Arrays.fill(bitWidths, 32 - Integer.numberOfLeadingZeros(coordinateRange - 1));
+                        return new PackedKdMap<>(bitWidths);
+                    }
+                },
+        OFF_HEAP
+                {
+                    @Override
+                    KdMap<Long> newMap(int dimensionCount, int coordinateRange)
+                    {
+                        return new OffHeapKdMap(dimensionCount);
+                    }
+                };
+
+        abstract KdMap<Long> newMap(int dimensionCount, int coordinateRange);
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import at.mjst.lib.java.geometry.defines.ExceptionText;
+import at.mjst.lib.java.geometry.entities.KdPoint;
+import at.mjst.lib.java.geometry.entities.KdPointArray;
+
+/**
+ * Skeleton of a {@link KdMap}, managing the dimension count shared by all keys of the map.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public abstract class AbstractKdMap<DataType> implements KdMap<DataType>
+{
+    private final int dimensionCount;
+
+    protected AbstractKdMap(int dimensionCount)
+    {
+        if (dimensionCount <= 0) {
+            throw new IllegalArgumentException(ExceptionText.DIMENSION_COUNT_GREATER_ZERO_REQUIRED);
+        }
+        this.dimensionCount = dimensionCount;
+    }
+
+    @Override
+    public int getDimensionCount()
+    {
+        return dimensionCount;
+    }
+
+    /**
+     * Looks the key up, creates and adds the item if missing. Implementations should override this, if they can do so
+     * with a single lookup.
+     */
+    @Override
+    public DataType computeIfAbsent(KdPoint key, KdDataFactory<DataType> factory)
+    {
+        if (containsKey(key)) {
+            return get(key);
+        }
+        DataType data = factory.create(key);
+        if (data != null) {
+            add(key, data);
+        }
+        return data;
+    }
+
+    /**
+     * Queries the box covering all possible coordinates. Implementations should override this, if they can enumerate
+     * their entries more directly.
+     */
+    @Override
+    public boolean forEach(KdEntryVisitor<DataType> visitor)
+    {
+        int[] min = new int[dimensionCount];
+        int[] max = new int[dimensionCount];
+        Arrays.fill(min, Integer.MIN_VALUE);
+        Arrays.fill(max, Integer.MAX_VALUE);
+        return query(new KdPoint(min), new KdPoint(max), visitor);
+    }
+
+    /**
+     * Counts the entries visited by a query. Implementations should override this, if they can count entries without
+     * visiting them.
+     */
+    @Override
+    public int count(KdPoint min, KdPoint max)
+    {
+        final int[] count = new int[1];
+        query(min, max, new KdEntryVisitor<DataType>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, DataType data)
+            {
+                count[0]++;
+                return true;
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * Stops a query at the first entry visited.
+     */
+    @Override
+    public boolean isEmpty(KdPoint min, KdPoint max)
+    {
+        return query(min, max, new KdEntryVisitor<DataType>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, DataType data)
+            {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Adds the items one by one. Implementations should override this, if they can share work between keys.
+     */
+    @Override
+    public void addAll(int[] coordinates, DataType[] data)
+    {
+        addAll(coordinates, validateBatch(coordinates, data.length), data);
+    }
+
+    /**
+     * Adds the items of the first count keys held by coordinates, which has been validated to hold at least as many.
+     */
+    protected void addAll(int[] coordinates, int count, DataType[] data)
+    {
+        for (int i = 0; i < count; i++) {
+            int offset = i * dimensionCount;
+            add(new KdPoint(Arrays.copyOfRange(coordinates, offset, offset + dimensionCount)), data[i]);
+        }
+    }
+
+    /**
+     * Checks the keys one by one. Implementations should override this, if they can share work between keys.
+     */
+    @Override
+    public BitSet containsAll(int[] coordinates)
+    {
+        return containsAll(coordinates, validateBatch(coordinates, -1));
+    }
+
+    /**
+     * Checks the first count keys held by coordinates, which has been validated to hold at least as many.
+     */
+    protected BitSet containsAll(int[] coordinates, int count)
+    {
+        BitSet contained = new BitSet(count);
+        for (int i = 0; i < count; i++) {
+            if (containsKey(coordinates, i * dimensionCount)) {
+                contained.set(i);
+            }
+        }
+        return contained;
+    }
+
+    /**
+     * Looks the keys up one by one. Implementations should override this, if they can share work between keys.
+     */
+    @Override
+    public void getAll(int[] coordinates, DataType[] results)
+    {
+        getAll(coordinates, validateBatch(coordinates, results.length), results);
+    }
+
+    /**
+     * Looks the first count keys held by coordinates up, which has been validated to hold at least as many.
+     */
+    protected void getAll(int[] coordinates, int count, DataType[] results)
+    {
+        for (int i = 0; i < count; i++) {
+            results[i] = get(coordinates, i * dimensionCount);
+        }
+    }
+
+    /**
+     * Passes the array backing points on as it is, without trimming it to the count of points.
+     */
+    @Override
+    public void addAll(KdPointArray points, DataType[] data)
+    {
+        addAll(points.getBuffer(), validateBatch(points, data.length), data);
+    }
+
+    /**
+     * Passes the array backing points on as it is, without trimming it to the count of points.
+     */
+    @Override
+    public BitSet containsAll(KdPointArray points)
+    {
+        return containsAll(points.getBuffer(), validateBatch(points, -1));
+    }
+
+    /**
+     * Passes the array backing points on as it is, without trimming it to the count of points.
+     */
+    @Override
+    public void getAll(KdPointArray points, DataType[] results)
+    {
+        getAll(points.getBuffer(), validateBatch(points, results.length), results);
+    }
+
+    /**
+     * Ensures, that an array holds the coordinates of whole keys, as many as expected.
+     *
+     * @param coordinates array holding the coordinates of all keys, one after the other.
+     * @param count       count of keys expected, or -1 for any.
+     * @return count of keys.
+     */
+    protected int validateBatch(int[] coordinates, int count)
+    {
+        if ((coordinates.length % dimensionCount) != 0) {
+            throw new IllegalArgumentException(String.format(ExceptionText.COORDINATE_COUNT_MISMATCH,
+                    coordinates.length, dimensionCount));
+        }
+        int keyCount = coordinates.length / dimensionCount;
+        if ((count >= 0) && (count != keyCount)) {
+            throw new IllegalArgumentException(String.format(ExceptionText.BATCH_SIZE_MISMATCH, keyCount, count));
+        }
+        return keyCount;
+    }
+
+    /**
+     * Ensures, that points fit the dimension count of this map and are as many as expected.
+     *
+     * @param points {@link KdPointArray} holding the keys.
+     * @param count  count of keys expected, or -1 for any.
+     * @return count of keys.
+     */
+    protected int validateBatch(KdPointArray points, int count)
+    {
+        validateDimensionCount(points.getDimensionCount());
+        if ((count >= 0) && (count != points.size())) {
+            throw new IllegalArgumentException(String.format(ExceptionText.BATCH_SIZE_MISMATCH, points.size(),
+                    count));
+        }
+        return points.size();
+    }
+
+    /**
+     * Ensures, that the key fits the dimension count of this map.
+     *
+     * @param key {@link KdPoint} to validate.
+     */
+    protected void validateKey(KdPoint key)
+    {
+        validateDimensionCount(key.getDimensionCount());
+    }
+
+    /**
+     * Ensures, that a count of axes, e.g. of a shortcut taking single coordinates, fits the dimension count of this map.
+     *
+     * @param count count of axes to validate.
+     */
+    protected void validateDimensionCount(int count)
+    {
+        if (count != dimensionCount) {
+            throw new IllegalArgumentException(String.format(ExceptionText.DIMENSION_COUNT_MISMATCH, dimensionCount));
+        }
+    }
+
+    /**
+     * Ensures, that an array holds the coordinates of all axes from offset on.
+     *
+     * @param coordinates array holding the coordinates of a key.
+     * @param offset      index of the coordinate of axis 0.
+     */
+    protected void validateCoordinates(int[] coordinates, int offset)
+    {
+        if ((offset < 0) || (offset > (coordinates.length - dimensionCount))) {
+            throw new IllegalArgumentException(String.format(ExceptionText.COORDINATES_MISSING, dimensionCount,
+                    offset));
+        }
+    }
+
+    /**
+     * Copies the coordinates of a validated key into a new array, e.g. for the corners of a query.
+     *
+     * @param key {@link KdPoint} to copy.
+     * @return array holding one coordinate per axis.
+     */
+    protected int[] toCoordinates(KdPoint key)
+    {
+        validateKey(key);
+        int[] coordinates = new int[dimensionCount];
+        for (int axis = 0; axis < dimensionCount; axis++) {
+            coordinates[axis] = key.get(axis);
+        }
+        return coordinates;
+    }
+}
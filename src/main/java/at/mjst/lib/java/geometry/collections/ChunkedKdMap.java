@@ -0,0 +1,549 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import at.mjst.lib.java.geometry.defines.ExceptionText;
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * Stores objects of type {@code DataType} identified by {@link KdPoint} in chunks of {@code 2^chunkBits} cells per axis,
+ * e.g. 16x16x16 cells for three dimensions. Each chunk is a flat array holding one slot per cell, chunks are found by
+ * an open-addressing table keyed by chunk coordinates. Designed for dense data like voxels: a dense region costs about
+ * one array slot per cell, and neighbouring cells share the chunk, which is cached for consecutive lookups.
+ * <p>
+ * A chunk is allocated as soon as one of its cells is used and freed as soon as its last entry is removed, so sparse
+ * data wastes most of each chunk - use {@link HashTreeKdMap} for that.
+ * <p>
+ * Any number of threads may read concurrently, as long as none modifies the map. The cached chunk holds its own chunk
+ * coordinates, so a reader always sees a matching pair, whichever chunk another reader cached last.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class ChunkedKdMap<DataType> extends AbstractKdMap<DataType>
+{
+    private static final int DEFAULT_CELL_BITS = 12; // 4096 cells per chunk, whatever the dimension count
+    private static final int MAX_CELL_BITS = 24;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final Object NULL_DATA = new Object(); // stands for null data, since null marks empty cells
+    private final int chunkBits;
+    private final int cellMask;
+    private int[] chunkKeys; // chunk coordinates of all slots, one after another
+    private Chunk[] chunks; // null for free slots
+    private int chunkCount;
+    private int size;
+    private Chunk lastChunk; // chunk found last, read once per lookup
+
+    /**
+     * Creates a map with chunks of about 4096 cells, e.g. 16 cells per axis for three dimensions.
+     */
+    public ChunkedKdMap(int dimensionCount)
+    {
+        this(dimensionCount, Math.max(1, DEFAULT_CELL_BITS / dimensionCount));
+    }
+
+    /**
+     * @param chunkBits chunks span {@code 2^chunkBits} cells per axis.
+     */
+    public ChunkedKdMap(int dimensionCount, int chunkBits)
+    {
+        super(dimensionCount);
+        if ((chunkBits < 1) || ((chunkBits * dimensionCount) > MAX_CELL_BITS)) {
+            throw new IllegalArgumentException(String.format("chunk bits %d out of range", chunkBits));
+        }
+        this.chunkBits = chunkBits;
+        cellMask = (1 << chunkBits) - 1;
+        clear();
+    }
+
+    public int getChunkBits()
+    {
+        return chunkBits;
+    }
+
+    /**
+     * @return count of chunks currently allocated.
+     */
+    public int getChunkCount()
+    {
+        return chunkCount;
+    }
+
+    private int hash(int[] keys, int offset)
+    {
+        long h = 0;
+        for (int axis = 0; axis < getDimensionCount(); axis++) {
+            h = (h ^ keys[offset + axis]) * 0x9E3779B97F4A7C15L;
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return hash of the chunk holding the coordinates.
+     */
+    private int hashOfChunk(int[] coordinates, int offset)
+    {
+        long h = 0;
+        for (int axis = 0; axis < getDimensionCount(); axis++) {
+            h = (h ^ (coordinates[offset + axis] >> chunkBits)) * 0x9E3779B97F4A7C15L;
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private boolean isChunkOf(int[] keys, int keyOffset, int[] coordinates, int offset)
+    {
+        for (int axis = 0; axis < getDimensionCount(); axis++) {
+            if (keys[keyOffset + axis] != (coordinates[offset + axis] >> chunkBits)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the slot of the chunk holding the coordinates, or -1 if not allocated.
+     */
+    private int findSlot(int[] coordinates, int offset)
+    {
+        int mask = chunks.length - 1;
+        for (int slot = hashOfChunk(coordinates, offset) & mask; chunks[slot] != null; slot = (slot + 1) & mask) {
+            if (isChunkOf(chunkKeys, slot * getDimensionCount(), coordinates, offset)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param doCreate true to allocate the chunk, if missing.
+     * @return the chunk holding the coordinates, or null if not allocated.
+     */
+    private Chunk locateChunk(int[] coordinates, int offset, boolean doCreate)
+    {
+        Chunk last = lastChunk;
+        if ((last != null) && isChunkOf(last.key, 0, coordinates, offset)) {
+            return last; // neighbouring lookups mostly hit the same chunk
+        }
+        int slot = findSlot(coordinates, offset);
+        Chunk chunk;
+        if (slot >= 0) {
+            chunk = chunks[slot];
+        } else if (doCreate) {
+            int[] key = new int[getDimensionCount()];
+            for (int axis = 0; axis < key.length; axis++) {
+                key[axis] = coordinates[offset + axis] >> chunkBits;
+            }
+            chunk = new Chunk(1 << (chunkBits * getDimensionCount()), key);
+            insertChunk(coordinates, offset, chunk);
+        } else {
+            return null;
+        }
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    private void insertChunk(int[] coordinates, int offset, Chunk chunk)
+    {
+        if (((chunkCount + 1) << 1) > chunks.length) {
+            rehash(chunks.length << 1); // keep load factor <= 0.5, so probe sequences stay short
+        }
+        int dimensionCount = getDimensionCount();
+        int mask = chunks.length - 1;
+        int slot = hashOfChunk(coordinates, offset) & mask;
+        while (chunks[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        for (int axis = 0; axis < dimensionCount; axis++) {
+            chunkKeys[slot * dimensionCount + axis] = coordinates[offset + axis] >> chunkBits;
+        }
+        chunks[slot] = chunk;
+        chunkCount++;
+    }
+
+    private void rehash(int capacity)
+    {
+        int dimensionCount = getDimensionCount();
+        int[] oldKeys = chunkKeys;
+        Chunk[] oldChunks = chunks;
+        chunkKeys = new int[capacity * dimensionCount];
+        chunks = new Chunk[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldChunks.length; i++) {
+            if (oldChunks[i] != null) {
+                int slot = hash(oldKeys, i * dimensionCount) & mask;
+                while (chunks[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                System.arraycopy(oldKeys, i * dimensionCount, chunkKeys, slot * dimensionCount, dimensionCount);
+                chunks[slot] = oldChunks[i];
+            }
+        }
+    }
+
+    /**
+     * Frees the chunk of a slot, closing the gap by shifting subsequent chunks of the probe sequence back.
+     */
+    private void removeChunk(int hole)
+    {
+        int dimensionCount = getDimensionCount();
+        if (chunks[hole] == lastChunk) {
+            lastChunk = null;
+        }
+        int mask = chunks.length - 1;
+        for (int slot = (hole + 1) & mask; chunks[slot] != null; slot = (slot + 1) & mask) {
+            int ideal = hash(chunkKeys, slot * dimensionCount) & mask;
+            if (((slot - ideal) & mask) >= ((slot - hole) & mask)) { // chunk may move back into the hole
+                System.arraycopy(chunkKeys, slot * dimensionCount, chunkKeys, hole * dimensionCount, dimensionCount);
+                chunks[hole] = chunks[slot];
+                hole = slot;
+            }
+        }
+        chunks[hole] = null;
+        chunkCount--;
+    }
+
+    /**
+     * @return index of the cell of the coordinates within its chunk.
+     */
+    private int cellIndex(int[] coordinates, int offset)
+    {
+        int index = 0;
+        for (int axis = 0; axis < getDimensionCount(); axis++) {
+            index = (index << chunkBits) | (coordinates[offset + axis] & cellMask);
+        }
+        return index;
+    }
+
+    /**
+     * Computes the coordinates of a cell, the reverse of {@link #cellIndex(int[], int)}.
+     */
+    private void cellCoordinates(int[] keys, int keyOffset, int index, int[] coordinates)
+    {
+        for (int axis = coordinates.length - 1; axis >= 0; axis--) {
+            coordinates[axis] = (keys[keyOffset + axis] << chunkBits) | (index & cellMask);
+            index >>>= chunkBits;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <DataType> DataType unmask(Object data)
+    {
+        return (data != NULL_DATA) ? (DataType) data : null;
+    }
+
+    /**
+     * Stores data for the key held by array from offset on.
+     *
+     * @param replace True to replace the data of an existing entry, false to fail.
+     * @return data formerly stored, or null.
+     */
+    private DataType store(int[] coordinates, int offset, DataType data, boolean replace)
+    {
+        Chunk chunk = locateChunk(coordinates, offset, true);
+        int index = cellIndex(coordinates, offset);
+        Object formerData = chunk.cells[index];
+        if (formerData == null) {
+            chunk.count++;
+            size++;
+        } else if (!replace) {
+            throw new RuntimeException(ExceptionText.DATA_ALREADY_SET);
+        }
+        chunk.cells[index] = (data != null) ? data : NULL_DATA;
+        return unmask(formerData);
+    }
+
+    @Override
+    public void add(KdPoint key, DataType data)
+    {
+        store(toCoordinates(key), 0, data, false);
+    }
+
+    @Override
+    public DataType put(KdPoint key, DataType data)
+    {
+        return store(toCoordinates(key), 0, data, true);
+    }
+
+    /**
+     * Removes the entry of key, frees its chunk if it was the last entry within.
+     */
+    @Override
+    public DataType remove(KdPoint key)
+    {
+        int[] coordinates = toCoordinates(key);
+        int slot = findSlot(coordinates, 0);
+        if (slot < 0) {
+            return null;
+        }
+        Chunk chunk = chunks[slot];
+        int index = cellIndex(coordinates, 0);
+        Object formerData = chunk.cells[index];
+        if (formerData == null) {
+            return null;
+        }
+        chunk.cells[index] = null;
+        size--;
+        if (--chunk.count == 0) {
+            removeChunk(slot);
+        }
+        return unmask(formerData);
+    }
+
+    @Override
+    public boolean containsKey(KdPoint key)
+    {
+        return containsKey(toCoordinates(key), 0);
+    }
+
+    @Override
+    public boolean containsKey(int[] coordinates, int offset)
+    {
+        validateCoordinates(coordinates, offset);
+        Chunk chunk = locateChunk(coordinates, offset, false);
+        return (chunk != null) && (chunk.cells[cellIndex(coordinates, offset)] != null);
+    }
+
+    @Override
+    public DataType get(KdPoint key)
+    {
+        return get(toCoordinates(key), 0);
+    }
+
+    @Override
+    public DataType get(int[] coordinates, int offset)
+    {
+        validateCoordinates(coordinates, offset);
+        Chunk chunk = locateChunk(coordinates, offset, false);
+        return (chunk != null) ? ChunkedKdMap.<DataType>unmask(chunk.cells[cellIndex(coordinates, offset)]) : null;
+    }
+
+    /**
+     * Visits all entries within the box between min and max. If the box covers no more chunks than are allocated, the
+     * chunks covered are looked up one by one, otherwise all chunks are checked against the box. Within a chunk, only
+     * the cells within the box are visited.
+     */
+    @Override
+    public boolean query(KdPoint min, KdPoint max, KdEntryVisitor<DataType> visitor)
+    {
+        return new CellQuery(toCoordinates(min), toCoordinates(max), visitor).run();
+    }
+
+    @Override
+    public boolean forEach(KdEntryVisitor<DataType> visitor)
+    {
+        int[] min = new int[getDimensionCount()];
+        int[] max = new int[getDimensionCount()];
+        Arrays.fill(min, Integer.MIN_VALUE);
+        Arrays.fill(max, Integer.MAX_VALUE);
+        return new CellQuery(min, max, visitor).run();
+    }
+
+    @Override
+    public int getSize()
+    {
+        return size;
+    }
+
+    @Override
+    public void clear()
+    {
+        chunkKeys = new int[INITIAL_CAPACITY * getDimensionCount()];
+        chunks = new Chunk[INITIAL_CAPACITY];
+        chunkCount = 0;
+        size = 0;
+        lastChunk = null;
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code DataType}, chunk by chunk.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<DataType> iterator()
+    {
+        return new MapIterator();
+    }
+
+    private static class Chunk
+    {
+        private final Object[] cells; // null for empty cells
+        private final int[] key; // chunk coordinates
+        private int count; // of used cells
+
+        Chunk(int cellCount, int[] key)
+        {
+            cells = new Object[cellCount];
+            this.key = key;
+        }
+    }
+
+    /**
+     * Visits the cells within a box, chunk by chunk.
+     */
+    private class CellQuery
+    {
+        private final int[] low;
+        private final int[] high;
+        private final KdEntryVisitor<DataType> visitor;
+        private final int[] first = new int[getDimensionCount()]; // first cell within the box, per axis of a chunk
+        private final int[] last = new int[getDimensionCount()]; // last cell within the box, per axis of a chunk
+        private final int[] cell = new int[getDimensionCount()];
+        private final int[] coordinates = new int[getDimensionCount()];
+
+        CellQuery(int[] low, int[] high, KdEntryVisitor<DataType> visitor)
+        {
+            this.low = low;
+            this.high = high;
+            this.visitor = visitor;
+        }
+
+        boolean run()
+        {
+            long chunksInBox = 1;
+            for (int axis = 0; axis < low.length; axis++) {
+                if (low[axis] > high[axis]) {
+                    return true;
+                }
+                long span = (long) (high[axis] >> chunkBits) - (low[axis] >> chunkBits) + 1;
+                chunksInBox = (chunksInBox <= (chunkCount / span)) ? (chunksInBox * span) : (chunkCount + 1L);
+            }
+            return (chunksInBox <= chunkCount) ? probeChunks() : scanChunks();
+        }
+
+        /**
+         * Looks up every chunk covered by the box.
+         */
+        private boolean probeChunks()
+        {
+            int[] corner = new int[low.length]; // lowest cell of the chunk looked up
+            for (int axis = 0; axis < low.length; axis++) {
+                corner[axis] = (low[axis] >> chunkBits) << chunkBits;
+            }
+            while (true) {
+                int slot = findSlot(corner, 0);
+                if ((slot >= 0) && !visitChunk(slot)) {
+                    return false;
+                }
+                int axis = low.length - 1;
+                while ((corner[axis] >> chunkBits) == (high[axis] >> chunkBits)) {
+                    corner[axis] = (low[axis] >> chunkBits) << chunkBits;
+                    if (--axis < 0) {
+                        return true;
+                    }
+                }
+                corner[axis] += 1 << chunkBits;
+            }
+        }
+
+        /**
+         * Checks all chunks allocated against the box.
+         */
+        private boolean scanChunks()
+        {
+            for (int slot = 0; slot < chunks.length; slot++) {
+                if ((chunks[slot] != null) && !visitChunk(slot)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Visits the cells of a chunk within the box, in the order of their index.
+         */
+        private boolean visitChunk(int slot)
+        {
+            int keyOffset = slot * low.length;
+            for (int axis = 0; axis < low.length; axis++) {
+                int chunkLow = chunkKeys[keyOffset + axis] << chunkBits;
+                int chunkHigh = chunkLow + cellMask;
+                if ((chunkHigh < low[axis]) || (chunkLow > high[axis])) {
+                    return true;
+                }
+                first[axis] = Math.max(low[axis], chunkLow) - chunkLow;
+                last[axis] = Math.min(high[axis], chunkHigh) - chunkLow;
+                cell[axis] = first[axis];
+            }
+            Object[] cells = chunks[slot].cells;
+            while (true) {
+                int index = 0;
+                for (int axis = 0; axis < low.length; axis++) {
+                    index = (index << chunkBits) | cell[axis];
+                }
+                Object data = cells[index];
+                if (data != null) {
+                    cellCoordinates(chunkKeys, keyOffset, index, coordinates);
+                    if (!visitor.visit(coordinates, ChunkedKdMap.<DataType>unmask(data))) {
+                        return false;
+                    }
+                }
+                int axis = low.length - 1;
+                while (cell[axis] == last[axis]) {
+                    cell[axis] = first[axis];
+                    if (--axis < 0) {
+                        return true;
+                    }
+                }
+                cell[axis]++;
+            }
+        }
+    }
+
+    private class MapIterator implements Iterator<DataType>
+    {
+        private final Chunk[] iteratedChunks = chunks;
+        private int slot = 0;
+        private int index = -1;
+
+        MapIterator()
+        {
+            advance();
+        }
+
+        private void advance()
+        {
+            while (slot < iteratedChunks.length) {
+                Chunk chunk = iteratedChunks[slot];
+                if (chunk != null) {
+                    while (++index < chunk.cells.length) {
+                        if (chunk.cells[index] != null) {
+                            return;
+                        }
+                    }
+                }
+                slot++;
+                index = -1;
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return (slot < iteratedChunks.length);
+        }
+
+        @Override
+        public DataType next()
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            DataType data = unmask(iteratedChunks[slot].cells[index]);
+            advance();
+            return data;
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
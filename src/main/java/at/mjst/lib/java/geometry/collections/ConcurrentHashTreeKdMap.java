@@ -0,0 +1,349 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import at.mjst.lib.java.geometry.defines.ExceptionText;
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * Thread-safe variant of {@link HashTreeKdMap}, for many threads adding and reading at the same time. The children of
+ * every node are kept in a {@link ConcurrentHashMap}, so reads never lock and missing nodes are created by
+ * {@link ConcurrentMap#putIfAbsent(Object, Object)} on a lock striped by key. Data is set by compare-and-set on the
+ * last node of the path, two threads adding the same key therefore never both succeed. The size is tracked by a
+ * {@link StripedCounter}, to keep writers from contending on a single field. Root and counter are replaced together by
+ * {@link #clear()}, so a writer racing with it counts within the tree it has written to, and the size always matches
+ * the entries.
+ * <p>
+ * Iteration and queries are weakly consistent: they never fail because of concurrent modifications, and see all
+ * entries added before they started, but may or may not see entries added meanwhile.
+ * <p>
+ * Removing an entry only empties the data of its node, nodes are never pruned: another thread might be adding to the
+ * same path at the time. Memory of removed keys is released by {@link #clear()}.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class ConcurrentHashTreeKdMap<DataType> extends AbstractKdMap<DataType>
+{
+    private static final Object EMPTY = new Object(); // marks nodes without data, since null is valid data
+    private volatile Tree tree;
+
+    public ConcurrentHashTreeKdMap(int dimensionCount)
+    {
+        super(dimensionCount);
+        clear();
+    }
+
+    private Node locateNode(Node root, KdPoint key, boolean doCreate)
+    {
+        validateKey(key);
+        Node currentNode = root;
+        int axis = 0;
+        do {
+            currentNode = currentNode.getSubNode(key.get(axis), doCreate, axis + 1 == getDimensionCount());
+            if (currentNode == null) {
+                return null; // nothing found
+            }
+            axis++;
+        } while (axis < getDimensionCount());
+        return currentNode;
+    }
+
+    private Node locateNode(int[] coordinates, int offset)
+    {
+        validateCoordinates(coordinates, offset);
+        Node currentNode = tree.root;
+        for (int axis = 0; (axis < getDimensionCount()) && (currentNode != null); axis++) {
+            currentNode = currentNode.getSubNode(coordinates[offset + axis], false, false);
+        }
+        return currentNode;
+    }
+
+    @Override
+    public void add(KdPoint key, DataType data)
+    {
+        Tree tree = this.tree;
+        Node node = locateNode(tree.root, key, true);
+        if (!node.compareAndSetData(EMPTY, data)) {
+            throw new RuntimeException(ExceptionText.DATA_ALREADY_SET); // another thread may have been faster
+        }
+        tree.size.increment();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public DataType put(KdPoint key, DataType data)
+    {
+        Tree tree = this.tree;
+        Object formerData = locateNode(tree.root, key, true).getAndSetData(data);
+        if (formerData == EMPTY) {
+            tree.size.increment();
+            return null;
+        }
+        return (DataType) formerData;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public DataType remove(KdPoint key)
+    {
+        Tree tree = this.tree;
+        Node node = locateNode(tree.root, key, false);
+        if ((node == null) || !node.hasData()) {
+            return null;
+        }
+        Object formerData = node.getAndSetData(EMPTY);
+        if (formerData == EMPTY) {
+            return null; // another thread was faster
+        }
+        tree.size.decrement();
+        return (DataType) formerData;
+    }
+
+    /**
+     * Atomic: of concurrent calls for the same key, only a single one stores its data, all others return it. The
+     * factory may still be called by each of them.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public DataType computeIfAbsent(KdPoint key, KdDataFactory<DataType> factory)
+    {
+        Tree tree = this.tree;
+        Node node = locateNode(tree.root, key, true);
+        Object data = node.data;
+        while (data == EMPTY) {
+            DataType newData = factory.create(key);
+            if (newData == null) {
+                return null;
+            }
+            if (node.compareAndSetData(EMPTY, newData)) {
+                tree.size.increment();
+                return newData;
+            }
+            data = node.data; // another thread was faster, unless it has removed the entry again
+        }
+        return (DataType) data;
+    }
+
+    @Override
+    public boolean containsKey(KdPoint key)
+    {
+        Node node = locateNode(tree.root, key, false);
+        return (node != null) && node.hasData();
+    }
+
+    @Override
+    public boolean containsKey(int[] coordinates, int offset)
+    {
+        Node node = locateNode(coordinates, offset);
+        return (node != null) && node.hasData();
+    }
+
+    @Override
+    public DataType get(KdPoint key)
+    {
+        return dataOf(locateNode(tree.root, key, false));
+    }
+
+    @Override
+    public DataType get(int[] coordinates, int offset)
+    {
+        return dataOf(locateNode(coordinates, offset));
+    }
+
+    @SuppressWarnings("unchecked")
+    private DataType dataOf(Node node)
+    {
+        if (node == null) {
+            return null;
+        }
+        Object data = node.data;
+        return (data != EMPTY) ? (DataType) data : null;
+    }
+
+    /**
+     * Visits all entries within the box between min and max, pruning subtrees out of range at every level.
+     */
+    @Override
+    public boolean query(KdPoint min, KdPoint max, KdEntryVisitor<DataType> visitor)
+    {
+        return visitRange(tree.root, 0, toCoordinates(min), toCoordinates(max), new int[getDimensionCount()], visitor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean visitRange(Node node, int axis, int[] min, int[] max, int[] coordinates,
+                               KdEntryVisitor<DataType> visitor)
+    {
+        if (axis == coordinates.length) {
+            Object data = node.data;
+            return (data == EMPTY) || visitor.visit(coordinates, (DataType) data);
+        }
+        ConcurrentMap<Integer, Node> children = node.children;
+        if (((long) max[axis] - min[axis]) < children.size()) { // probing each coordinate is cheaper than a scan
+            for (long offset = min[axis]; offset <= max[axis]; offset++) {
+                Node child = children.get((int) offset);
+                if (child != null) {
+                    coordinates[axis] = (int) offset;
+                    if (!visitRange(child, axis + 1, min, max, coordinates, visitor)) {
+                        return false;
+                    }
+                }
+            }
+        } else {
+            for (Map.Entry<Integer, Node> entry : children.entrySet()) {
+                int offset = entry.getKey();
+                if ((offset >= min[axis]) && (offset <= max[axis])) {
+                    coordinates[axis] = offset;
+                    if (!visitRange(entry.getValue(), axis + 1, min, max, coordinates, visitor)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return current count of entries, not exact while other threads are modifying this map.
+     */
+    @Override
+    public int getSize()
+    {
+        return (int) tree.size.sum();
+    }
+
+    /**
+     * Destroys all entries by replacing the root-node together with the size. Entries added concurrently may be lost.
+     */
+    @Override
+    public void clear()
+    {
+        tree = new Tree();
+    }
+
+    /**
+     * Returns a weakly consistent iterator over elements of type {@code DataType}, in no particular order.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<DataType> iterator()
+    {
+        return new MapIterator(tree.root);
+    }
+
+    /**
+     * Root node and the count of entries below it, replaced as a whole.
+     */
+    private static class Tree
+    {
+        private final Node root = new Node(false);
+        private final StripedCounter size = new StripedCounter();
+    }
+
+    private static class Node
+    {
+        private static final AtomicReferenceFieldUpdater<Node, Object> DATA_UPDATER =
+                AtomicReferenceFieldUpdater.newUpdater(Node.class, Object.class, "data");
+        private final ConcurrentMap<Integer, Node> children; // null on the last level
+        volatile Object data = EMPTY; // not private, the updater must be able to access it by reflection
+
+        Node(boolean isLeaf)
+        {
+            children = isLeaf ? null : new ConcurrentHashMap<Integer, Node>(4);
+        }
+
+        Node getSubNode(int offset, boolean doCreate, boolean isLeaf)
+        {
+            Node node = children.get(offset); // lock-free read
+            if ((node == null) && doCreate) {
+                Node newNode = new Node(isLeaf);
+                node = children.putIfAbsent(offset, newNode);
+                if (node == null) {
+                    node = newNode; // this thread won the race
+                }
+            }
+            return node;
+        }
+
+        boolean hasData()
+        {
+            return data != EMPTY;
+        }
+
+        boolean compareAndSetData(Object expected, Object newData)
+        {
+            return DATA_UPDATER.compareAndSet(this, expected, newData);
+        }
+
+        Object getAndSetData(Object newData)
+        {
+            return DATA_UPDATER.getAndSet(this, newData);
+        }
+    }
+
+    private class MapIterator implements Iterator<DataType>
+    {
+        private final Deque<Iterator<Node>> stack = new ArrayDeque<>();
+        private Object nextData = EMPTY;
+
+        MapIterator(Node root)
+        {
+            stack.push(root.children.values().iterator());
+            advance();
+        }
+
+        private void advance()
+        {
+            nextData = EMPTY;
+            while (!stack.isEmpty() && (nextData == EMPTY)) {
+                Iterator<Node> iterator = stack.peek();
+                if (!iterator.hasNext()) {
+                    stack.pop();
+                    continue;
+                }
+                Node node = iterator.next();
+                if (node.children != null) {
+                    stack.push(node.children.values().iterator());
+                } else {
+                    nextData = node.data;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return nextData != EMPTY;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public DataType next()
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            DataType data = (DataType) nextData;
+            advance();
+            return data;
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
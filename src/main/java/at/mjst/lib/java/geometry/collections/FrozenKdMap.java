@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * Immutable {@link KdMap} created by {@link HashTreeKdMap#freeze()}, for maps built once and read many times. The tree
+ * is stored level by level in flat arrays: the coordinates of all nodes of a level, sorted within each parent, and for
+ * all but the last level the offsets of the children of each node within the next level. Lookups binary search the
+ * children of one node per level, no object is touched except the stored item. Needing about 8 bytes per node, a
+ * frozen map is a fraction of the size of the tree it was created from.
+ * <p>
+ * Since nothing is modified after construction, any number of threads may read concurrently without synchronization.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class FrozenKdMap<DataType> extends AbstractKdMap<DataType>
+{
+    private final int[] axisOrder; // axis of each level
+    private final int[][] keys; // coordinates of the nodes of each level
+    private final int[][] offsets; // offsets[level][node] is the first child of node within level + 1
+    private final Object[] values; // items of the nodes of the last level
+
+    /**
+     * @param axisOrder axis of each level.
+     * @param keys      coordinates of the nodes of each level, sorted within each parent.
+     * @param offsets   per level but the last, first child of each node within the next level, followed by the count of
+     *                  nodes of the next level.
+     * @param values    items of the nodes of the last level.
+     */
+    FrozenKdMap(int[] axisOrder, int[][] keys, int[][] offsets, Object[] values)
+    {
+        super(axisOrder.length);
+        this.axisOrder = axisOrder;
+        this.keys = keys;
+        this.offsets = offsets;
+        this.values = values;
+    }
+
+    /**
+     * @return the position of the key held by array from offset on within the last level, or -1 if not stored.
+     */
+    private int find(int[] coordinates, int offset)
+    {
+        validateCoordinates(coordinates, offset);
+        int from = 0;
+        int to = keys[0].length;
+        int last = keys.length - 1;
+        for (int level = 0; ; level++) {
+            int position = search(keys[level], from, to, coordinates[offset + axisOrder[level]]);
+            if ((position < 0) || (level == last)) {
+                return position;
+            }
+            from = offsets[level][position];
+            to = offsets[level][position + 1];
+        }
+    }
+
+    /**
+     * @return position of key within keys[from, to), or -(insertion point + 1) if missing.
+     */
+    private static int search(int[] keys, int from, int to, int key)
+    {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleKey = keys[middle];
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private DataType valueAt(int position)
+    {
+        return (DataType) values[position];
+    }
+
+    /**
+     * Not supported, frozen maps are immutable.
+     */
+    @Override
+    public void add(KdPoint key, DataType data)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Not supported, frozen maps are immutable.
+     */
+    @Override
+    public DataType put(KdPoint key, DataType data)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Not supported, frozen maps are immutable.
+     */
+    @Override
+    public DataType remove(KdPoint key)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean containsKey(KdPoint key)
+    {
+        return find(toCoordinates(key), 0) >= 0;
+    }
+
+    @Override
+    public boolean containsKey(int[] coordinates, int offset)
+    {
+        return find(coordinates, offset) >= 0;
+    }
+
+    @Override
+    public DataType get(KdPoint key)
+    {
+        return get(toCoordinates(key), 0);
+    }
+
+    @Override
+    public DataType get(int[] coordinates, int offset)
+    {
+        int position = find(coordinates, offset);
+        return (position >= 0) ? valueAt(position) : null;
+    }
+
+    /**
+     * Visits all entries within the box between min and max. The children of each node lying within the range of its
+     * axis are found by a binary search for the lower bound, so subtrees outside the box are never touched.
+     */
+    @Override
+    public boolean query(KdPoint min, KdPoint max, KdEntryVisitor<DataType> visitor)
+    {
+        return query(toCoordinates(min), toCoordinates(max), visitor, new int[getDimensionCount()], 0, 0,
+                keys[0].length);
+    }
+
+    private boolean query(int[] min, int[] max, KdEntryVisitor<DataType> visitor, int[] coordinates, int level,
+                          int from, int to)
+    {
+        int axis = axisOrder[level];
+        int position = search(keys[level], from, to, min[axis]);
+        for (position = (position < 0) ? -(position + 1) : position; position < to; position++) {
+            int key = keys[level][position];
+            if (key > max[axis]) {
+                break;
+            }
+            coordinates[axis] = key;
+            if (level == (keys.length - 1)) {
+                if (!visitor.visit(coordinates, valueAt(position))) {
+                    return false;
+                }
+            } else if (!query(min, max, visitor, coordinates, level + 1, offsets[level][position],
+                    offsets[level][position + 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getSize()
+    {
+        return values.length;
+    }
+
+    /**
+     * Not supported, frozen maps are immutable.
+     */
+    @Override
+    public void clear()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return the axes in the order of the levels, taken from the map frozen.
+     */
+    public int[] getAxisOrder()
+    {
+        return axisOrder.clone();
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code DataType}, ordered by their keys level by level.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<DataType> iterator()
+    {
+        return new Iterator<DataType>()
+        {
+            private int position = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return position < values.length;
+            }
+
+            @Override
+            public DataType next()
+            {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return valueAt(position++);
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
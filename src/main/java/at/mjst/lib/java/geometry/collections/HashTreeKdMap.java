@@ -5,88 +5,386 @@
 package at.mjst.lib.java.geometry.collections;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import at.mjst.lib.java.geometry.defines.ExceptionText;
+import at.mjst.lib.java.geometry.defines.SpaceFillingCurve;
 import at.mjst.lib.java.geometry.entities.KdPoint;
 
 /**
  * Stores objects of type {@code DataType} identified by KdPoint {@link KdPoint}. Designed to speed up finding these
- * objects by their corresponding coordinates using a tree managed by a HashMap for each coordinate-axis. The method
- * {@link #add(KdPoint, Object)} may be a bit slow. {@link KdPoint#getDimensionCount()} must fit {@link #dimensionCount}
- * specified for this map!
+ * objects by their corresponding coordinates using a tree managed by a primitive int-keyed table for each
+ * coordinate-axis. The method {@link #add(KdPoint, Object)} may be a bit slow. {@link KdPoint#getDimensionCount()} must
+ * fit {@link #getDimensionCount()} specified for this map!
  *
  * @author Ing. Michael J. Stallinger (projects@mjst.at)
  * @since 2016-05-31
  */
-public class HashTreeKdMap<DataType> implements KdMap<DataType>
+public class HashTreeKdMap<DataType> extends AbstractKdMap<DataType>
 {
-    private int dimensionCount;
+    private static final int SUBTREES_PER_THREAD = 16; // enough tasks to balance subtrees of different size
+    private static final int PARALLEL_THRESHOLD = 1 << 12; // less entries are traversed faster by a single thread
+    private static final int ENTRIES_PER_TASK = 1 << 10; // minimum work of a task, to outweigh forking and combining
     private Node root;
     private List<Container> index;
+    private int[] axisOrder; // axis descended on each level of the tree
+    private KdMapCounters counters; // null, if not counting
+    private CurveOrder curveOrder; // of the last cursor or layout, null after modifications
 
     public HashTreeKdMap(int dimensionCount)
     {
-        if (dimensionCount <= 0) {
-            throw new IllegalArgumentException(ExceptionText.DIMENSION_COUNT_GREATER_ZERO_REQUIRED);
-        }
-        this.dimensionCount = dimensionCount;
+        this(dimensionCount, null);
+    }
+
+    /**
+     * Creates a map descending the axes in the given order. Putting axes of few distinct coordinates first keeps the
+     * tables near the root small and reduces the count of nodes, as the tables below are shared by more entries.
+     *
+     * @param dimensionCount count of axes.
+     * @param axisOrder      permutation of all axes, the axis of the root's children first; null for ascending order.
+     */
+    public HashTreeKdMap(int dimensionCount, int[] axisOrder)
+    {
+        super(dimensionCount);
+        this.axisOrder = (axisOrder != null) ? validateAxisOrder(axisOrder) : ascendingAxes();
         clear(); // clears the structure by recreating the root-node
     }
 
+    private int[] ascendingAxes()
+    {
+        int[] axes = new int[getDimensionCount()];
+        for (int axis = 0; axis < axes.length; axis++) {
+            axes[axis] = axis;
+        }
+        return axes;
+    }
+
+    private int[] validateAxisOrder(int[] axisOrder)
+    {
+        boolean[] seen = new boolean[getDimensionCount()];
+        if (axisOrder.length != seen.length) {
+            throw new IllegalArgumentException(ExceptionText.AXIS_ORDER_INVALID);
+        }
+        for (int axis : axisOrder) {
+            if ((axis < 0) || (axis >= seen.length) || seen[axis]) {
+                throw new IllegalArgumentException(ExceptionText.AXIS_ORDER_INVALID);
+            }
+            seen[axis] = true;
+        }
+        return axisOrder.clone();
+    }
+
+    /**
+     * @return the axes in the order they are descended, the axis of the root's children first.
+     */
+    public int[] getAxisOrder()
+    {
+        return axisOrder.clone();
+    }
+
     @Override
     public int getSize()
     {
         return index.size();
     }
 
+    /**
+     * Walks the path of key. If doCreate, missing nodes are created and a new entry is counted by all nodes along the
+     * path, which must be reverted by {@link #uncount(KdPoint)}, if the entry turns out to exist already.
+     */
     private Node locateNode(KdPoint key, boolean doCreate)
     {
-        if (key.getDimensionCount() != dimensionCount) {
-            throw new IllegalArgumentException(String.format("dimension count must be %d", dimensionCount));
-        }
+        validateKey(key);
+        int dimensionCount = getDimensionCount();
         Node currentNode = root;
-        int axis = 0;
+        int level = 0;
         do {
-            currentNode = currentNode.getSubNode(key.get(axis), doCreate);
+            if (doCreate) {
+                currentNode.count++;
+            }
+            currentNode = currentNode.getSubNode(key.get(axisOrder[level]), doCreate);
             if (currentNode == null) {
                 return null; // add: did not work; get: nothing found
             }
-            axis++;
-        } while (axis < dimensionCount);
+            level++;
+        } while (level < dimensionCount);
+        if (doCreate) {
+            currentNode.count++;
+        }
         return currentNode;
     }
 
+    /**
+     * Walks the path of the key held by array from offset on. If doCreate, missing nodes are created and a new entry is
+     * counted by all nodes along the path.
+     */
+    private Node locateNode(int[] coordinates, int offset, boolean doCreate)
+    {
+        validateCoordinates(coordinates, offset);
+        Node currentNode = root;
+        for (int level = 0; (level < getDimensionCount()) && (currentNode != null); level++) {
+            if (doCreate) {
+                currentNode.count++;
+            }
+            currentNode = currentNode.getSubNode(coordinates[offset + axisOrder[level]], doCreate);
+        }
+        if (doCreate) {
+            currentNode.count++;
+        }
+        return currentNode;
+    }
+
+    /**
+     * Reverts counting an entry along the path of key, which existed already.
+     */
+    private void uncount(KdPoint key)
+    {
+        Node currentNode = root;
+        for (int level = 0; level < getDimensionCount(); level++) {
+            currentNode.count--;
+            currentNode = currentNode.getSubNode(key.get(axisOrder[level]), false);
+        }
+        currentNode.count--;
+    }
+
     @Override
     public void add(KdPoint key, DataType data)
     {
         Node node = locateNode(key, true);
         if (node != null) {
             if (node.hasLeaf()) {
-                throw new RuntimeException("data already set for this key"); // added, but there's already an element
+                uncount(key);
+                throw new RuntimeException(ExceptionText.DATA_ALREADY_SET); // added, but there's already an element
             } else {
                 node.setLeaf(new Container(data)); // successful add()
             }
         } else {
             throw new RuntimeException("error building node-tree");
         }
-        index.add(node.getLeaf());
+        addToIndex(node.getLeaf());
+    }
+
+    @Override
+    public DataType put(KdPoint key, DataType data)
+    {
+        Node node = locateNode(key, true);
+        if (node.hasLeaf()) {
+            uncount(key);
+            DataType formerData = node.getLeaf().getData();
+            node.getLeaf().setData(data);
+            return formerData;
+        }
+        node.setLeaf(new Container(data));
+        addToIndex(node.getLeaf());
+        return null;
+    }
+
+    /**
+     * Creates and adds the item if missing, walking the path of key only once: a missing entry is created below the
+     * deepest node found, whose path is kept meanwhile. Thus the factory must not modify this map.
+     */
+    @Override
+    public DataType computeIfAbsent(KdPoint key, KdDataFactory<DataType> factory)
+    {
+        int[] coordinates = toCoordinates(key);
+        Path path = new Path();
+        Node node = path.locate(coordinates, 0, false);
+        if ((node != null) && node.hasLeaf()) {
+            return node.getLeaf().getData();
+        }
+        DataType data = factory.create(key);
+        if (data != null) {
+            node = path.locate(coordinates, 0, true); // continues below the deepest node found
+            path.countEntry();
+            node.setLeaf(new Container(data));
+            addToIndex(node.getLeaf());
+        }
+        return data;
+    }
+
+    /**
+     * Removes the entry of key. The index is kept compact by moving its last container into the gap, nodes left without
+     * any entry below them are removed from their parents.
+     */
+    @Override
+    public DataType remove(KdPoint key)
+    {
+        validateKey(key);
+        Container container = removeLeaf(root, key, 0);
+        if (container == null) {
+            return null;
+        }
+        root.count--;
+        curveOrder = null;
+        Container last = index.remove(index.size() - 1); // swap with last, instead of shifting the whole list
+        if (last != container) {
+            index.set(container.getPosition(), last);
+            last.setPosition(container.getPosition());
+        }
+        return container.getData();
+    }
+
+    /**
+     * Removes the leaf of key below node, uncounting it and pruning nodes left empty on the way back up.
+     *
+     * @return the removed container, or null if key was not found.
+     */
+    private Container removeLeaf(Node node, KdPoint key, int level)
+    {
+        int offset = key.get(axisOrder[level]);
+        Node subNode = node.getSubNode(offset, false);
+        if (subNode == null) {
+            return null;
+        }
+        Container container;
+        if (level == (getDimensionCount() - 1)) {
+            container = subNode.getLeaf();
+            subNode.setLeaf(null);
+        } else {
+            container = removeLeaf(subNode, key, level + 1);
+        }
+        if (container != null) {
+            subNode.count--;
+            if (subNode.isEmpty()) {
+                node.removeSubNode(offset);
+            }
+        }
+        return container;
+    }
+
+    private void addToIndex(Container container)
+    {
+        curveOrder = null;
+        container.setPosition(index.size());
+        index.add(container);
     }
 
     @Override
     public boolean containsKey(KdPoint key)
     {
-        return (locateNode(key, false) != null);
+        return (counted(locateNode(key, false)) != null);
+    }
+
+    @Override
+    public boolean containsKey(int[] coordinates, int offset)
+    {
+        return (counted(locateNode(coordinates, offset, false)) != null);
     }
 
     @Override
     public DataType get(KdPoint key)
     {
-        Node node = locateNode(key, false);
-        if (node != null) {
+        return dataOf(locateNode(key, false));
+    }
+
+    @Override
+    public DataType get(int[] coordinates, int offset)
+    {
+        return dataOf(locateNode(coordinates, offset, false));
+    }
+
+    /**
+     * Shortcut for two-dimensional maps, not allocating anything.
+     */
+    public DataType get(int x, int y)
+    {
+        validateDimensionCount(2);
+        Node node = root.getSubNode(pick(0, x, y, 0), false);
+        return dataOf((node != null) ? node.getSubNode(pick(1, x, y, 0), false) : null);
+    }
+
+    /**
+     * Shortcut for three-dimensional maps, not allocating anything.
+     */
+    public DataType get(int x, int y, int z)
+    {
+        validateDimensionCount(3);
+        Node node = root.getSubNode(pick(0, x, y, z), false);
+        node = (node != null) ? node.getSubNode(pick(1, x, y, z), false) : null;
+        return dataOf((node != null) ? node.getSubNode(pick(2, x, y, z), false) : null);
+    }
+
+    /**
+     * @return the coordinate of the axis descended on level.
+     */
+    private int pick(int level, int x, int y, int z)
+    {
+        int axis = axisOrder[level];
+        return (axis == 0) ? x : ((axis == 1) ? y : z);
+    }
+
+    /**
+     * Adds all items, walking only the part of the path of each key, which differs from the path of the key before.
+     */
+    @Override
+    protected void addAll(int[] coordinates, int count, DataType[] data)
+    {
+        Path path = new Path();
+        for (int i = 0; i < count; i++) {
+            Node node = path.locate(coordinates, i * getDimensionCount(), true);
+            if (node.hasLeaf()) {
+                throw new RuntimeException(ExceptionText.DATA_ALREADY_SET);
+            }
+            path.countEntry();
+            node.setLeaf(new Container(data[i]));
+            addToIndex(node.getLeaf());
+        }
+    }
+
+    /**
+     * Checks all keys, walking only the part of the path of each key, which differs from the path of the key before.
+     */
+    @Override
+    protected BitSet containsAll(int[] coordinates, int count)
+    {
+        BitSet contained = new BitSet(count);
+        Path path = new Path();
+        for (int i = 0; i < count; i++) {
+            if (counted(path.locate(coordinates, i * getDimensionCount(), false)) != null) {
+                contained.set(i);
+            }
+        }
+        return contained;
+    }
+
+    /**
+     * Looks all keys up, walking only the part of the path of each key, which differs from the path of the key before.
+     */
+    @Override
+    protected void getAll(int[] coordinates, int count, DataType[] results)
+    {
+        Path path = new Path();
+        for (int i = 0; i < count; i++) {
+            results[i] = dataOf(path.locate(coordinates, i * getDimensionCount(), false));
+        }
+    }
+
+    /**
+     * Counts a lookup, if counters are attached.
+     *
+     * @return node as passed.
+     */
+    private Node counted(Node node)
+    {
+        if (counters != null) {
+            counters.lookup(node != null);
+        }
+        return node;
+    }
+
+    /**
+     * @param node node of the last axis, or null.
+     * @return data of node, or null if there is no node.
+     */
+    private DataType dataOf(Node node)
+    {
+        if (counted(node) != null) {
             if (node.hasLeaf()) {
                 return node.getLeaf().getData(); // successful get() - return, whatever the container contains ;)
             } else {
@@ -97,11 +395,392 @@ public class HashTreeKdMap<DataType> implements KdMap<DataType>
         }
     }
 
+    /**
+     * Visits all entries within the box between min and max. Only the children of a node lying within the range of the
+     * node's axis are descended, so whole subtrees are pruned at every level.
+     */
+    @Override
+    public boolean query(KdPoint min, KdPoint max, KdEntryVisitor<DataType> visitor)
+    {
+        return new RangeQuery(toCoordinates(min), toCoordinates(max), visitor).run(root);
+    }
+
+    /**
+     * Counts the entries within the box between min and max by the counts kept per node. Once the box spans all
+     * coordinates of the axes of the remaining levels, the count of a node answers for its whole subtree. So the tree is
+     * descended down to the level of the last bounded axis, taking time proportional to the nodes within the box on the
+     * levels down to there, not to the entries counted. This is proportional to the depth of the tree only if the
+     * bounded axes are descended first and bound a single coordinate each, else it grows with the nodes within the box;
+     * a box bounding the axis of the last level visits nearly every node within the box, like a query. See
+     * {@link #reorder(int[])} for descending the bounded axes first.
+     */
+    @Override
+    public int count(KdPoint min, KdPoint max)
+    {
+        return new RegionCount(toCoordinates(min), toCoordinates(max), Integer.MAX_VALUE).run(root, 0);
+    }
+
+    /**
+     * Stops counting at the first entry found, see {@link #count(KdPoint, KdPoint)}. A node counting an entry proves the
+     * box not empty as soon as the box spans its subtree, otherwise the nodes within the box are descended as by count,
+     * so an empty box takes as long to prove as to count.
+     */
+    @Override
+    public boolean isEmpty(KdPoint min, KdPoint max)
+    {
+        return new RegionCount(toCoordinates(min), toCoordinates(max), 1).run(root, 0) == 0;
+    }
+
+    /**
+     * Walks the node tree depth-first, the coordinates are collected along the path into a single array.
+     */
+    @Override
+    public boolean forEach(KdEntryVisitor<DataType> visitor)
+    {
+        return new RangeQuery(newBound(Integer.MIN_VALUE), newBound(Integer.MAX_VALUE), visitor).run(root);
+    }
+
+    /**
+     * Aggregates all entries within the calling thread, see {@link #aggregate(KdAggregator, ForkJoinPool)}.
+     *
+     * @param aggregator {@link KdAggregator} accumulating the entries.
+     * @return the result, containing all entries.
+     */
+    public <ResultType> ResultType aggregate(KdAggregator<DataType, ResultType> aggregator)
+    {
+        ResultType result = aggregator.create();
+        forEach(new Accumulation<>(aggregator, result));
+        return result;
+    }
+
+    /**
+     * Aggregates all entries in parallel. The tree is cut into disjoint subtrees on the topmost level providing enough
+     * of them to keep all threads of pool busy. Adjacent subtrees are grouped by the counts kept per node, so that each
+     * task traverses a share of the entries, but at least {@value #ENTRIES_PER_TASK} of them. Less than
+     * {@value #PARALLEL_THRESHOLD} entries are aggregated within the calling thread. The map must not be modified
+     * meanwhile.
+     *
+     * @param aggregator {@link KdAggregator} accumulating the entries.
+     * @param pool       {@link ForkJoinPool} to run the tasks in, or null to aggregate within the calling thread.
+     * @return the combined result of all tasks.
+     */
+    public <ResultType> ResultType aggregate(KdAggregator<DataType, ResultType> aggregator, ForkJoinPool pool)
+    {
+        return aggregate(newBound(Integer.MIN_VALUE), newBound(Integer.MAX_VALUE), aggregator, pool);
+    }
+
+    /**
+     * Aggregates all entries within the box between min and max in parallel, like a query spread over all threads of
+     * pool. Only subtrees intersecting the box are split off, see {@link #aggregate(KdAggregator, ForkJoinPool)}; the
+     * entries of these subtrees decide, whether the box is worth aggregating in parallel at all. Each
+     * task accumulates into a result of its own, e.g. a list buffering the entries found, so tasks never contend; the
+     * results are combined once the tasks are done.
+     *
+     * @param min        lower corner of the box.
+     * @param max        upper corner of the box.
+     * @param aggregator {@link KdAggregator} accumulating the entries.
+     * @param pool       {@link ForkJoinPool} to run the tasks in, or null to aggregate within the calling thread.
+     * @return the combined result of all tasks.
+     */
+    public <ResultType> ResultType aggregate(KdPoint min, KdPoint max, KdAggregator<DataType, ResultType> aggregator,
+                                             ForkJoinPool pool)
+    {
+        return aggregate(toCoordinates(min), toCoordinates(max), aggregator, pool);
+    }
+
+    private <ResultType> ResultType aggregate(int[] min, int[] max, KdAggregator<DataType, ResultType> aggregator,
+                                              ForkJoinPool pool)
+    {
+        if ((pool == null) || (getSize() < PARALLEL_THRESHOLD)) {
+            ResultType result = aggregator.create();
+            new RangeQuery(min, max, new Accumulation<>(aggregator, result)).run(root);
+            return result;
+        }
+        int taskCount = pool.getParallelism() * SUBTREES_PER_THREAD;
+        Subtrees subtrees = new Subtrees(min, max, taskCount);
+        long total = subtrees.countBefore(subtrees.nodes.size());
+        if (total < PARALLEL_THRESHOLD) { // a small box within a large map
+            return new AggregateTask<>(aggregator, subtrees, 0, subtrees.nodes.size(), total).compute();
+        }
+        long entriesPerTask = Math.max(ENTRIES_PER_TASK, total / taskCount);
+        return pool.invoke(new AggregateTask<>(aggregator, subtrees, 0, subtrees.nodes.size(), entriesPerTask));
+    }
+
+    /**
+     * Rebuilds the tree, descending the axes in ascending order of their count of distinct coordinates. Should be called
+     * whenever the distribution of the keys has changed considerably, see {@link #reorder(int[])}.
+     *
+     * @return the new order of axes.
+     */
+    public int[] reorder()
+    {
+        final List<IntKeyTable<Boolean>> distinct = new ArrayList<>();
+        for (int axis = 0; axis < getDimensionCount(); axis++) {
+            distinct.add(new IntKeyTable<Boolean>());
+        }
+        forEach(new KdEntryVisitor<DataType>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, DataType data)
+            {
+                for (int axis = 0; axis < coordinates.length; axis++) {
+                    distinct.get(axis).put(coordinates[axis], Boolean.TRUE);
+                }
+                return true;
+            }
+        });
+        Integer[] axes = new Integer[getDimensionCount()];
+        for (int axis = 0; axis < axes.length; axis++) {
+            axes[axis] = axis;
+        }
+        Arrays.sort(axes, new Comparator<Integer>() // stable, so axes of equal count keep their order
+        {
+            @Override
+            public int compare(Integer left, Integer right)
+            {
+                return Integer.compare(distinct.get(left).size(), distinct.get(right).size());
+            }
+        });
+        int[] order = new int[axes.length];
+        for (int level = 0; level < order.length; level++) {
+            order[level] = axes[level];
+        }
+        reorder(order);
+        return getAxisOrder();
+    }
+
+    /**
+     * Rebuilds the tree, descending the axes in the given order. The entries are moved into the new tree as they are,
+     * so the order of iteration is kept.
+     *
+     * @param axisOrder permutation of all axes, the axis of the root's children first.
+     */
+    public void reorder(int[] axisOrder)
+    {
+        int[] order = validateAxisOrder(axisOrder);
+        if (Arrays.equals(order, this.axisOrder)) {
+            return;
+        }
+        final List<int[]> keys = new ArrayList<>(index.size());
+        final List<Container> leaves = new ArrayList<>(index.size());
+        new RangeQuery(newBound(Integer.MIN_VALUE), newBound(Integer.MAX_VALUE), null)
+        {
+            @Override
+            boolean visitLeaf(int[] coordinates, Node node)
+            {
+                keys.add(coordinates.clone());
+                leaves.add(node.getLeaf());
+                return true;
+            }
+        }.run(root);
+        this.axisOrder = order;
+        root = new Node();
+        curveOrder = null;
+        for (int i = 0; i < keys.size(); i++) {
+            locateNode(keys.get(i), 0, true).setLeaf(leaves.get(i));
+        }
+    }
+
+    /**
+     * Creates an immutable copy of this map, stored in flat arrays level by level. The copy keeps the axis order and is
+     * independent of this map, which must not be modified meanwhile.
+     *
+     * @return a {@link FrozenKdMap} holding the same entries.
+     */
+    public FrozenKdMap<DataType> freeze()
+    {
+        int levelCount = getDimensionCount();
+        int[][] keys = new int[levelCount][];
+        int[][] offsets = new int[levelCount - 1][];
+        List<Node> parents = new ArrayList<>();
+        parents.add(root);
+        for (int level = 0; level < levelCount; level++) {
+            List<Node> nodes = new ArrayList<>();
+            int[] levelKeys = new int[Math.max(16, parents.size())];
+            int[] bounds = new int[parents.size() + 1];
+            for (int i = 0; i < parents.size(); i++) {
+                bounds[i] = nodes.size();
+                IntKeyTable<Node> children = parents.get(i).children;
+                if (children == null) {
+                    continue;
+                }
+                final int[] childKeys = new int[children.size()];
+                children.visitRange(Integer.MIN_VALUE, Integer.MAX_VALUE, new IntKeyTable.Visitor<Node>()
+                {
+                    private int count;
+
+                    @Override
+                    public boolean visit(int key, Node child)
+                    {
+                        childKeys[count++] = key;
+                        return true;
+                    }
+                });
+                Arrays.sort(childKeys); // hashed tables are visited in any order
+                if ((nodes.size() + childKeys.length) > levelKeys.length) {
+                    levelKeys = Arrays.copyOf(levelKeys, Math.max(levelKeys.length << 1,
+                            nodes.size() + childKeys.length));
+                }
+                for (int key : childKeys) {
+                    levelKeys[nodes.size()] = key;
+                    nodes.add(children.get(key));
+                }
+            }
+            bounds[parents.size()] = nodes.size();
+            if (level > 0) {
+                offsets[level - 1] = bounds;
+            }
+            keys[level] = Arrays.copyOf(levelKeys, nodes.size());
+            parents = nodes;
+        }
+        Object[] values = new Object[parents.size()];
+        for (int i = 0; i < values.length; i++) {
+            Node node = parents.get(i);
+            values[i] = node.hasLeaf() ? node.getLeaf().getData() : null;
+        }
+        return new FrozenKdMap<>(axisOrder.clone(), keys, offsets, values);
+    }
+
+    /**
+     * Creates a cursor stepping through all entries along a space-filling curve. The entries are collected and sorted
+     * when the first cursor along the curve is created; later cursors along the same curve reuse that order, until the
+     * map is modified. The map must not be modified while the cursor is used.
+     *
+     * @param curve {@link SpaceFillingCurve} defining the order.
+     * @return a {@link KdCursor} positioned before the first entry along the curve.
+     */
+    public KdCursor<DataType> cursor(SpaceFillingCurve curve)
+    {
+        return new CurveCursor(curveOrder(curve), 0);
+    }
+
+    /**
+     * Creates a cursor stepping through the entries along a space-filling curve, starting at the position of a given
+     * point. Passing the coordinates of the last entry visited by a former cursor and exclusive start resumes that
+     * cursor, even if the entry was removed meanwhile.
+     *
+     * @param curve     {@link SpaceFillingCurve} defining the order.
+     * @param start     coordinates of the point to start at, one per axis; need not be stored in map.
+     * @param inclusive True to include an entry of start itself, false to start after it.
+     * @return a {@link KdCursor} positioned before the first entry to visit.
+     */
+    public KdCursor<DataType> cursor(SpaceFillingCurve curve, int[] start, boolean inclusive)
+    {
+        validateCoordinates(start, 0);
+        CurveOrder order = curveOrder(curve);
+        int[] key = Arrays.copyOf(start, getDimensionCount());
+        curve.toCurveKey(key, 0, getDimensionCount());
+        return new CurveCursor(order, order.search(key, inclusive));
+    }
+
+    /**
+     * @return the entries sorted along curve, reusing the order of the last call while the map is unmodified.
+     */
+    private CurveOrder curveOrder(SpaceFillingCurve curve)
+    {
+        if ((curveOrder == null) || (curveOrder.curve != curve)) {
+            curveOrder = new CurveOrder(curve);
+        }
+        return curveOrder;
+    }
+
+    /**
+     * Lays the entries out along a space-filling curve: the index, and so {@link #iterator()}, is sorted along the
+     * curve, and the containers of all entries are allocated anew in that order. This only hints the allocator: freshly
+     * allocated objects usually lie next to each other, but the garbage collector may move them, and the nodes of the
+     * tree stay where they are. Entries added later are appended, a removal moves the last entry into the gap, so the
+     * layout should be renewed after larger modifications.
+     *
+     * @param curve {@link SpaceFillingCurve} defining the order.
+     */
+    public void layout(SpaceFillingCurve curve)
+    {
+        CurveOrder order = curveOrder(curve); // stays valid, as the nodes are kept
+        List<Container> sorted = new ArrayList<>(order.nodes.size());
+        for (Node node : order.nodes) {
+            Container container = new Container(node.getLeaf().getData());
+            container.setPosition(sorted.size());
+            sorted.add(container);
+            node.setLeaf(container);
+        }
+        index = sorted;
+    }
+
+    /**
+     * Attaches counters of lookups and node creations, counting starts immediately.
+     *
+     * @param counters {@link KdMapCounters} to update, or null to stop counting.
+     */
+    public void setCounters(KdMapCounters counters)
+    {
+        this.counters = counters;
+    }
+
+    /**
+     * @return the attached {@link KdMapCounters}, or null if not counting.
+     */
+    public KdMapCounters getCounters()
+    {
+        return counters;
+    }
+
+    /**
+     * Collects statistics of the node tree, visiting every node once. The map must not be modified meanwhile.
+     *
+     * @return {@link KdMapStatistics} of the current structure.
+     */
+    public KdMapStatistics getStatistics()
+    {
+        KdMapStatistics statistics = new KdMapStatistics(getDimensionCount());
+        collect(statistics, root, -1);
+        statistics.addBytes(KdMapStatistics.objectBytes(5 * KdMapStatistics.REFERENCE_BYTES + 4)); // the map itself
+        statistics.addBytes(KdMapStatistics.arrayBytes(axisOrder.length, 4));
+        statistics.addBytes(KdMapStatistics.objectBytes(2 * 4 + KdMapStatistics.REFERENCE_BYTES)); // index
+        statistics.addBytes(KdMapStatistics.arrayBytes(index.size(), KdMapStatistics.REFERENCE_BYTES));
+        return statistics;
+    }
+
+    private void collect(final KdMapStatistics statistics, Node node, final int level)
+    {
+        // children, leaf and the map of this inner class, plus the count
+        statistics.addBytes(KdMapStatistics.objectBytes(3 * KdMapStatistics.REFERENCE_BYTES + 4));
+        if (level >= 0) {
+            statistics.addNode(level, node.hasLeaf());
+        }
+        if (node.hasLeaf()) {
+            statistics.addBytes(KdMapStatistics.objectBytes(2 * KdMapStatistics.REFERENCE_BYTES + 4)); // map included
+        }
+        if (node.children != null) {
+            IntKeyTable<Node> children = node.children;
+            statistics.addTable(children.size(), children.isHashed(), children.probeLengthSum());
+            statistics.addBytes(KdMapStatistics.objectBytes(2 * KdMapStatistics.REFERENCE_BYTES + 4 + 1));
+            statistics.addBytes(KdMapStatistics.arrayBytes(children.capacity(), 4));
+            statistics.addBytes(KdMapStatistics.arrayBytes(children.capacity(), KdMapStatistics.REFERENCE_BYTES));
+            children.visitRange(Integer.MIN_VALUE, Integer.MAX_VALUE, new IntKeyTable.Visitor<Node>()
+            {
+                @Override
+                public boolean visit(int key, Node child)
+                {
+                    collect(statistics, child, level + 1);
+                    return true;
+                }
+            });
+        }
+    }
+
+    private int[] newBound(int value)
+    {
+        int[] bound = new int[getDimensionCount()];
+        Arrays.fill(bound, value);
+        return bound;
+    }
+
     @Override
     public void clear()
     {
         root = new Node();
         index = new ArrayList<>();
+        curveOrder = null;
     }
 
     /**
@@ -117,25 +796,40 @@ public class HashTreeKdMap<DataType> implements KdMap<DataType>
 
     private class Node
     {
-        private Map<Integer, Node> map;
+        private IntKeyTable<Node> children;
         private Container leaf;
+        private int count; // count of entries below this node, its own leaf included
 
         Node getSubNode(int offset, boolean doCreate)
         {
-            if (map == null) {
+            if (children == null) {
                 if (!doCreate) {
-                    return null; // no need to create map, if elements are only read...
+                    return null; // no need to create a table, if elements are only read...
+                }
+                children = new IntKeyTable<>();
+            }
+            Node node = children.get(offset); // single probe, the offset is never boxed
+            if ((node == null) && doCreate) {
+                node = new Node();
+                children.put(offset, node);
+                if (counters != null) {
+                    counters.nodeCreated();
                 }
-                map = new HashMap<>();
             }
-            if (map.containsKey(offset)) {
-                return map.get(offset);
-            } else if (doCreate) {
-                Node node = new Node();
-                map.put(offset, node);
-                return node;
+            return node; // null, if not found or not created
+        }
+
+        void removeSubNode(int offset)
+        {
+            children.remove(offset);
+            if (children.size() == 0) {
+                children = null;
             }
-            return null; // not found or not created
+        }
+
+        boolean isEmpty()
+        {
+            return (leaf == null) && (children == null);
         }
 
         boolean hasLeaf()
@@ -157,6 +851,7 @@ public class HashTreeKdMap<DataType> implements KdMap<DataType>
     private class Container
     {
         private DataType data;
+        private int position; // within index
 
         Container(DataType data)
         {
@@ -172,6 +867,436 @@ public class HashTreeKdMap<DataType> implements KdMap<DataType>
         {
             this.data = data;
         }
+
+        int getPosition()
+        {
+            return position;
+        }
+
+        void setPosition(int position)
+        {
+            this.position = position;
+        }
+    }
+
+    /**
+     * Depth-first traversal of all nodes within a box, collecting the coordinates along the path.
+     */
+    private class RangeQuery implements IntKeyTable.Visitor<Node>
+    {
+        private final int[] min;
+        private final int[] max;
+        private final KdEntryVisitor<DataType> visitor;
+        private final int[] coordinates;
+        private int level;
+
+        RangeQuery(int[] min, int[] max, KdEntryVisitor<DataType> visitor)
+        {
+            this.min = min;
+            this.max = max;
+            this.visitor = visitor;
+            this.coordinates = new int[getDimensionCount()];
+        }
+
+        boolean run(Node node)
+        {
+            int axis = axisOrder[level];
+            return (node.children == null) || node.children.visitRange(min[axis], max[axis], this);
+        }
+
+        /**
+         * Traverses the subtree of a node below the root.
+         *
+         * @param prefix coordinates of the path to node, for all axes descended before level.
+         * @param level  level of the children of node.
+         */
+        boolean run(Node node, int[] prefix, int level)
+        {
+            System.arraycopy(prefix, 0, coordinates, 0, coordinates.length);
+            this.level = level;
+            return run(node);
+        }
+
+        @Override
+        public boolean visit(int key, Node node)
+        {
+            coordinates[axisOrder[level]] = key;
+            if (level == (coordinates.length - 1)) {
+                return !node.hasLeaf() || visitLeaf(coordinates, node);
+            }
+            level++;
+            boolean completed = run(node);
+            level--;
+            return completed;
+        }
+
+        boolean visitLeaf(int[] coordinates, Node node)
+        {
+            return visitor.visit(coordinates, node.getLeaf().getData());
+        }
+    }
+
+    /**
+     * Sums the counts of the subtrees within a box, descending only the levels of bounded axes.
+     */
+    private class RegionCount
+    {
+        private final int[] min;
+        private final int[] max;
+        private final int limit; // count to stop at
+        private final int unboundedLevel; // first level, from which on no axis is bounded
+        private int count;
+
+        RegionCount(int[] min, int[] max, int limit)
+        {
+            this.min = min;
+            this.max = max;
+            this.limit = limit;
+            int level = getDimensionCount();
+            while ((level > 0) && (min[axisOrder[level - 1]] == Integer.MIN_VALUE) &&
+                    (max[axisOrder[level - 1]] == Integer.MAX_VALUE)) {
+                level--;
+            }
+            unboundedLevel = level;
+        }
+
+        /**
+         * @param node  node to count the entries below.
+         * @param level level of the children of node.
+         * @return count of entries found so far, at least limit if stopped early.
+         */
+        int run(Node node, final int level)
+        {
+            if (level >= unboundedLevel) {
+                count += node.count;
+            } else if (node.children != null) {
+                int axis = axisOrder[level];
+                node.children.visitRange(min[axis], max[axis], new IntKeyTable.Visitor<Node>()
+                {
+                    @Override
+                    public boolean visit(int key, Node child)
+                    {
+                        run(child, level + 1);
+                        return count < limit;
+                    }
+                });
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Remembers the nodes along the path of the last key located, so that a following key sharing leading coordinates
+     * continues from the deepest shared node instead of the root.
+     */
+    private class Path
+    {
+        private final Node[] nodes; // nodes[level + 1] is the node of level
+        private final int[] keys = new int[getDimensionCount()];
+        private int resolved; // count of levels of the last path, which are still valid
+
+        @SuppressWarnings("unchecked")
+        Path()
+        {
+            nodes = (Node[]) new HashTreeKdMap<?>.Node[getDimensionCount() + 1]; // no generic array creation
+            nodes[0] = root;
+        }
+
+        /**
+         * @return the node of the last axis for the key held by array from offset on, or null if not found.
+         */
+        Node locate(int[] coordinates, int offset, boolean doCreate)
+        {
+            int level = 0;
+            while ((level < resolved) && (keys[level] == coordinates[offset + axisOrder[level]])) {
+                level++;
+            }
+            for (; level < keys.length; level++) {
+                int key = coordinates[offset + axisOrder[level]];
+                Node node = nodes[level].getSubNode(key, doCreate);
+                if (node == null) {
+                    resolved = level;
+                    return null;
+                }
+                keys[level] = key;
+                nodes[level + 1] = node;
+            }
+            resolved = keys.length;
+            return nodes[keys.length];
+        }
+
+        /**
+         * Counts a new entry by all nodes along the last path located.
+         */
+        void countEntry()
+        {
+            for (Node node : nodes) {
+                node.count++;
+            }
+        }
+    }
+
+    /**
+     * All entries sorted along a space-filling curve, collected when created. Sorts an index per entry, so no object is
+     * created per entry besides the list of nodes.
+     */
+    private class CurveOrder
+    {
+        private final SpaceFillingCurve curve;
+        private final int[] keys; // curve keys of all entries, one after the other
+        private final int[] coordinates;
+        private final List<Node> nodes = new ArrayList<>(index.size());
+
+        CurveOrder(SpaceFillingCurve curve)
+        {
+            this.curve = curve;
+            final int dimensionCount = getDimensionCount();
+            final int[] collected = new int[index.size() * dimensionCount];
+            final List<Node> collectedNodes = new ArrayList<>(index.size());
+            new RangeQuery(newBound(Integer.MIN_VALUE), newBound(Integer.MAX_VALUE), null)
+            {
+                @Override
+                boolean visitLeaf(int[] coordinates, Node node)
+                {
+                    System.arraycopy(coordinates, 0, collected, collectedNodes.size() * dimensionCount,
+                            dimensionCount);
+                    collectedNodes.add(node);
+                    return true;
+                }
+            }.run(root);
+            int[] collectedKeys = collected.clone();
+            int[] order = new int[collectedNodes.size()];
+            for (int i = 0; i < order.length; i++) {
+                curve.toCurveKey(collectedKeys, i * dimensionCount, dimensionCount);
+                order[i] = i;
+            }
+            mergeSort(collectedKeys, order, new int[order.length], 0, order.length);
+            keys = new int[collected.length];
+            coordinates = new int[collected.length];
+            for (int i = 0; i < order.length; i++) {
+                System.arraycopy(collectedKeys, order[i] * dimensionCount, keys, i * dimensionCount, dimensionCount);
+                System.arraycopy(collected, order[i] * dimensionCount, coordinates, i * dimensionCount,
+                        dimensionCount);
+                nodes.add(collectedNodes.get(order[i]));
+            }
+        }
+
+        /**
+         * Sorts the indices of the keys from the index from on to the index to, stable.
+         */
+        private void mergeSort(int[] keys, int[] order, int[] buffer, int from, int to)
+        {
+            if ((to - from) < 2) {
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            mergeSort(keys, order, buffer, from, middle);
+            mergeSort(keys, order, buffer, middle, to);
+            if (compare(keys, order[middle - 1], order[middle]) <= 0) {
+                return; // already in order
+            }
+            System.arraycopy(order, from, buffer, from, to - from);
+            int left = from;
+            int right = middle;
+            for (int i = from; i < to; i++) {
+                boolean takeLeft = (right == to)
+                        || ((left < middle) && (compare(keys, buffer[left], buffer[right]) <= 0));
+                order[i] = takeLeft ? buffer[left++] : buffer[right++];
+            }
+        }
+
+        private int compare(int[] keys, int a, int b)
+        {
+            int dimensionCount = getDimensionCount();
+            return SpaceFillingCurve.compareKeys(keys, a * dimensionCount, keys, b * dimensionCount, dimensionCount);
+        }
+
+        /**
+         * @return position of the first entry at key, if inclusive, or after key.
+         */
+        int search(int[] key, boolean inclusive)
+        {
+            int low = 0;
+            int high = nodes.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int comparison = SpaceFillingCurve.compareKeys(keys, middle * getDimensionCount(), key, 0,
+                        getDimensionCount());
+                if ((comparison < 0) || ((comparison == 0) && !inclusive)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    private class CurveCursor implements KdCursor<DataType>
+    {
+        private final CurveOrder order;
+        private final int[] coordinates = new int[getDimensionCount()];
+        private int position;
+
+        CurveCursor(CurveOrder order, int first)
+        {
+            this.order = order;
+            this.position = first - 1;
+        }
+
+        @Override
+        public boolean next()
+        {
+            if (position < order.nodes.size()) {
+                position++;
+            }
+            if (position == order.nodes.size()) {
+                return false;
+            }
+            System.arraycopy(order.coordinates, position * coordinates.length, coordinates, 0, coordinates.length);
+            return true;
+        }
+
+        @Override
+        public int[] getCoordinates()
+        {
+            return coordinates;
+        }
+
+        @Override
+        public DataType getData()
+        {
+            return order.nodes.get(position).getLeaf().getData();
+        }
+    }
+
+    private class Accumulation<ResultType> implements KdEntryVisitor<DataType>
+    {
+        private final KdAggregator<DataType, ResultType> aggregator;
+        private final ResultType result;
+
+        Accumulation(KdAggregator<DataType, ResultType> aggregator, ResultType result)
+        {
+            this.aggregator = aggregator;
+            this.result = result;
+        }
+
+        @Override
+        public boolean visit(int[] coordinates, DataType data)
+        {
+            aggregator.accumulate(result, coordinates, data);
+            return true;
+        }
+    }
+
+    /**
+     * Disjoint subtrees covering all entries within a box, rooted on the same level, found by expanding the tree level
+     * by level. The entries of the subtrees are summed up from their counts, those outside the box on lower levels
+     * included.
+     */
+    private class Subtrees
+    {
+        private final int[] min;
+        private final int[] max;
+        private List<Node> nodes = new ArrayList<>();
+        private List<int[]> prefixes = new ArrayList<>(); // coordinates of the path to each node
+        private int level; // level of the children of all nodes
+        private long[] countsBefore; // countsBefore[i] is the count of entries within the nodes before node i
+
+        Subtrees(int[] min, int[] max, int minimumCount)
+        {
+            this.min = min;
+            this.max = max;
+            nodes.add(root);
+            prefixes.add(new int[getDimensionCount()]);
+            while ((nodes.size() < minimumCount) && (level < (getDimensionCount() - 1))) {
+                final List<Node> childNodes = new ArrayList<>();
+                final List<int[]> childPrefixes = new ArrayList<>();
+                for (int i = 0; i < nodes.size(); i++) {
+                    final int[] prefix = prefixes.get(i);
+                    Node node = nodes.get(i);
+                    if (node.children == null) {
+                        continue;
+                    }
+                    int axis = axisOrder[level];
+                    node.children.visitRange(min[axis], max[axis], new IntKeyTable.Visitor<Node>()
+                    {
+                        @Override
+                        public boolean visit(int key, Node child)
+                        {
+                            int[] childPrefix = prefix.clone();
+                            childPrefix[axisOrder[level]] = key;
+                            childNodes.add(child);
+                            childPrefixes.add(childPrefix);
+                            return true;
+                        }
+                    });
+                }
+                nodes = childNodes;
+                prefixes = childPrefixes;
+                level++;
+            }
+            countsBefore = new long[nodes.size() + 1];
+            for (int i = 0; i < nodes.size(); i++) {
+                countsBefore[i + 1] = countsBefore[i] + nodes.get(i).count;
+            }
+        }
+
+        long countBefore(int position)
+        {
+            return countsBefore[position];
+        }
+
+        /**
+         * @return the position between from and to, exclusive, which splits the entries of these nodes most evenly.
+         */
+        int split(int from, int to)
+        {
+            long middle = (countsBefore[from] + countsBefore[to]) >>> 1;
+            int position = Arrays.binarySearch(countsBefore, from + 1, to, middle);
+            if (position < 0) {
+                position = -position - 1; // first node starting after middle
+            }
+            return Math.max(from + 1, Math.min(to - 1, position));
+        }
+    }
+
+    private class AggregateTask<ResultType> extends RecursiveTask<ResultType>
+    {
+        private static final long serialVersionUID = 1L;
+        private final KdAggregator<DataType, ResultType> aggregator;
+        private final Subtrees subtrees;
+        private final int from;
+        private final int to;
+        private final long entriesPerTask; // the nodes are traversed by this task, if they count no more entries
+
+        AggregateTask(KdAggregator<DataType, ResultType> aggregator, Subtrees subtrees, int from, int to,
+                      long entriesPerTask)
+        {
+            this.aggregator = aggregator;
+            this.subtrees = subtrees;
+            this.from = from;
+            this.to = to;
+            this.entriesPerTask = entriesPerTask;
+        }
+
+        @Override
+        protected ResultType compute()
+        {
+            if (((to - from) <= 1) || ((subtrees.countBefore(to) - subtrees.countBefore(from)) <= entriesPerTask)) {
+                ResultType result = aggregator.create();
+                RangeQuery query = new RangeQuery(subtrees.min, subtrees.max, new Accumulation<>(aggregator, result));
+                for (int i = from; i < to; i++) {
+                    query.run(subtrees.nodes.get(i), subtrees.prefixes.get(i), subtrees.level);
+                }
+                return result;
+            }
+            int middle = subtrees.split(from, to);
+            AggregateTask<ResultType> upper = new AggregateTask<>(aggregator, subtrees, middle, to, entriesPerTask);
+            upper.fork();
+            ResultType lower = new AggregateTask<>(aggregator, subtrees, from, middle, entriesPerTask).compute();
+            return aggregator.combine(lower, upper.join());
+        }
     }
 
     private class MapIterator implements Iterator<DataType>
@@ -190,5 +1315,11 @@ public class HashTreeKdMap<DataType> implements KdMap<DataType>
             current++;
             return index.get(current - 1).getData();
         }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException(); // use HashTreeKdMap.remove(KdPoint) instead
+        }
     }
 }
@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+/**
+ * Primitive {@code int}-keyed table used for the children of tree nodes. Small tables are kept as a sorted array and
+ * searched binary; once the fanout exceeds {@link #SORTED_LIMIT}, the table switches to an open-addressing layout with
+ * linear probing. Neither {@link #get(int)} nor {@link #put(int, Object)} box the key, lookups never allocate. Values
+ * must not be null, an empty slot is identified by a null value. Removing entries shrinks the table again, down to the
+ * sorted layout.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+class IntKeyTable<ValueType>
+{
+    /**
+     * Maximum number of entries kept in sorted layout, must be a power of two.
+     */
+    static final int SORTED_LIMIT = 8;
+    private static final int INITIAL_CAPACITY = 2;
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private boolean hashed;
+
+    /**
+     * Receives entries of the table.
+     */
+    interface Visitor<ValueType>
+    {
+        /**
+         * @return True to continue, false to stop visiting.
+         */
+        boolean visit(int key, ValueType value);
+    }
+
+    IntKeyTable()
+    {
+        keys = new int[INITIAL_CAPACITY];
+        values = new Object[INITIAL_CAPACITY];
+    }
+
+    private static int hash(int key)
+    {
+        int h = key * 0x9E3779B9; // fibonacci hashing spreads sequential coordinates
+        return h ^ (h >>> 16);
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return count of slots allocated, used for estimating the size of the table.
+     */
+    int capacity()
+    {
+        return keys.length;
+    }
+
+    boolean isHashed()
+    {
+        return hashed;
+    }
+
+    /**
+     * @return sum of the slots probed to find each entry of a hashed table, 0 for a sorted table.
+     */
+    long probeLengthSum()
+    {
+        long sum = 0;
+        if (hashed) {
+            int mask = keys.length - 1;
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (values[slot] != null) {
+                    sum += ((slot - hash(keys[slot])) & mask) + 1; // distance from the ideal slot
+                }
+            }
+        }
+        return sum;
+    }
+
+    @SuppressWarnings("unchecked")
+    ValueType get(int key)
+    {
+        if (hashed) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            Object value;
+            while ((value = values[slot]) != null) {
+                if (keys[slot] == key) {
+                    return (ValueType) value;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        } else {
+            int position = search(key);
+            return (position >= 0) ? (ValueType) values[position] : null;
+        }
+    }
+
+    /**
+     * Visits all entries with keys between low and high, both inclusive. Sorted tables are visited in ascending order
+     * from a binary searched start, hashed ones either by probing each key of the range or by scanning all slots,
+     * whichever is cheaper.
+     *
+     * @param low     lowest key to visit.
+     * @param high    highest key to visit.
+     * @param visitor {@link Visitor} receiving the entries.
+     * @return True, if all entries were visited, false if the visitor stopped.
+     */
+    @SuppressWarnings("unchecked")
+    boolean visitRange(int low, int high, Visitor<? super ValueType> visitor)
+    {
+        if (low > high) {
+            return true;
+        }
+        if (!hashed) {
+            int position = search(low);
+            for (position = (position < 0) ? -(position + 1) : position; position < size; position++) {
+                if (keys[position] > high) {
+                    break;
+                }
+                if (!visitor.visit(keys[position], (ValueType) values[position])) {
+                    return false;
+                }
+            }
+        } else if (((long) high - low) < size) {
+            for (long key = low; key <= high; key++) {
+                ValueType value = get((int) key);
+                if ((value != null) && !visitor.visit((int) key, value)) {
+                    return false;
+                }
+            }
+        } else {
+            for (int slot = 0; slot < keys.length; slot++) {
+                int key = keys[slot];
+                if ((values[slot] != null) && (key >= low) && (key <= high)) {
+                    if (!visitor.visit(key, (ValueType) values[slot])) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Associates value with key, replacing a former value.
+     *
+     * @param key   primitive key.
+     * @param value value to store, not null.
+     */
+    void put(int key, ValueType value)
+    {
+        if (value == null) {
+            throw new IllegalArgumentException("value must not be null");
+        }
+        if (hashed) {
+            if (insertHashed(keys, values, key, value)) {
+                size++;
+                if ((size << 1) > keys.length) {
+                    rehash(keys.length << 1); // keep load factor <= 0.5, so probe sequences stay short
+                }
+            }
+        } else {
+            int position = search(key);
+            if (position >= 0) {
+                values[position] = value;
+            } else if (size < SORTED_LIMIT) {
+                insertSorted(-(position + 1), key, value);
+            } else {
+                rehash(SORTED_LIMIT << 2); // switch to hashed layout
+                put(key, value);
+            }
+        }
+    }
+
+    /**
+     * Removes the entry of key. Hashed tables close the gap by shifting subsequent entries of the probe sequence back,
+     * so no tombstones are left behind.
+     *
+     * @param key primitive key.
+     * @return the removed value, or null if not found.
+     */
+    @SuppressWarnings("unchecked")
+    ValueType remove(int key)
+    {
+        if (!hashed) {
+            int position = search(key);
+            if (position < 0) {
+                return null;
+            }
+            Object value = values[position];
+            size--;
+            System.arraycopy(keys, position + 1, keys, position, size - position);
+            System.arraycopy(values, position + 1, values, position, size - position);
+            values[size] = null;
+            return (ValueType) value;
+        }
+        int mask = keys.length - 1;
+        int hole = hash(key) & mask;
+        while (keys[hole] != key) {
+            if (values[hole] == null) {
+                return null;
+            }
+            hole = (hole + 1) & mask;
+        }
+        if (values[hole] == null) {
+            return null;
+        }
+        Object value = values[hole];
+        for (int slot = (hole + 1) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+            int ideal = hash(keys[slot]) & mask;
+            if (((slot - ideal) & mask) >= ((slot - hole) & mask)) { // entry may move back into the hole
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+        values[hole] = null;
+        size--;
+        if (size <= (SORTED_LIMIT >> 1)) {
+            toSorted();
+        } else if ((size << 3) < keys.length) {
+            rehash(keys.length >> 1);
+        }
+        return (ValueType) value;
+    }
+
+    private void toSorted()
+    {
+        int[] newKeys = new int[SORTED_LIMIT];
+        Object[] newValues = new Object[SORTED_LIMIT];
+        int count = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (values[slot] != null) {
+                int position = count++;
+                while ((position > 0) && (newKeys[position - 1] > keys[slot])) { // insertion sort, few entries only
+                    newKeys[position] = newKeys[position - 1];
+                    newValues[position] = newValues[position - 1];
+                    position--;
+                }
+                newKeys[position] = keys[slot];
+                newValues[position] = values[slot];
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+        hashed = false;
+    }
+
+    private int search(int key)
+    {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleKey = keys[middle];
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void insertSorted(int position, int key, ValueType value)
+    {
+        if (size == keys.length) {
+            int capacity = Math.min(keys.length << 1, SORTED_LIMIT);
+            int[] newKeys = new int[capacity];
+            Object[] newValues = new Object[capacity];
+            System.arraycopy(keys, 0, newKeys, 0, size);
+            System.arraycopy(values, 0, newValues, 0, size);
+            keys = newKeys;
+            values = newValues;
+        }
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        System.arraycopy(values, position, values, position + 1, size - position);
+        keys[position] = key;
+        values[position] = value;
+        size++;
+    }
+
+    /**
+     * @return true, if a new slot was occupied, false if an existing value was replaced.
+     */
+    private static boolean insertHashed(int[] keys, Object[] values, int key, Object value)
+    {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        return true;
+    }
+
+    private void rehash(int capacity)
+    {
+        int[] newKeys = new int[capacity];
+        Object[] newValues = new Object[capacity];
+        int count = hashed ? keys.length : size;
+        for (int i = 0; i < count; i++) {
+            if (values[i] != null) {
+                insertHashed(newKeys, newValues, keys[i], values[i]);
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+        hashed = true;
+    }
+}
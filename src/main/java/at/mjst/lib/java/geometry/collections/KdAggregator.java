@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+/**
+ * Aggregates the entries of a {@link KdMap} in parallel, the counterpart of a mutable reduction of a parallel stream.
+ * Every task accumulates its part of the entries into a result of its own, results of different tasks are combined
+ * afterwards. Since entries are accumulated into mutable results, no object is needed per entry.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public interface KdAggregator<DataType, ResultType>
+{
+    /**
+     * @return a new, empty result.
+     */
+    ResultType create();
+
+    /**
+     * Adds a single entry to result. The coordinates array is reused, it must neither be modified nor kept beyond this
+     * call.
+     *
+     * @param result      result created by {@link #create()} for the calling task.
+     * @param coordinates coordinates of the entry, one per axis.
+     * @param data        Object of Type {@code DataType} stored for these coordinates.
+     */
+    void accumulate(ResultType result, int[] coordinates, DataType data);
+
+    /**
+     * Combines the results of two tasks, called concurrently for different results.
+     *
+     * @return the combined result, e.g. left after adding right to it.
+     */
+    ResultType combine(ResultType left, ResultType right);
+}
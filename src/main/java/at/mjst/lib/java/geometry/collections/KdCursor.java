@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+/**
+ * Steps through entries of a {@link KdMap} in a defined order, giving access to the coordinates and the item of the
+ * current entry. A new cursor is positioned before its first entry.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public interface KdCursor<DataType>
+{
+    /**
+     * Moves to the next entry.
+     *
+     * @return True, if there is a next entry, false if the cursor passed the last one.
+     */
+    boolean next();
+
+    /**
+     * @return coordinates of the current entry, one per axis. The array is reused, it must not be modified.
+     */
+    int[] getCoordinates();
+
+    /**
+     * @return Object of Type {@code DataType} of the current entry.
+     */
+    DataType getData();
+}
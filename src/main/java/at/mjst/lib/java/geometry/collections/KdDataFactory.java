@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * Creates data for a key missing in a {@link KdMap}, see {@link KdMap#computeIfAbsent(KdPoint, KdDataFactory)}.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public interface KdDataFactory<DataType>
+{
+    /**
+     * @param key {@link KdPoint} the data is created for, must not be modified.
+     * @return Object of Type {@code DataType} to store for key, or null to store nothing.
+     */
+    DataType create(KdPoint key);
+}
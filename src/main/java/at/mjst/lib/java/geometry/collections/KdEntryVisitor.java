@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+/**
+ * Receives the entries of a {@link KdMap} together with their coordinates, e.g. as result of a range query.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public interface KdEntryVisitor<DataType>
+{
+    /**
+     * Called once for every visited entry. The coordinates array is reused for all entries of a single traversal, it
+     * must neither be modified nor kept beyond this call.
+     *
+     * @param coordinates coordinates of the entry, one per axis.
+     * @param data        Object of Type {@code DataType} stored for these coordinates.
+     * @return True to continue, false to stop the traversal.
+     */
+    boolean visit(int[] coordinates, DataType data);
+}
@@ -4,7 +4,10 @@
  */
 package at.mjst.lib.java.geometry.collections;
 
+import java.util.BitSet;
+
 import at.mjst.lib.java.geometry.entities.KdPoint;
+import at.mjst.lib.java.geometry.entities.KdPointArray;
 
 /**
  * Stores objects of type {@code DataType} identified by {@link KdPoint}.
@@ -22,6 +25,33 @@ public interface KdMap<DataType> extends Iterable<DataType>
      */
     void add(KdPoint key, DataType data);
 
+    /**
+     * Stores an item within the map, replacing the item formerly stored for the same key.
+     *
+     * @param key  {@link KdPoint} to identify the entry.
+     * @param data Object of Type {@code DataType}.
+     * @return Object formerly stored for key, or null if there was none.
+     */
+    DataType put(KdPoint key, DataType data);
+
+    /**
+     * Removes an item from the map.
+     *
+     * @param key {@link KdPoint} to identify the entry.
+     * @return Object stored for key until now, or null if there was none.
+     */
+    DataType remove(KdPoint key);
+
+    /**
+     * Returns the item identified by key. If there is none, it is created by factory and added, unless the factory
+     * returns null.
+     *
+     * @param key     {@link KdPoint} to identify the entry.
+     * @param factory {@link KdDataFactory} creating the item, if missing.
+     * @return Object stored for key, either formerly or by now.
+     */
+    DataType computeIfAbsent(KdPoint key, KdDataFactory<DataType> factory);
+
     /**
      * Checks, if a specific {@link KdPoint} does exist.
      *
@@ -38,6 +68,119 @@ public interface KdMap<DataType> extends Iterable<DataType>
      */
     DataType get(KdPoint key);
 
+    /**
+     * Checks, if a key given by plain coordinates does exist, without the need to create a {@link KdPoint}.
+     *
+     * @param coordinates Array holding the coordinates of the key.
+     * @param offset      Index of the coordinate of axis 0, followed by those of all other axes.
+     * @return True, if stored in map, false otherwise.
+     */
+    boolean containsKey(int[] coordinates, int offset);
+
+    /**
+     * Returns an object of Type {@code DataType} identified by plain coordinates, without the need to create a
+     * {@link KdPoint}.
+     *
+     * @param coordinates Array holding the coordinates of the key.
+     * @param offset      Index of the coordinate of axis 0, followed by those of all other axes.
+     * @return Object formerly added for the key, or null.
+     */
+    DataType get(int[] coordinates, int offset);
+
+    /**
+     * Adds many items at once, their keys given by plain coordinates. Implementations may resolve leading coordinates
+     * shared by consecutive keys only once, so keys should be ordered, e.g. along scanlines. A key with same offsets
+     * cannot be added twice!
+     *
+     * @param coordinates Array holding the coordinates of all keys, those of all axes of one key after the other.
+     * @param data        Objects of Type {@code DataType}, one per key.
+     */
+    void addAll(int[] coordinates, DataType[] data);
+
+    /**
+     * Checks for many keys at once, which of them exist, see {@link #addAll(int[], Object[])}.
+     *
+     * @param coordinates Array holding the coordinates of all keys, those of all axes of one key after the other.
+     * @return {@link BitSet} holding a set bit for each key stored in map, indexed by the position of the key.
+     */
+    BitSet containsAll(int[] coordinates);
+
+    /**
+     * Returns the objects of many keys at once, see {@link #addAll(int[], Object[])}.
+     *
+     * @param coordinates Array holding the coordinates of all keys, those of all axes of one key after the other.
+     * @param results     Array receiving the object of each key, or null if missing.
+     */
+    void getAll(int[] coordinates, DataType[] results);
+
+    /**
+     * Adds many items at once, see {@link #addAll(int[], Object[])}. The array backing points is passed without
+     * copying.
+     *
+     * @param points {@link KdPointArray} holding the keys.
+     * @param data   Objects of Type {@code DataType}, one per key.
+     */
+    void addAll(KdPointArray points, DataType[] data);
+
+    /**
+     * Checks for many keys at once, which of them exist, see {@link #containsAll(int[])}. The array backing points is
+     * passed without copying.
+     *
+     * @param points {@link KdPointArray} holding the keys.
+     * @return {@link BitSet} holding a set bit for each key stored in map, indexed by the position of the key.
+     */
+    BitSet containsAll(KdPointArray points);
+
+    /**
+     * Returns the objects of many keys at once, see {@link #getAll(int[], Object[])}. The array backing points is
+     * passed without copying.
+     *
+     * @param points  {@link KdPointArray} holding the keys.
+     * @param results Array receiving the object of each key, or null if missing.
+     */
+    void getAll(KdPointArray points, DataType[] results);
+
+    /**
+     * Visits all entries within the axis-aligned box between min and max, both inclusive on every axis. The order of
+     * the visited entries is not defined.
+     *
+     * @param min     lower corner of the box.
+     * @param max     upper corner of the box.
+     * @param visitor {@link KdEntryVisitor} receiving every entry within the box.
+     * @return True, if all entries were visited, false if the visitor stopped the query.
+     */
+    boolean query(KdPoint min, KdPoint max, KdEntryVisitor<DataType> visitor);
+
+    /**
+     * Counts the entries within the axis-aligned box between min and max, both inclusive on every axis.
+     *
+     * @param min lower corner of the box.
+     * @param max upper corner of the box.
+     * @return count of entries within the box.
+     */
+    int count(KdPoint min, KdPoint max);
+
+    /**
+     * @param min lower corner of the box.
+     * @param max upper corner of the box.
+     * @return True, if there is no entry within the axis-aligned box between min and max.
+     */
+    boolean isEmpty(KdPoint min, KdPoint max);
+
+    /**
+     * Visits all entries together with their coordinates, without creating a {@link KdPoint} per entry. The order of
+     * the visited entries is not defined.
+     *
+     * @param visitor {@link KdEntryVisitor} receiving every entry.
+     * @return True, if all entries were visited, false if the visitor stopped the traversal.
+     */
+    boolean forEach(KdEntryVisitor<DataType> visitor);
+
+    /**
+     * @return count of axes, every key of this map must have.
+     */
+    int getDimensionCount();
+
     /**
      * @return current count of entries within this map.
      */
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts the operations of a {@link KdMap} while attached to it, e.g. by {@link HashTreeKdMap#setCounters}. Maps do
+ * not count anything without counters attached. Counting is safe for concurrent readers, as the counters are striped
+ * over cache lines; the same counters may be attached to several maps to sum up their operations.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class KdMapCounters implements KdMapCountersMXBean
+{
+    private final StripedCounter hits = new StripedCounter();
+    private final StripedCounter misses = new StripedCounter();
+    private final StripedCounter nodeCreations = new StripedCounter();
+
+    /**
+     * Registers these counters with the platform MBean server.
+     *
+     * @param name object name, e.g. "at.mjst.geometry:type=KdMapCounters,name=terrain".
+     * @throws JMException if the name is malformed or already registered.
+     */
+    public void register(String name) throws JMException
+    {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(name));
+    }
+
+    void lookup(boolean hit)
+    {
+        (hit ? hits : misses).increment();
+    }
+
+    void nodeCreated()
+    {
+        nodeCreations.increment();
+    }
+
+    @Override
+    public long getHitCount()
+    {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount()
+    {
+        return misses.sum();
+    }
+
+    @Override
+    public long getNodeCreationCount()
+    {
+        return nodeCreations.sum();
+    }
+
+    @Override
+    public void reset()
+    {
+        hits.reset();
+        misses.reset();
+        nodeCreations.reset();
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+/**
+ * Management interface of {@link KdMapCounters}, exposing the counters as attributes via JMX.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public interface KdMapCountersMXBean
+{
+    /**
+     * @return count of lookups having found an entry.
+     */
+    long getHitCount();
+
+    /**
+     * @return count of lookups not having found an entry.
+     */
+    long getMissCount();
+
+    /**
+     * @return count of nodes created.
+     */
+    long getNodeCreationCount();
+
+    /**
+     * Sets all counters back to 0.
+     */
+    void reset();
+}
@@ -0,0 +1,476 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import at.mjst.lib.java.geometry.defines.ExceptionText;
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * Streams entries from binary or CSV files into a {@link KdMap} by two pipelined stages. The calling thread reads the
+ * channel in large buffers and parses the coordinates straight into primitive batches, no {@link KdPoint} is created.
+ * Each full batch is queued for a second thread inserting it by {@link KdMap#addAll(int[], Object[])}. Only a fixed
+ * count of batches circulates between both stages, so parsing waits whenever insertion falls behind and memory stays
+ * bounded however large the file is.
+ * <p>
+ * Progress is published by counters, which may be read by any thread while loading, e.g. to report throughput. A
+ * loader runs one load at a time, the map must not be accessed by other threads meanwhile. If either stage fails, the
+ * entries of the batches passed before are inserted nevertheless.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class KdMapLoader<DataType>
+{
+    private static final int DEFAULT_BATCH_SIZE = 1 << 12;
+    private static final int DEFAULT_QUEUE_CAPACITY = 4;
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+    private static final int INT_BYTES = Integer.SIZE / Byte.SIZE;
+    private static final Batch END = new Batch(0, 0); // queued after the last batch
+    private final KdMap<DataType> map;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final int bufferSize;
+    private volatile long bytesRead;
+    private volatile long pointsParsed;
+    private volatile long pointsInserted;
+    private volatile long stallCount;
+    private volatile long startNanos;
+    private volatile long endNanos;
+
+    public KdMapLoader(KdMap<DataType> map)
+    {
+        this(map, DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param map           {@link KdMap} to add the entries to.
+     * @param batchSize     count of entries passed to the map at once.
+     * @param queueCapacity count of batches circulating between both stages, at least 2.
+     * @param bufferSize    count of bytes read from the channel at once, the longest record must fit.
+     */
+    public KdMapLoader(KdMap<DataType> map, int batchSize, int queueCapacity, int bufferSize)
+    {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException(ExceptionText.BATCH_SIZE_GREATER_ZERO_REQUIRED);
+        }
+        if (queueCapacity < 2) {
+            throw new IllegalArgumentException(ExceptionText.QUEUE_CAPACITY_TOO_SMALL);
+        }
+        this.map = map;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Loads binary records of fixed size, each made of one {@code int} per axis followed by the value written by codec.
+     *
+     * @param channel channel to read the records from, left open.
+     * @param codec   {@link KdValueCodec} reading the value of each record.
+     * @param order   byte order of the file, {@link ByteOrder#BIG_ENDIAN} if written by a {@code DataOutputStream}.
+     * @return count of entries added.
+     * @throws IllegalArgumentException if the last record is incomplete.
+     */
+    public long loadBinary(ReadableByteChannel channel, KdValueCodec<DataType> codec, ByteOrder order)
+            throws IOException, InterruptedException
+    {
+        return load(channel, new BinaryParser(codec), order);
+    }
+
+    public long loadBinary(Path file, KdValueCodec<DataType> codec, ByteOrder order)
+            throws IOException, InterruptedException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return loadBinary(channel, codec, order);
+        }
+    }
+
+    /**
+     * Loads lines of ASCII text, each made of one decimal coordinate per axis followed by the value parsed by parser,
+     * separated by commas. Blanks around the columns and blank lines are ignored.
+     *
+     * @param channel channel to read the lines from, left open.
+     * @param parser  {@link KdValueParser} parsing the value column of each line.
+     * @return count of entries added.
+     * @throws IllegalArgumentException if a line is malformed.
+     */
+    public long loadCsv(ReadableByteChannel channel, KdValueParser<DataType> parser)
+            throws IOException, InterruptedException
+    {
+        return load(channel, new CsvParser(parser), ByteOrder.BIG_ENDIAN);
+    }
+
+    public long loadCsv(Path file, KdValueParser<DataType> parser) throws IOException, InterruptedException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return loadCsv(channel, parser);
+        }
+    }
+
+    private long load(ReadableByteChannel channel, Parser parser, ByteOrder order)
+            throws IOException, InterruptedException
+    {
+        bytesRead = 0;
+        pointsParsed = 0;
+        pointsInserted = 0;
+        stallCount = 0;
+        endNanos = 0;
+        startNanos = System.nanoTime();
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(bufferSize, parser.minimumBufferSize())).order(order);
+        Inserter inserter = new Inserter();
+        Thread thread = new Thread(inserter, "KdMapLoader");
+        thread.setDaemon(true);
+        thread.start();
+        try {
+            Batch batch = inserter.acquire();
+            boolean endOfStream = false;
+            while (!endOfStream) {
+                int read = channel.read(buffer);
+                endOfStream = (read < 0);
+                if (read > 0) {
+                    bytesRead += read;
+                }
+                buffer.flip();
+                while (parser.parse(buffer, batch, endOfStream)) {
+                    if (batch.count == batchSize) {
+                        inserter.dispatch(batch);
+                        batch = inserter.acquire();
+                    }
+                }
+                if (endOfStream && buffer.hasRemaining()) {
+                    throw new IllegalArgumentException(String.format(ExceptionText.RECORD_INCOMPLETE,
+                            buffer.remaining()));
+                }
+                buffer.compact();
+                if (!buffer.hasRemaining()) {
+                    throw new IllegalArgumentException(String.format(ExceptionText.RECORD_TOO_LONG,
+                            buffer.capacity()));
+                }
+            }
+            if (batch.count > 0) {
+                inserter.dispatch(batch);
+            }
+        } finally {
+            inserter.finish();
+            thread.join();
+            endNanos = System.nanoTime();
+        }
+        inserter.rethrow();
+        return pointsInserted;
+    }
+
+    /**
+     * @return count of bytes read by the current or the last load.
+     */
+    public long getBytesRead()
+    {
+        return bytesRead;
+    }
+
+    /**
+     * @return count of entries parsed by the current or the last load, including those not yet inserted.
+     */
+    public long getPointsParsed()
+    {
+        return pointsParsed;
+    }
+
+    /**
+     * @return count of entries added to the map by the current or the last load.
+     */
+    public long getPointsInserted()
+    {
+        return pointsInserted;
+    }
+
+    /**
+     * @return count of times parsing waited for insertion to return a batch. Many stalls mean the map, not reading, is
+     * limiting the load.
+     */
+    public long getStallCount()
+    {
+        return stallCount;
+    }
+
+    /**
+     * @return entries added per second by the current or the last load, 0 before the first load.
+     */
+    public double getPointsPerSecond()
+    {
+        long start = startNanos;
+        long end = (endNanos != 0) ? endNanos : System.nanoTime();
+        return ((start != 0) && (end > start)) ? pointsInserted * 1e9 / (end - start) : 0;
+    }
+
+    /**
+     * Coordinates and values of up to batchSize entries, the coordinates of all axes of one entry after the other.
+     */
+    private static class Batch
+    {
+        private final int[] coordinates;
+        private final Object[] data;
+        private int count;
+
+        Batch(int size, int dimensionCount)
+        {
+            coordinates = new int[size * dimensionCount];
+            data = new Object[size];
+        }
+    }
+
+    /**
+     * Second stage, inserting the batches queued by the calling thread and returning them for reuse.
+     */
+    private class Inserter implements Runnable
+    {
+        private final BlockingQueue<Batch> free = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<Batch> filled = new ArrayBlockingQueue<>(queueCapacity + 1); // room for END
+        private volatile Throwable failure;
+
+        Inserter()
+        {
+            for (int i = 0; i < queueCapacity; i++) {
+                free.add(new Batch(batchSize, map.getDimensionCount()));
+            }
+        }
+
+        /**
+         * @return an empty batch, waiting for one if all are queued or being inserted.
+         */
+        Batch acquire() throws InterruptedException
+        {
+            Batch batch = free.poll();
+            if (batch == null) {
+                stallCount++;
+                batch = free.take();
+            }
+            rethrow(); // stop parsing as soon as insertion failed
+            return batch;
+        }
+
+        void dispatch(Batch batch) throws InterruptedException
+        {
+            pointsParsed += batch.count;
+            filled.put(batch); // never blocks, there are no more batches than room
+        }
+
+        void finish() throws InterruptedException
+        {
+            filled.put(END);
+        }
+
+        void rethrow()
+        {
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new RuntimeException(failure);
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            try {
+                for (Batch batch = filled.take(); batch != END; batch = filled.take()) {
+                    if (failure == null) { // once failed, batches are only returned to let parsing go on
+                        try {
+                            insert(batch);
+                        } catch (RuntimeException | Error e) {
+                            failure = e;
+                        }
+                    }
+                    batch.count = 0;
+                    free.add(batch);
+                }
+            } catch (InterruptedException e) {
+                failure = e;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void insert(Batch batch)
+        {
+            if (batch.count == batchSize) {
+                map.addAll(batch.coordinates, (DataType[]) batch.data);
+            } else {
+                map.addAll(Arrays.copyOf(batch.coordinates, batch.count * map.getDimensionCount()),
+                        (DataType[]) Arrays.copyOf(batch.data, batch.count));
+            }
+            pointsInserted += batch.count;
+        }
+    }
+
+    /**
+     * First stage, parsing records from the bytes read.
+     */
+    private abstract class Parser
+    {
+        /**
+         * @return count of bytes the buffer must be able to hold.
+         */
+        int minimumBufferSize()
+        {
+            return 1;
+        }
+
+        /**
+         * Parses the next record from the position of buffer on, appending it to batch and moving the position of
+         * buffer past the record.
+         *
+         * @param buffer      buffer holding the bytes read, ready to get from.
+         * @param batch       {@link Batch} to append to, not full.
+         * @param endOfStream True, if no more bytes follow those within buffer.
+         * @return True, if a record was parsed, false if buffer does not hold a complete record.
+         */
+        abstract boolean parse(ByteBuffer buffer, Batch batch, boolean endOfStream);
+    }
+
+    private class BinaryParser extends Parser
+    {
+        private final KdValueCodec<DataType> codec;
+        private final int recordSize;
+
+        BinaryParser(KdValueCodec<DataType> codec)
+        {
+            this.codec = codec;
+            recordSize = map.getDimensionCount() * INT_BYTES + codec.getByteCount();
+        }
+
+        @Override
+        int minimumBufferSize()
+        {
+            return recordSize;
+        }
+
+        @Override
+        boolean parse(ByteBuffer buffer, Batch batch, boolean endOfStream)
+        {
+            if (buffer.remaining() < recordSize) {
+                return false;
+            }
+            int dimensionCount = map.getDimensionCount();
+            int position = buffer.position();
+            int offset = batch.count * dimensionCount;
+            for (int axis = 0; axis < dimensionCount; axis++) {
+                batch.coordinates[offset + axis] = buffer.getInt(position + axis * INT_BYTES);
+            }
+            batch.data[batch.count++] = codec.read(buffer, position + dimensionCount * INT_BYTES);
+            buffer.position(position + recordSize);
+            return true;
+        }
+    }
+
+    private class CsvParser extends Parser
+    {
+        private final KdValueParser<DataType> parser;
+        private int line; // count of lines parsed, for messages
+
+        CsvParser(KdValueParser<DataType> parser)
+        {
+            this.parser = parser;
+        }
+
+        @Override
+        boolean parse(ByteBuffer buffer, Batch batch, boolean endOfStream)
+        {
+            byte[] bytes = buffer.array();
+            int limit = buffer.limit();
+            while (buffer.position() < limit) {
+                int from = buffer.position();
+                int end = from;
+                while ((end < limit) && (bytes[end] != '\n')) {
+                    end++;
+                }
+                if ((end == limit) && !endOfStream) {
+                    return false; // the rest of the line is not read yet
+                }
+                buffer.position(Math.min(end + 1, limit));
+                line++;
+                int to = trimEnd(bytes, from, end);
+                from = skipBlanks(bytes, from, to);
+                if (from < to) {
+                    parseLine(bytes, from, to, batch);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void parseLine(byte[] bytes, int from, int to, Batch batch)
+        {
+            int dimensionCount = map.getDimensionCount();
+            int offset = batch.count * dimensionCount;
+            int position = from;
+            for (int axis = 0; axis < dimensionCount; axis++) {
+                boolean negative = (position < to) && (bytes[position] == '-');
+                if (negative || ((position < to) && (bytes[position] == '+'))) {
+                    position++;
+                }
+                int digits = position;
+                long value = 0;
+                while ((position < to) && (bytes[position] >= '0') && (bytes[position] <= '9')) {
+                    value = value * 10 + (bytes[position++] - '0');
+                    if (value > (1L << 31)) {
+                        throw malformed();
+                    }
+                }
+                value = negative ? -value : value;
+                if ((position == digits) || (value > Integer.MAX_VALUE)) {
+                    throw malformed();
+                }
+                batch.coordinates[offset + axis] = (int) value;
+                position = skipBlanks(bytes, position, to);
+                if ((position == to) || (bytes[position] != ',')) {
+                    throw malformed();
+                }
+                position = skipBlanks(bytes, position + 1, to);
+            }
+            try {
+                batch.data[batch.count] = parser.parse(bytes, position, to);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format(ExceptionText.RECORD_MALFORMED, line), e);
+            }
+            batch.count++;
+        }
+
+        private IllegalArgumentException malformed()
+        {
+            return new IllegalArgumentException(String.format(ExceptionText.RECORD_MALFORMED, line));
+        }
+
+        private int skipBlanks(byte[] bytes, int from, int to)
+        {
+            while ((from < to) && ((bytes[from] == ' ') || (bytes[from] == '\t'))) {
+                from++;
+            }
+            return from;
+        }
+
+        /**
+         * @return index after the last byte before to, which is neither blank nor carriage return.
+         */
+        private int trimEnd(byte[] bytes, int from, int to)
+        {
+            while ((to > from) && ((bytes[to - 1] == ' ') || (bytes[to - 1] == '\t') || (bytes[to - 1] == '\r'))) {
+                to--;
+            }
+            return to;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import java.util.Arrays;
+
+/**
+ * Describes the structure of a tree-based {@link KdMap} at the time it was collected, e.g. by
+ * {@link HashTreeKdMap#getStatistics()}. Level 0 holds the children of the root, the last level the nodes holding the
+ * entries. The figures help spotting degenerate key distributions, like a level of huge fanout followed by levels of
+ * tiny tables, without taking a heap dump.
+ * <p>
+ * The retained size is estimated for a 64 bit JVM with compressed references: 12 bytes of object header, 4 bytes per
+ * reference, everything aligned to 8 bytes. Objects of type {@code DataType} are not included.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class KdMapStatistics
+{
+    static final int OBJECT_HEADER_BYTES = 12;
+    static final int REFERENCE_BYTES = 4;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private final long[] nodeCounts;
+    private final long[] fanoutHistogram = new long[Integer.SIZE];
+    private long leafCount;
+    private int depth;
+    private long hashedTableCount;
+    private long hashedEntryCount;
+    private long probeLengthSum;
+    private long estimatedBytes;
+
+    KdMapStatistics(int levelCount)
+    {
+        nodeCounts = new long[levelCount];
+    }
+
+    /**
+     * @return bytes of an object with the given bytes of fields, including header and alignment.
+     */
+    static long objectBytes(int fieldBytes)
+    {
+        return align(OBJECT_HEADER_BYTES + fieldBytes);
+    }
+
+    /**
+     * @return bytes of an array of length elements, including header and alignment.
+     */
+    static long arrayBytes(int length, int elementBytes)
+    {
+        return align(ARRAY_HEADER_BYTES + (long) length * elementBytes);
+    }
+
+    private static long align(long bytes)
+    {
+        return (bytes + 7) & ~7L;
+    }
+
+    void addNode(int level, boolean hasLeaf)
+    {
+        nodeCounts[level]++;
+        depth = Math.max(depth, level + 1);
+        if (hasLeaf) {
+            leafCount++;
+        }
+    }
+
+    void addTable(int fanout, boolean hashed, long probeLengthSum)
+    {
+        fanoutHistogram[31 - Integer.numberOfLeadingZeros(fanout)]++;
+        if (hashed) {
+            hashedTableCount++;
+            hashedEntryCount += fanout;
+            this.probeLengthSum += probeLengthSum;
+        }
+    }
+
+    void addBytes(long bytes)
+    {
+        estimatedBytes += bytes;
+    }
+
+    /**
+     * @return count of levels, the length of {@link #getNodeCounts()}.
+     */
+    public int getLevelCount()
+    {
+        return nodeCounts.length;
+    }
+
+    /**
+     * @return count of nodes per level, the root not included.
+     */
+    public long[] getNodeCounts()
+    {
+        return nodeCounts.clone();
+    }
+
+    /**
+     * @return count of all nodes, the root not included.
+     */
+    public long getNodeCount()
+    {
+        long count = 0;
+        for (long nodeCount : nodeCounts) {
+            count += nodeCount;
+        }
+        return count;
+    }
+
+    /**
+     * @return average count of children of the nodes on the level above, 0 if there is no node above.
+     */
+    public double getMeanFanout(int level)
+    {
+        long parents = (level == 0) ? 1 : nodeCounts[level - 1];
+        return (parents > 0) ? (double) nodeCounts[level] / parents : 0;
+    }
+
+    /**
+     * Histogram of the count of children over all nodes having any, in buckets of powers of two: bucket b counts the
+     * nodes of 2^b to 2^(b+1)-1 children.
+     *
+     * @return counts of nodes per bucket, trailing empty buckets removed.
+     */
+    public long[] getFanoutHistogram()
+    {
+        int length = fanoutHistogram.length;
+        while ((length > 0) && (fanoutHistogram[length - 1] == 0)) {
+            length--;
+        }
+        return Arrays.copyOf(fanoutHistogram, length);
+    }
+
+    /**
+     * @return count of nodes holding an entry.
+     */
+    public long getLeafCount()
+    {
+        return leafCount;
+    }
+
+    /**
+     * @return count of levels below the root holding any node, 0 for an empty map.
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * @return count of child tables having switched to the hashed layout.
+     */
+    public long getHashedTableCount()
+    {
+        return hashedTableCount;
+    }
+
+    /**
+     * @return average count of slots probed to find an entry of a hashed table, 0 if there is none. Values well above
+     * 1.5 hint at clustered keys.
+     */
+    public double getMeanProbeLength()
+    {
+        return (hashedEntryCount > 0) ? (double) probeLengthSum / hashedEntryCount : 0;
+    }
+
+    /**
+     * @return estimated bytes retained by the structure of the map, the stored objects not included.
+     */
+    public long getEstimatedBytes()
+    {
+        return estimatedBytes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "nodes per level " + Arrays.toString(nodeCounts) + ", leaves " + leafCount + ", depth " + depth +
+                ", fanout histogram " + Arrays.toString(getFanoutHistogram()) + ", hashed tables " + hashedTableCount +
+                ", mean probe length " + getMeanProbeLength() + ", estimated bytes " + estimatedBytes;
+    }
+}
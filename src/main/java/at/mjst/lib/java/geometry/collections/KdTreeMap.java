@@ -0,0 +1,1005 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import at.mjst.lib.java.geometry.defines.DistanceMetric;
+import at.mjst.lib.java.geometry.defines.ExceptionText;
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * Stores objects of type {@code DataType} identified by {@link KdPoint} within a k-d tree. Every node splits space at
+ * its own coordinate of a single axis, keys with a lower coordinate are stored in the lower subtree, all others in the
+ * upper one. Besides exact lookups, the tree supports spatial searches pruning whole subtrees: box queries, nearest
+ * neighbours and radius searches, see {@link NeighbourSearch}.
+ * <p>
+ * Nodes are kept in parallel primitive arrays instead of node objects, all traversals are iterative. The tree is not
+ * rebalanced on {@link #add(KdPoint, Object)}, keys added in sorted order therefore degrade it towards a list. To fill
+ * large trees, bulk load all entries at once by {@link #KdTreeMap(int[][], Object[])}, which builds a balanced tree in
+ * O(n log n) using all cores, or call {@link #rebalance()} after adding them one by one.
+ * <p>
+ * Removed entries leave their node in place to keep routing searches, until more than half of the nodes are removed
+ * ones: then the tree is rebuilt from the remaining entries.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class KdTreeMap<DataType> extends AbstractKdMap<DataType>
+{
+    private static final int NONE = -1;
+    private static final Object REMOVED = new Object(); // data of nodes, whose entry was removed
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int SEQUENTIAL_THRESHOLD = 8192; // subtrees below this size are built by a single task
+    private static final int SMALL_SUBTREE = 64; // subtrees below this size cycle their split axes
+    private int[] coordinates; // getDimensionCount() coordinates per node
+    private Object[] values;
+    private int[] splitAxes;
+    private int[] lowerChildren;
+    private int[] upperChildren;
+    private int root;
+    private int nodeCount; // nodes in use, including the ones of removed entries
+    private int size;
+
+    public KdTreeMap(int dimensionCount)
+    {
+        super(dimensionCount);
+        clear();
+    }
+
+    /**
+     * Bulk loads a balanced tree, splitting at the median of the axis with the widest spread on every level. The
+     * subtrees are built in parallel by a temporary {@link ForkJoinPool}.
+     *
+     * @param axisCoordinates one array of coordinates per axis, all of the same length.
+     * @param data            Objects of Type {@code DataType}, data[i] is stored for the i-th coordinate of every axis.
+     */
+    public KdTreeMap(int[][] axisCoordinates, DataType[] data)
+    {
+        this(axisCoordinates.length);
+        if (data.length <= SEQUENTIAL_THRESHOLD) { // not worth starting threads
+            bulkLoad(axisCoordinates, data, null);
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            bulkLoad(axisCoordinates, data, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Bulk loads a balanced tree, see {@link #KdTreeMap(int[][], Object[])}.
+     *
+     * @param axisCoordinates one array of coordinates per axis, all of the same length.
+     * @param data            Objects of Type {@code DataType}, data[i] is stored for the i-th coordinate of every axis.
+     * @param pool            {@link ForkJoinPool} to build the subtrees in, or null to build within the calling thread.
+     */
+    public KdTreeMap(int[][] axisCoordinates, DataType[] data, ForkJoinPool pool)
+    {
+        this(axisCoordinates.length);
+        bulkLoad(axisCoordinates, data, pool);
+    }
+
+    private void bulkLoad(int[][] axisCoordinates, Object[] data, ForkJoinPool pool)
+    {
+        for (int[] axisCoordinate : axisCoordinates) {
+            if (axisCoordinate.length != data.length) {
+                throw new IllegalArgumentException("coordinate and data arrays must be of same length");
+            }
+        }
+        clear();
+        ensureCapacity(data.length);
+        try {
+            if (pool == null) {
+                new Builder(axisCoordinates, data).build(0, data.length, NONE, false);
+                nodeCount = data.length;
+                verifyUnique(0, nodeCount);
+            } else {
+                pool.invoke(new BuildTask(new Builder(axisCoordinates, data), 0, data.length, NONE, false));
+                nodeCount = data.length;
+                pool.invoke(new VerifyTask(0, nodeCount));
+            }
+            size = data.length;
+        } catch (RuntimeException e) {
+            clear(); // do not leave a tree holding duplicate keys
+            throw e;
+        }
+    }
+
+    /**
+     * Rebuilds this tree balanced, e.g. after adding keys in sorted order, dropping the nodes of removed entries. Like
+     * {@link #KdTreeMap(int[][], Object[])}, large trees are rebuilt in parallel by a temporary {@link ForkJoinPool}.
+     */
+    public void rebalance()
+    {
+        if (size <= SEQUENTIAL_THRESHOLD) { // not worth starting threads
+            rebalance(null);
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            rebalance(pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Rebuilds this tree balanced, see {@link #rebalance()}.
+     *
+     * @param pool {@link ForkJoinPool} to build the subtrees in, or null to rebuild within the calling thread.
+     */
+    public void rebalance(ForkJoinPool pool)
+    {
+        int dimensionCount = getDimensionCount();
+        int[][] axisCoordinates = new int[dimensionCount][size];
+        Object[] data = new Object[size];
+        int entry = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            if (values[node] != REMOVED) {
+                for (int axis = 0; axis < dimensionCount; axis++) {
+                    axisCoordinates[axis][entry] = coordinates[node * dimensionCount + axis];
+                }
+                data[entry++] = values[node];
+            }
+        }
+        bulkLoad(axisCoordinates, data, pool);
+    }
+
+    private void ensureCapacity(int capacity)
+    {
+        if (capacity > values.length) {
+            int newCapacity = Math.max(capacity, values.length << 1);
+            coordinates = Arrays.copyOf(coordinates, newCapacity * getDimensionCount());
+            values = Arrays.copyOf(values, newCapacity);
+            splitAxes = Arrays.copyOf(splitAxes, newCapacity);
+            lowerChildren = Arrays.copyOf(lowerChildren, newCapacity);
+            upperChildren = Arrays.copyOf(upperChildren, newCapacity);
+        }
+    }
+
+    private boolean matches(int node, KdPoint key)
+    {
+        int offset = node * getDimensionCount();
+        for (int axis = 0; axis < getDimensionCount(); axis++) {
+            if (coordinates[offset + axis] != key.get(axis)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(int node, int[] key, int offset)
+    {
+        int nodeOffset = node * getDimensionCount();
+        for (int axis = 0; axis < getDimensionCount(); axis++) {
+            if (coordinates[nodeOffset + axis] != key[offset + axis]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int childFor(int node, int coordinate)
+    {
+        int split = coordinates[node * getDimensionCount() + splitAxes[node]];
+        return (coordinate < split) ? lowerChildren[node] : upperChildren[node];
+    }
+
+    /**
+     * @return index of the node storing key, or {@link #NONE}.
+     */
+    private int locateNode(KdPoint key)
+    {
+        validateKey(key);
+        int node = root;
+        while ((node != NONE) && !matches(node, key)) {
+            node = childFor(node, key.get(splitAxes[node]));
+        }
+        return node;
+    }
+
+    /**
+     * @param start node to start searching at, e.g. {@link #root}.
+     * @return index of the node storing the key held by array from offset on, or {@link #NONE}.
+     */
+    private int locateNode(int[] key, int offset, int start)
+    {
+        int node = start;
+        while ((node != NONE) && !matches(node, key, offset)) {
+            node = childFor(node, key[offset + splitAxes[node]]);
+        }
+        return node;
+    }
+
+    /**
+     * Stores data for key, inserting a new node if there is none for key yet.
+     *
+     * @param replace True to replace the data of an existing entry, false to leave it untouched.
+     * @return data formerly stored for key, or {@link #REMOVED} if there was none.
+     */
+    private Object store(KdPoint key, Object data, boolean replace)
+    {
+        validateKey(key);
+        int dimensionCount = getDimensionCount();
+        int parent = NONE;
+        int node = root;
+        while (node != NONE) { // an equal key takes the same path, so it would be found on the way down
+            if (matches(node, key)) {
+                Object formerData = values[node];
+                if (formerData == REMOVED) {
+                    values[node] = data; // revive the node of a removed entry
+                    size++;
+                } else if (replace) {
+                    values[node] = data;
+                }
+                return formerData;
+            }
+            parent = node;
+            node = childFor(node, key.get(splitAxes[node]));
+        }
+        ensureCapacity(nodeCount + 1);
+        node = nodeCount++;
+        size++;
+        for (int axis = 0; axis < dimensionCount; axis++) {
+            coordinates[node * dimensionCount + axis] = key.get(axis);
+        }
+        values[node] = data;
+        lowerChildren[node] = NONE;
+        upperChildren[node] = NONE;
+        if (parent == NONE) {
+            splitAxes[node] = 0;
+            root = node;
+        } else {
+            splitAxes[node] = (splitAxes[parent] + 1) % dimensionCount; // cycle the axes along the path
+            int parentAxis = splitAxes[parent];
+            if (key.get(parentAxis) < coordinates[parent * dimensionCount + parentAxis]) {
+                lowerChildren[parent] = node;
+            } else {
+                upperChildren[parent] = node;
+            }
+        }
+        return REMOVED;
+    }
+
+    @Override
+    public void add(KdPoint key, DataType data)
+    {
+        if (store(key, data, false) != REMOVED) {
+            throw new RuntimeException(ExceptionText.DATA_ALREADY_SET);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public DataType put(KdPoint key, DataType data)
+    {
+        Object formerData = store(key, data, true);
+        return (formerData != REMOVED) ? (DataType) formerData : null;
+    }
+
+    /**
+     * Removes the entry of key, its node is kept for routing. Once more than half of all nodes are left without entry,
+     * the tree is rebuilt within the calling thread, see {@link #rebalance(ForkJoinPool)}.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public DataType remove(KdPoint key)
+    {
+        int node = locateNode(key);
+        if ((node == NONE) || (values[node] == REMOVED)) {
+            return null;
+        }
+        Object formerData = values[node];
+        values[node] = REMOVED;
+        size--;
+        if (((nodeCount - size) > size) && (nodeCount > SMALL_SUBTREE)) {
+            rebalance(null); // never start threads behind the caller's back
+        }
+        return (DataType) formerData;
+    }
+
+    @Override
+    public boolean containsKey(KdPoint key)
+    {
+        int node = locateNode(key);
+        return (node != NONE) && (values[node] != REMOVED);
+    }
+
+    @Override
+    public boolean containsKey(int[] coordinates, int offset)
+    {
+        validateCoordinates(coordinates, offset);
+        int node = locateNode(coordinates, offset, root);
+        return (node != NONE) && (values[node] != REMOVED);
+    }
+
+    @Override
+    public DataType get(KdPoint key)
+    {
+        return dataOf(locateNode(key));
+    }
+
+    @Override
+    public DataType get(int[] coordinates, int offset)
+    {
+        validateCoordinates(coordinates, offset);
+        return dataOf(locateNode(coordinates, offset, root));
+    }
+
+    @SuppressWarnings("unchecked")
+    private DataType dataOf(int node)
+    {
+        return ((node != NONE) && (values[node] != REMOVED)) ? (DataType) values[node] : null;
+    }
+
+    /**
+     * Visits all entries within the box between min and max, subtrees lying completely outside the box on their split
+     * axis are skipped.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean query(KdPoint min, KdPoint max, KdEntryVisitor<DataType> visitor)
+    {
+        int[] low = toCoordinates(min);
+        int[] high = toCoordinates(max);
+        int dimensionCount = getDimensionCount();
+        int[] current = new int[dimensionCount];
+        NodeStack stack = new NodeStack();
+        stack.push(root, 0);
+        while (!stack.isEmpty()) {
+            int node = stack.pop();
+            int offset = node * dimensionCount;
+            int axis = splitAxes[node];
+            int split = coordinates[offset + axis];
+            if (low[axis] < split) {
+                stack.push(lowerChildren[node], 0);
+            }
+            if (high[axis] >= split) {
+                stack.push(upperChildren[node], 0);
+            }
+            boolean inside = true;
+            for (int i = 0; (i < dimensionCount) && inside; i++) {
+                current[i] = coordinates[offset + i];
+                inside = (current[i] >= low[i]) && (current[i] <= high[i]);
+            }
+            if (inside && (values[node] != REMOVED) && !visitor.visit(current, (DataType) values[node])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the k nearest entries to key by squared euclidean distance. For many queries, reuse a
+     * {@link NeighbourSearch} instead, this method allocates a new one for every call.
+     *
+     * @param key {@link KdPoint} to search around.
+     * @param k   maximum count of entries to find.
+     * @return up to k entries, nearest first.
+     */
+    public List<DataType> nearest(KdPoint key, int k)
+    {
+        NeighbourSearch search = newNeighbourSearch(DistanceMetric.SQUARED_EUCLIDEAN);
+        int count = search.nearest(key, k);
+        List<DataType> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(search.getData(i));
+        }
+        return result;
+    }
+
+    /**
+     * Visits all entries within radius around center, in no particular order.
+     *
+     * @param center  {@link KdPoint} to search around.
+     * @param radius  maximum distance in units of the coordinates, see {@link DistanceMetric#fromRadius(long)}.
+     * @param metric  {@link DistanceMetric} to measure distances with.
+     * @param visitor {@link KdEntryVisitor} receiving every entry within radius.
+     * @return True, if all entries were visited, false if the visitor stopped the search.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean withinRadius(KdPoint center, long radius, DistanceMetric metric, KdEntryVisitor<DataType> visitor)
+    {
+        int[] origin = toCoordinates(center);
+        long limit = metric.fromRadius(radius);
+        int dimensionCount = getDimensionCount();
+        int[] current = new int[dimensionCount];
+        NodeStack stack = new NodeStack();
+        stack.push(root, 0);
+        while (!stack.isEmpty()) {
+            int node = stack.pop();
+            int offset = node * dimensionCount;
+            int axis = splitAxes[node];
+            long delta = (long) origin[axis] - coordinates[offset + axis];
+            boolean farReachable = metric.axisDistance(delta) <= limit;
+            if ((delta < 0) || farReachable) {
+                stack.push(lowerChildren[node], 0);
+            }
+            if ((delta >= 0) || farReachable) {
+                stack.push(upperChildren[node], 0);
+            }
+            if ((values[node] != REMOVED)
+                    && (metric.distance(origin, 0, coordinates, offset, dimensionCount) <= limit)) {
+                System.arraycopy(coordinates, offset, current, 0, dimensionCount);
+                if (!visitor.visit(current, (DataType) values[node])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a search for nearest neighbours, whose buffers are reused by all of its queries. A search must not be
+     * used by more than one thread at a time.
+     *
+     * @param metric {@link DistanceMetric} to measure distances with.
+     * @return a new {@link NeighbourSearch}.
+     */
+    public NeighbourSearch newNeighbourSearch(DistanceMetric metric)
+    {
+        return new NeighbourSearch(metric);
+    }
+
+    /**
+     * Walks the node arrays in storage order instead of the tree, which is cheaper than any search.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean forEach(KdEntryVisitor<DataType> visitor)
+    {
+        int dimensionCount = getDimensionCount();
+        int[] current = new int[dimensionCount];
+        for (int node = 0; node < nodeCount; node++) {
+            if (values[node] != REMOVED) {
+                System.arraycopy(coordinates, node * dimensionCount, current, 0, dimensionCount);
+                if (!visitor.visit(current, (DataType) values[node])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getSize()
+    {
+        return size;
+    }
+
+    @Override
+    public void clear()
+    {
+        coordinates = new int[INITIAL_CAPACITY * getDimensionCount()];
+        values = new Object[INITIAL_CAPACITY];
+        splitAxes = new int[INITIAL_CAPACITY];
+        lowerChildren = new int[INITIAL_CAPACITY];
+        upperChildren = new int[INITIAL_CAPACITY];
+        root = NONE;
+        nodeCount = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code DataType}, in insertion order unless bulk loaded or rebalanced.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<DataType> iterator()
+    {
+        return new MapIterator();
+    }
+
+    /**
+     * Bulk load working on the coordinate array of the nodes: the entries are copied into it in source order and then
+     * rearranged in place, so that the position of an entry becomes its node index. Every subtree therefore occupies a
+     * contiguous range of nodes, its root at the median position, and all scans run sequentially through memory. The
+     * data is only tracked by an index permutation and stored once its node is final, since swapping references within
+     * a large array is much more expensive than swapping primitives.
+     */
+    private class Builder
+    {
+        private final int dimensionCount = getDimensionCount();
+        private final Object[] data;
+        private final int[] order;
+
+        Builder(int[][] axisCoordinates, Object[] data)
+        {
+            this.data = data;
+            this.order = new int[data.length];
+            for (int node = 0; node < data.length; node++) {
+                for (int axis = 0; axis < dimensionCount; axis++) {
+                    coordinates[node * dimensionCount + axis] = axisCoordinates[axis][node];
+                }
+                order[node] = node;
+            }
+        }
+
+        private int coordinate(int node, int axis)
+        {
+            return coordinates[node * dimensionCount + axis];
+        }
+
+        /**
+         * Builds the subtree of the range sequentially, descending into the upper half iteratively.
+         */
+        void build(int from, int to, int parent, boolean upper)
+        {
+            while (from < to) {
+                int node = split(from, to, parent, upper);
+                build(from, node, node, false);
+                from = node + 1;
+                parent = node;
+                upper = true;
+            }
+        }
+
+        /**
+         * Selects the median of the range as root of its subtree and links it to its parent. Afterwards, all entries
+         * before the root have a lower coordinate on its split axis, all entries after it an equal or higher one.
+         *
+         * @return index of the new node.
+         */
+        int split(int from, int to, int parent, boolean upper)
+        {
+            int axis;
+            if (((to - from) <= SMALL_SUBTREE) && (parent != NONE)) {
+                axis = (splitAxes[parent] + 1) % dimensionCount; // not worth measuring the spread
+            } else {
+                axis = widestAxis(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            select(axis, from, to, middle);
+            int split = coordinate(middle, axis);
+            int node = from;
+            for (int i = from; i < middle; i++) { // entries equal to the median must move to the upper side
+                if (coordinate(i, axis) < split) {
+                    swap(i, node++);
+                }
+            }
+            swap(middle, node);
+            values[node] = data[order[node]];
+            splitAxes[node] = axis;
+            lowerChildren[node] = NONE;
+            upperChildren[node] = NONE;
+            if (parent == NONE) {
+                root = node;
+            } else if (upper) {
+                upperChildren[parent] = node;
+            } else {
+                lowerChildren[parent] = node;
+            }
+            return node;
+        }
+
+        private int widestAxis(int from, int to)
+        {
+            int[] min = new int[dimensionCount];
+            int[] max = new int[dimensionCount];
+            Arrays.fill(min, Integer.MAX_VALUE);
+            Arrays.fill(max, Integer.MIN_VALUE);
+            for (int offset = from * dimensionCount; offset < to * dimensionCount; offset += dimensionCount) {
+                for (int axis = 0; axis < dimensionCount; axis++) { // single sequential pass over all axes
+                    int coordinate = coordinates[offset + axis];
+                    min[axis] = Math.min(min[axis], coordinate);
+                    max[axis] = Math.max(max[axis], coordinate);
+                }
+            }
+            int widestAxis = 0;
+            for (int axis = 1; axis < dimensionCount; axis++) {
+                if (((long) max[axis] - min[axis]) > ((long) max[widestAxis] - min[widestAxis])) {
+                    widestAxis = axis;
+                }
+            }
+            return widestAxis;
+        }
+
+        /**
+         * Quickselect with three-way partitioning, moves the entry of rank target within the range to position target.
+         */
+        private void select(int axis, int from, int to, int target)
+        {
+            while ((to - from) > 1) {
+                int a = coordinate(from, axis);
+                int b = coordinate((from + to) >>> 1, axis);
+                int c = coordinate(to - 1, axis);
+                int pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c)); // median of three
+                int less = from;
+                int greater = to;
+                int i = from;
+                while (i < greater) {
+                    int coordinate = coordinate(i, axis);
+                    if (coordinate < pivot) {
+                        swap(less++, i++);
+                    } else if (coordinate > pivot) {
+                        swap(i, --greater);
+                    } else {
+                        i++;
+                    }
+                }
+                if (target < less) {
+                    to = less;
+                } else if (target >= greater) {
+                    from = greater;
+                } else {
+                    return; // target lies within the entries equal to the pivot
+                }
+            }
+        }
+
+        private void swap(int i, int j)
+        {
+            if (i == j) {
+                return;
+            }
+            int offsetI = i * dimensionCount;
+            int offsetJ = j * dimensionCount;
+            for (int axis = 0; axis < dimensionCount; axis++) {
+                int temp = coordinates[offsetI + axis];
+                coordinates[offsetI + axis] = coordinates[offsetJ + axis];
+                coordinates[offsetJ + axis] = temp;
+            }
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+    }
+
+    /**
+     * Builds a subtree, forking the subtrees of both halves while they are large enough.
+     */
+    private class BuildTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+        private final Builder builder;
+        private final int from;
+        private final int to;
+        private final int parent;
+        private final boolean upper;
+
+        BuildTask(Builder builder, int from, int to, int parent, boolean upper)
+        {
+            this.builder = builder;
+            this.from = from;
+            this.to = to;
+            this.parent = parent;
+            this.upper = upper;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if ((to - from) <= SEQUENTIAL_THRESHOLD) {
+                builder.build(from, to, parent, upper);
+            } else {
+                int node = builder.split(from, to, parent, upper);
+                invokeAll(new BuildTask(builder, from, node, node, false),
+                        new BuildTask(builder, node + 1, to, node, true));
+            }
+        }
+    }
+
+    /**
+     * Ensures, that the keys of a range of bulk loaded nodes are not stored twice. An equal key always takes the same
+     * path as the node, until it is moved to the node's upper subtree, so only this subtree has to be searched. For a
+     * balanced tree the sum of all these searches is linear.
+     */
+    private void verifyUnique(int from, int to)
+    {
+        for (int node = from; node < to; node++) {
+            if (locateNode(coordinates, node * getDimensionCount(), upperChildren[node]) != NONE) {
+                throw new RuntimeException(ExceptionText.DATA_ALREADY_SET);
+            }
+        }
+    }
+
+    /**
+     * Runs {@link #verifyUnique(int, int)} in parallel.
+     */
+    private class VerifyTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+
+        VerifyTask(int from, int to)
+        {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if ((to - from) <= SEQUENTIAL_THRESHOLD) {
+                verifyUnique(from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new VerifyTask(from, middle), new VerifyTask(middle, to));
+            }
+        }
+    }
+
+    /**
+     * Growing stack of nodes, each paired with a lower bound of the distance of its subtree.
+     */
+    private static class NodeStack
+    {
+        private int[] nodes = new int[64];
+        private long[] bounds = new long[64];
+        private int top;
+        private long poppedBound;
+
+        void push(int node, long bound)
+        {
+            if (node == NONE) {
+                return;
+            }
+            if (top == nodes.length) {
+                nodes = Arrays.copyOf(nodes, top << 1);
+                bounds = Arrays.copyOf(bounds, top << 1);
+            }
+            nodes[top] = node;
+            bounds[top] = bound;
+            top++;
+        }
+
+        int pop()
+        {
+            top--;
+            poppedBound = bounds[top];
+            return nodes[top];
+        }
+
+        /**
+         * @return bound of the node returned by the last call of {@link #pop()}.
+         */
+        long getPoppedBound()
+        {
+            return poppedBound;
+        }
+
+        boolean isEmpty()
+        {
+            return top == 0;
+        }
+
+        void clear()
+        {
+            top = 0;
+        }
+    }
+
+    /**
+     * Branch and bound search for the nearest neighbours of a point. The candidates are collected within a bounded
+     * max-heap, so the current k-th distance prunes every subtree whose split plane lies further away. All buffers are
+     * kept between queries and only grow, repeated queries therefore do not allocate. Results are valid until the next
+     * query of this search, or until the map is modified.
+     */
+    public class NeighbourSearch
+    {
+        private final DistanceMetric metric;
+        private final NodeStack stack = new NodeStack();
+        private final int[] origin;
+        private int[] resultNodes = new int[0];
+        private long[] resultDistances = new long[0];
+        private int resultCount;
+
+        NeighbourSearch(DistanceMetric metric)
+        {
+            this.metric = metric;
+            this.origin = new int[getDimensionCount()];
+        }
+
+        public DistanceMetric getMetric()
+        {
+            return metric;
+        }
+
+        /**
+         * Finds the k nearest entries to key.
+         *
+         * @param key {@link KdPoint} to search around.
+         * @param k   maximum count of entries to find.
+         * @return count of entries found, at most k. Access them by index, nearest first.
+         */
+        public int nearest(KdPoint key, int k)
+        {
+            validateKey(key);
+            if (k <= 0) {
+                throw new IllegalArgumentException("k > 0 required");
+            }
+            int dimensionCount = getDimensionCount();
+            for (int axis = 0; axis < dimensionCount; axis++) {
+                origin[axis] = key.get(axis);
+            }
+            int capacity = Math.min(k, getSize()); // there are no more results than entries
+            if (resultNodes.length < capacity) {
+                resultNodes = new int[capacity];
+                resultDistances = new long[capacity];
+            }
+            resultCount = 0;
+            stack.clear();
+            stack.push(root, 0);
+            while (!stack.isEmpty()) {
+                int node = stack.pop();
+                long bound = stack.getPoppedBound();
+                if ((resultCount == k) && (bound >= resultDistances[0])) {
+                    continue; // subtree cannot contain anything nearer than the current k-th
+                }
+                int offset = node * dimensionCount;
+                if (values[node] != REMOVED) {
+                    offer(node, metric.distance(origin, 0, coordinates, offset, dimensionCount), k);
+                }
+                int axis = splitAxes[node];
+                long delta = (long) origin[axis] - coordinates[offset + axis];
+                long farBound = Math.max(bound, metric.axisDistance(delta));
+                if (delta < 0) { // push the far side first, so the near one is searched first
+                    stack.push(upperChildren[node], farBound);
+                    stack.push(lowerChildren[node], bound);
+                } else {
+                    stack.push(lowerChildren[node], farBound);
+                    stack.push(upperChildren[node], bound);
+                }
+            }
+            sortResults();
+            return resultCount;
+        }
+
+        private void offer(int node, long distance, int k)
+        {
+            if (resultCount < k) {
+                int i = resultCount++;
+                while (i > 0) { // sift up
+                    int parent = (i - 1) >>> 1;
+                    if (resultDistances[parent] >= distance) {
+                        break;
+                    }
+                    resultNodes[i] = resultNodes[parent];
+                    resultDistances[i] = resultDistances[parent];
+                    i = parent;
+                }
+                resultNodes[i] = node;
+                resultDistances[i] = distance;
+            } else if (distance < resultDistances[0]) {
+                siftDown(0, node, distance, resultCount);
+            }
+        }
+
+        private void siftDown(int i, int node, long distance, int count)
+        {
+            while (true) {
+                int child = (i << 1) + 1;
+                if (child >= count) {
+                    break;
+                }
+                if ((child + 1 < count) && (resultDistances[child + 1] > resultDistances[child])) {
+                    child++;
+                }
+                if (resultDistances[child] <= distance) {
+                    break;
+                }
+                resultNodes[i] = resultNodes[child];
+                resultDistances[i] = resultDistances[child];
+                i = child;
+            }
+            resultNodes[i] = node;
+            resultDistances[i] = distance;
+        }
+
+        /**
+         * Heap sort in place, turns the max-heap into ascending order of distance.
+         */
+        private void sortResults()
+        {
+            for (int end = resultCount - 1; end > 0; end--) {
+                int node = resultNodes[end];
+                long distance = resultDistances[end];
+                resultNodes[end] = resultNodes[0];
+                resultDistances[end] = resultDistances[0];
+                siftDown(0, node, distance, end);
+            }
+        }
+
+        /**
+         * @return count of entries found by the last query.
+         */
+        public int getResultCount()
+        {
+            return resultCount;
+        }
+
+        /**
+         * @param index index of the result, 0 is the nearest one.
+         * @return distance of the result, measured by {@link #getMetric()}.
+         */
+        public long getDistance(int index)
+        {
+            validateIndex(index);
+            return resultDistances[index];
+        }
+
+        /**
+         * @param index index of the result, 0 is the nearest one.
+         * @return Object of Type {@code DataType} stored for the result.
+         */
+        @SuppressWarnings("unchecked")
+        public DataType getData(int index)
+        {
+            validateIndex(index);
+            return (DataType) values[resultNodes[index]];
+        }
+
+        /**
+         * Copies the coordinates of a result.
+         *
+         * @param index  index of the result, 0 is the nearest one.
+         * @param target array receiving one coordinate per axis.
+         */
+        public void getCoordinates(int index, int[] target)
+        {
+            validateIndex(index);
+            System.arraycopy(coordinates, resultNodes[index] * getDimensionCount(), target, 0, getDimensionCount());
+        }
+
+        private void validateIndex(int index)
+        {
+            if ((index < 0) || (index >= resultCount)) {
+                throw new IndexOutOfBoundsException(String.format("result %d out of bounds", index));
+            }
+        }
+    }
+
+    private class MapIterator implements Iterator<DataType>
+    {
+        private int current = -1;
+
+        MapIterator()
+        {
+            advance();
+        }
+
+        private void advance()
+        {
+            do {
+                current++;
+            } while ((current < nodeCount) && (values[current] == REMOVED));
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return (current < nodeCount);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public DataType next()
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            DataType data = (DataType) values[current];
+            advance();
+            return data;
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
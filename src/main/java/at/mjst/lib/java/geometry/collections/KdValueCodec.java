@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts objects of type {@code DataType} from and to a fixed count of bytes, e.g. to store them within a
+ * {@link SnapshotKdMap}. Reads and writes use absolute positions, so the position of the buffer is never changed.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public interface KdValueCodec<DataType>
+{
+    /**
+     * Codec of {@code long} values, null is not supported.
+     */
+    KdValueCodec<Long> LONG = new KdValueCodec<Long>()
+    {
+        @Override
+        public int getByteCount()
+        {
+            return 8;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int position, Long value)
+        {
+            buffer.putLong(position, value);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer, int position)
+        {
+            return buffer.getLong(position);
+        }
+    };
+    /**
+     * Codec of {@code int} values, null is not supported.
+     */
+    KdValueCodec<Integer> INTEGER = new KdValueCodec<Integer>()
+    {
+        @Override
+        public int getByteCount()
+        {
+            return 4;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int position, Integer value)
+        {
+            buffer.putInt(position, value);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buffer, int position)
+        {
+            return buffer.getInt(position);
+        }
+    };
+
+    /**
+     * @return count of bytes of every value, the same for all values.
+     */
+    int getByteCount();
+
+    void write(ByteBuffer buffer, int position, DataType value);
+
+    DataType read(ByteBuffer buffer, int position);
+}
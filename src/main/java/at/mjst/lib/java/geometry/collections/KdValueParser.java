@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts a column of text into an object of type {@code DataType}, e.g. the value column of the CSV files read by
+ * {@link KdMapLoader}. The text is passed as a range of bytes of the buffer read into, trimmed of blanks.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public interface KdValueParser<DataType>
+{
+    /**
+     * Parser of decimal {@code long} values.
+     */
+    KdValueParser<Long> LONG = new KdValueParser<Long>()
+    {
+        @Override
+        public Long parse(byte[] text, int from, int to)
+        {
+            return Long.valueOf(new String(text, from, to - from, StandardCharsets.US_ASCII));
+        }
+    };
+    /**
+     * Parser of decimal {@code int} values.
+     */
+    KdValueParser<Integer> INTEGER = new KdValueParser<Integer>()
+    {
+        @Override
+        public Integer parse(byte[] text, int from, int to)
+        {
+            return Integer.valueOf(new String(text, from, to - from, StandardCharsets.US_ASCII));
+        }
+    };
+
+    /**
+     * @param text array holding the text.
+     * @param from index of the first byte of the text.
+     * @param to   index after the last byte of the text.
+     * @return Object of type {@code DataType} to store.
+     * @throws IllegalArgumentException if the text is malformed.
+     */
+    DataType parse(byte[] text, int from, int to);
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import at.mjst.lib.java.geometry.defines.ExceptionText;
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * Encodes the coordinates of a {@link KdPoint} into a single {@code long}, if the range of every axis is bounded. Each
+ * axis is given an origin and a bit width, covering coordinates from {@code origin} to {@code origin + 2^width - 1}.
+ * The bits of all axes are either concatenated (axis 0 in the lowest bits) or interleaved to a Morton/Z-order code, so
+ * that spatially near points get numerically near keys. At most 63 bits can be used, packed keys are never negative.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class KeyPacker
+{
+    /**
+     * Maximum count of bits, all axes together may use.
+     */
+    public static final int MAX_BITS = 63;
+    private final int[] origins;
+    private final int[] bitWidths;
+    private final boolean interleaved;
+    private final int[] shifts; // concatenated layout: lowest bit of each axis
+    private final int[][] bitPositions; // interleaved layout: target bit of each bit of each axis
+
+    /**
+     * Creates a packer for coordinates starting at 0.
+     *
+     * @param bitWidths   count of bits for each axis.
+     * @param interleaved true, for Morton/Z-order interleaving of the bits.
+     */
+    public KeyPacker(int[] bitWidths, boolean interleaved)
+    {
+        this(new int[bitWidths.length], bitWidths, interleaved);
+    }
+
+    /**
+     * @param origins     lowest coordinate for each axis.
+     * @param bitWidths   count of bits for each axis.
+     * @param interleaved true, for Morton/Z-order interleaving of the bits.
+     */
+    public KeyPacker(int[] origins, int[] bitWidths, boolean interleaved)
+    {
+        if (bitWidths.length <= 0) {
+            throw new IllegalArgumentException(ExceptionText.DIMENSION_COUNT_GREATER_ZERO_REQUIRED);
+        }
+        if (origins.length != bitWidths.length) {
+            throw new IllegalArgumentException(String.format(ExceptionText.DIMENSION_COUNT_MISMATCH, bitWidths.length));
+        }
+        int totalBits = 0;
+        int maxWidth = 0;
+        for (int bitWidth : bitWidths) {
+            if ((bitWidth <= 0) || (bitWidth > Integer.SIZE)) {
+                throw new IllegalArgumentException(String.format("bit width %d out of range", bitWidth));
+            }
+            totalBits += bitWidth;
+            maxWidth = Math.max(maxWidth, bitWidth);
+        }
+        if (totalBits > MAX_BITS) {
+            throw new IllegalArgumentException(String.format("%d bits exceed the maximum of %d", totalBits, MAX_BITS));
+        }
+        this.origins = origins.clone();
+        this.bitWidths = bitWidths.clone();
+        this.interleaved = interleaved;
+        int dimensionCount = bitWidths.length;
+        shifts = new int[dimensionCount];
+        bitPositions = new int[dimensionCount][];
+        int shift = 0;
+        for (int axis = 0; axis < dimensionCount; axis++) {
+            shifts[axis] = shift;
+            shift += bitWidths[axis];
+            bitPositions[axis] = new int[bitWidths[axis]];
+        }
+        int position = 0;
+        for (int bit = 0; bit < maxWidth; bit++) { // round-robin over all axes still having bits left
+            for (int axis = 0; axis < dimensionCount; axis++) {
+                if (bit < bitWidths[axis]) {
+                    bitPositions[axis][bit] = position++;
+                }
+            }
+        }
+    }
+
+    public int getDimensionCount()
+    {
+        return bitWidths.length;
+    }
+
+    public int getOrigin(int axis)
+    {
+        return origins[axis];
+    }
+
+    public int getBitWidth(int axis)
+    {
+        return bitWidths[axis];
+    }
+
+    public boolean isInterleaved()
+    {
+        return interleaved;
+    }
+
+    /**
+     * Checks, if a coordinate can be encoded for the given axis.
+     *
+     * @param axis       axis of the coordinate.
+     * @param coordinate value to check.
+     * @return True, if within the range of this axis.
+     */
+    public boolean fits(int axis, int coordinate)
+    {
+        long relative = (long) coordinate - origins[axis];
+        return (relative >= 0) && ((relative >>> bitWidths[axis]) == 0);
+    }
+
+    /**
+     * Checks, if all coordinates of key can be encoded.
+     *
+     * @param key {@link KdPoint} to check, its dimension count must fit.
+     * @return True, if every coordinate is within range.
+     */
+    public boolean fits(KdPoint key)
+    {
+        for (int axis = 0; axis < bitWidths.length; axis++) {
+            if (!fits(axis, key.get(axis))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes the key. Coordinates are expected to {@link #fits(KdPoint) fit}, other bits are silently dropped.
+     *
+     * @param key {@link KdPoint} to encode, its dimension count must fit.
+     * @return packed key, never negative.
+     */
+    public long pack(KdPoint key)
+    {
+        long packed = 0;
+        for (int axis = 0; axis < bitWidths.length; axis++) {
+            packed |= packAxis(axis, key.get(axis));
+        }
+        return packed;
+    }
+
+    /**
+     * Encodes the coordinates stored from offset on. Coordinates are expected to fit.
+     *
+     * @param coordinates array holding {@link #getDimensionCount()} coordinates.
+     * @param offset      index of the coordinate of axis 0.
+     * @return packed key, never negative.
+     */
+    public long pack(int[] coordinates, int offset)
+    {
+        long packed = 0;
+        for (int axis = 0; axis < bitWidths.length; axis++) {
+            packed |= packAxis(axis, coordinates[offset + axis]);
+        }
+        return packed;
+    }
+
+    /**
+     * Encodes a single coordinate, the result may be or-ed with the encodings of the other axes.
+     *
+     * @param axis       axis of the coordinate.
+     * @param coordinate value to encode.
+     * @return bits of this axis within the packed key.
+     */
+    public long packAxis(int axis, int coordinate)
+    {
+        long relative = ((long) coordinate - origins[axis]) & ((1L << bitWidths[axis]) - 1);
+        if (!interleaved) {
+            return relative << shifts[axis];
+        }
+        long packed = 0;
+        int[] positions = bitPositions[axis];
+        for (int bit = 0; relative != 0; bit++, relative >>>= 1) {
+            packed |= (relative & 1L) << positions[bit];
+        }
+        return packed;
+    }
+
+    /**
+     * Decodes a single coordinate.
+     *
+     * @param packed key formerly encoded by this packer.
+     * @param axis   axis to decode.
+     * @return the coordinate.
+     */
+    public int unpack(long packed, int axis)
+    {
+        long relative;
+        if (interleaved) {
+            relative = 0;
+            int[] positions = bitPositions[axis];
+            for (int bit = 0; bit < positions.length; bit++) {
+                relative |= ((packed >>> positions[bit]) & 1L) << bit;
+            }
+        } else {
+            relative = (packed >>> shifts[axis]) & ((1L << bitWidths[axis]) - 1);
+        }
+        return (int) (relative + origins[axis]);
+    }
+
+    /**
+     * Decodes all coordinates into target, starting at offset.
+     *
+     * @param packed      key formerly encoded by this packer.
+     * @param coordinates array receiving {@link #getDimensionCount()} coordinates.
+     * @param offset      index receiving the coordinate of axis 0.
+     */
+    public void unpack(long packed, int[] coordinates, int offset)
+    {
+        for (int axis = 0; axis < bitWidths.length; axis++) {
+            coordinates[offset + axis] = unpack(packed, axis);
+        }
+    }
+}
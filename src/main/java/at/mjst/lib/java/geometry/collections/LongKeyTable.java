@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import java.util.Arrays;
+
+/**
+ * Primitive {@code long}-keyed open-addressing table with linear probing. Keys are stored unboxed in a single array,
+ * {@link #EMPTY} marks free slots and therefore cannot be used as key. Values may be null.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+class LongKeyTable<ValueType>
+{
+    /**
+     * Marker of a free slot.
+     */
+    static final long EMPTY = -1L;
+    private static final int INITIAL_CAPACITY = 16;
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    LongKeyTable()
+    {
+        clear();
+    }
+
+    private static int hash(long key)
+    {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return count of slots, used and free ones, see {@link #keyAt(int)}.
+     */
+    int capacity()
+    {
+        return keys.length;
+    }
+
+    /**
+     * @param slot slot between 0 and {@link #capacity()}.
+     * @return key stored in slot, or {@link #EMPTY}.
+     */
+    long keyAt(int slot)
+    {
+        return keys[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    ValueType valueAt(int slot)
+    {
+        return (ValueType) values[slot];
+    }
+
+    /**
+     * @param key key to look for.
+     * @return slot of key, or -1 if not found.
+     */
+    int find(long key)
+    {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        long current;
+        while ((current = keys[slot]) != EMPTY) {
+            if (current == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    boolean containsKey(long key)
+    {
+        return find(key) >= 0;
+    }
+
+    ValueType get(long key)
+    {
+        int slot = find(key);
+        return (slot >= 0) ? valueAt(slot) : null;
+    }
+
+    /**
+     * Associates value with key, replacing a former value.
+     *
+     * @param key   key, not {@link #EMPTY}.
+     * @param value value to store.
+     * @return true, if the key was added, false if an existing value was replaced.
+     */
+    boolean put(long key, ValueType value)
+    {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("reserved key");
+        }
+        if (insert(keys, values, key, value)) {
+            size++;
+            if ((size << 1) > keys.length) {
+                rehash(keys.length << 1); // keep load factor <= 0.5, so probe sequences stay short
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the value of a used slot.
+     *
+     * @param slot  slot returned by {@link #find(long)}.
+     * @param value new value.
+     */
+    void setValueAt(int slot, ValueType value)
+    {
+        values[slot] = value;
+    }
+
+    /**
+     * Removes the entry of key, closing the gap by shifting subsequent entries of the probe sequence back, so no
+     * tombstones are left behind.
+     *
+     * @param key key to remove.
+     * @return true, if the key was found and removed.
+     */
+    boolean remove(long key)
+    {
+        int hole = find(key);
+        if (hole < 0) {
+            return false;
+        }
+        int mask = keys.length - 1;
+        for (int slot = (hole + 1) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int ideal = hash(keys[slot]) & mask;
+            if (((slot - ideal) & mask) >= ((slot - hole) & mask)) { // entry may move back into the hole
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+        keys[hole] = EMPTY;
+        values[hole] = null;
+        size--;
+        if (((size << 3) < keys.length) && (keys.length > INITIAL_CAPACITY)) {
+            rehash(keys.length >> 1);
+        }
+        return true;
+    }
+
+    void clear()
+    {
+        keys = newKeyArray(INITIAL_CAPACITY);
+        values = new Object[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    private static long[] newKeyArray(int capacity)
+    {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+
+    private static boolean insert(long[] keys, Object[] values, long key, Object value)
+    {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        long current;
+        while ((current = keys[slot]) != EMPTY) {
+            if (current == key) {
+                values[slot] = value;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        return true;
+    }
+
+    private void rehash(int capacity)
+    {
+        long[] newKeys = newKeyArray(capacity);
+        Object[] newValues = new Object[capacity];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                insert(newKeys, newValues, keys[i], values[i]);
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+}
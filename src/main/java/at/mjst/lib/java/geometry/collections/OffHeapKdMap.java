@@ -0,0 +1,482 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import at.mjst.lib.java.geometry.defines.ExceptionText;
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * Stores {@code long} values identified by {@link KdPoint} outside of the Java heap, for data sets too large to be kept
+ * as objects. Keys and values are written as fixed-size records into an open-addressing table with linear probing,
+ * spread over {@link ByteBuffer} segments of at most 1 GB each. The segments are either direct buffers, or regions of
+ * a file mapped into memory, so the table may even exceed the physical memory. The garbage collector only sees the
+ * few segment objects, no matter how many entries are stored.
+ * <p>
+ * The primitive methods {@link #getLong(int[], int, long)}, {@link #putLong(int[], int, long)} and
+ * {@link #containsKey(int[], int)} neither box values nor create any objects. Values cannot be null. Queries scan all
+ * records, since the table keeps no spatial order.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class OffHeapKdMap extends AbstractKdMap<Long>
+{
+    private static final int SEGMENT_BYTES = 1 << 30;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int VALUE = 0; // record layout: value, used-flag, one coordinate per axis
+    private static final int USED = 8;
+    private static final int COORDINATES = 12;
+    private final Allocator allocator;
+    private final int recordSize;
+    private final int segmentShift; // records per segment, as power of two
+    private ByteBuffer[] segments;
+    private int capacity;
+    private int size;
+
+    /**
+     * Creates a map within direct buffers, allocated outside of the Java heap.
+     */
+    public OffHeapKdMap(int dimensionCount)
+    {
+        this(dimensionCount, new DirectAllocator());
+    }
+
+    /**
+     * Creates a map within regions of a file, mapped into memory. The file grows as needed and is not truncated: between
+     * two calls of {@link #clear()} it may grow to about twice the final size of the table, since old and new table
+     * are needed at the same time while growing. The channel must be open for reading and writing and stay open while
+     * the map is used.
+     *
+     * @param channel {@link FileChannel} of the file holding the table.
+     */
+    public OffHeapKdMap(int dimensionCount, FileChannel channel)
+    {
+        this(dimensionCount, new MappedAllocator(channel));
+    }
+
+    private OffHeapKdMap(int dimensionCount, Allocator allocator)
+    {
+        super(dimensionCount);
+        this.allocator = allocator;
+        recordSize = (COORDINATES + dimensionCount * 4 + 7) & ~7; // keeps values aligned
+        segmentShift = Integer.numberOfTrailingZeros(Integer.highestOneBit(SEGMENT_BYTES / recordSize));
+        clear();
+    }
+
+    private int hash(int[] coordinates, int offset)
+    {
+        long h = 0;
+        for (int axis = 0; axis < getDimensionCount(); axis++) {
+            h = (h ^ coordinates[offset + axis]) * 0x9E3779B97F4A7C15L;
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private ByteBuffer segment(ByteBuffer[] segments, int slot)
+    {
+        return segments[slot >>> segmentShift];
+    }
+
+    private int position(int slot)
+    {
+        return (slot & ((1 << segmentShift) - 1)) * recordSize;
+    }
+
+    private boolean isUsed(ByteBuffer[] segments, int slot)
+    {
+        return segment(segments, slot).getInt(position(slot) + USED) != 0;
+    }
+
+    private boolean matches(int slot, int[] coordinates, int offset)
+    {
+        ByteBuffer segment = segment(segments, slot);
+        int position = position(slot) + COORDINATES;
+        for (int axis = 0; axis < getDimensionCount(); axis++) {
+            if (segment.getInt(position + axis * 4) != coordinates[offset + axis]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void readCoordinates(ByteBuffer[] segments, int slot, int[] coordinates)
+    {
+        ByteBuffer segment = segment(segments, slot);
+        int position = position(slot) + COORDINATES;
+        for (int axis = 0; axis < coordinates.length; axis++) {
+            coordinates[axis] = segment.getInt(position + axis * 4);
+        }
+    }
+
+    private long valueAt(int slot)
+    {
+        return segment(segments, slot).getLong(position(slot) + VALUE);
+    }
+
+    /**
+     * @return the slot of the key held by array from offset on, or -1 if not stored.
+     */
+    private int find(int[] coordinates, int offset)
+    {
+        validateCoordinates(coordinates, offset);
+        int mask = capacity - 1;
+        for (int slot = hash(coordinates, offset) & mask; isUsed(segments, slot); slot = (slot + 1) & mask) {
+            if (matches(slot, coordinates, offset)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes a record into the first free slot of its probe sequence, the key must not be stored yet.
+     */
+    private void insert(ByteBuffer[] segments, int capacity, int[] coordinates, int offset, long value)
+    {
+        int mask = capacity - 1;
+        int slot = hash(coordinates, offset) & mask;
+        while (isUsed(segments, slot)) {
+            slot = (slot + 1) & mask;
+        }
+        ByteBuffer segment = segment(segments, slot);
+        int position = position(slot);
+        segment.putLong(position + VALUE, value);
+        segment.putInt(position + USED, 1);
+        for (int axis = 0; axis < getDimensionCount(); axis++) {
+            segment.putInt(position + COORDINATES + axis * 4, coordinates[offset + axis]);
+        }
+    }
+
+    /**
+     * @param absentValue value to return, if the key is not stored.
+     * @return value of the key held by array from offset on, or absentValue.
+     */
+    public long getLong(int[] coordinates, int offset, long absentValue)
+    {
+        int slot = find(coordinates, offset);
+        return (slot >= 0) ? valueAt(slot) : absentValue;
+    }
+
+    /**
+     * Associates value with the key held by array from offset on, replacing a former value.
+     *
+     * @return true, if the key was added, false if an existing value was replaced.
+     */
+    public boolean putLong(int[] coordinates, int offset, long value)
+    {
+        int slot = find(coordinates, offset);
+        if (slot >= 0) {
+            segment(segments, slot).putLong(position(slot) + VALUE, value);
+            return false;
+        }
+        addNew(coordinates, offset, value);
+        return true;
+    }
+
+    private void addNew(int[] coordinates, int offset, long value)
+    {
+        if (((size + 1) << 1) > capacity) {
+            rehash(capacity << 1); // keep load factor <= 0.5, so probe sequences stay short
+        }
+        insert(segments, capacity, coordinates, offset, value);
+        size++;
+    }
+
+    private static long unbox(Long data)
+    {
+        if (data == null) {
+            throw new IllegalArgumentException("value must not be null");
+        }
+        return data;
+    }
+
+    @Override
+    public void add(KdPoint key, Long data)
+    {
+        int[] coordinates = toCoordinates(key);
+        long value = unbox(data);
+        if (find(coordinates, 0) >= 0) {
+            throw new RuntimeException(ExceptionText.DATA_ALREADY_SET);
+        }
+        addNew(coordinates, 0, value);
+    }
+
+    @Override
+    public Long put(KdPoint key, Long data)
+    {
+        int[] coordinates = toCoordinates(key);
+        long value = unbox(data);
+        int slot = find(coordinates, 0);
+        if (slot >= 0) {
+            long formerValue = valueAt(slot);
+            segment(segments, slot).putLong(position(slot) + VALUE, value);
+            return formerValue;
+        }
+        addNew(coordinates, 0, value);
+        return null;
+    }
+
+    /**
+     * Removes the entry of key, closing the gap by shifting subsequent records of the probe sequence back, so no
+     * tombstones are left behind.
+     */
+    @Override
+    public Long remove(KdPoint key)
+    {
+        int[] coordinates = toCoordinates(key);
+        int hole = find(coordinates, 0);
+        if (hole < 0) {
+            return null;
+        }
+        long formerValue = valueAt(hole);
+        int mask = capacity - 1;
+        for (int slot = (hole + 1) & mask; isUsed(segments, slot); slot = (slot + 1) & mask) {
+            readCoordinates(segments, slot, coordinates);
+            int ideal = hash(coordinates, 0) & mask;
+            if (((slot - ideal) & mask) >= ((slot - hole) & mask)) { // record may move back into the hole
+                copyRecord(slot, hole);
+                hole = slot;
+            }
+        }
+        segment(segments, hole).putInt(position(hole) + USED, 0);
+        size--;
+        return formerValue;
+    }
+
+    private void copyRecord(int from, int to)
+    {
+        ByteBuffer source = segment(segments, from);
+        ByteBuffer target = segment(segments, to);
+        int sourcePosition = position(from);
+        int targetPosition = position(to);
+        for (int i = 0; i < recordSize; i += 4) {
+            target.putInt(targetPosition + i, source.getInt(sourcePosition + i));
+        }
+    }
+
+    @Override
+    public boolean containsKey(KdPoint key)
+    {
+        return find(toCoordinates(key), 0) >= 0;
+    }
+
+    @Override
+    public boolean containsKey(int[] coordinates, int offset)
+    {
+        return find(coordinates, offset) >= 0;
+    }
+
+    @Override
+    public Long get(KdPoint key)
+    {
+        return get(toCoordinates(key), 0);
+    }
+
+    @Override
+    public Long get(int[] coordinates, int offset)
+    {
+        int slot = find(coordinates, offset);
+        return (slot >= 0) ? valueAt(slot) : null;
+    }
+
+    /**
+     * Visits all entries within the box between min and max, checking every record of the table.
+     */
+    @Override
+    public boolean query(KdPoint min, KdPoint max, KdEntryVisitor<Long> visitor)
+    {
+        int[] low = toCoordinates(min);
+        int[] high = toCoordinates(max);
+        int[] coordinates = new int[getDimensionCount()];
+        for (int slot = 0; slot < capacity; slot++) {
+            if (isUsed(segments, slot)) {
+                readCoordinates(segments, slot, coordinates);
+                if (contains(low, high, coordinates) && !visitor.visit(coordinates, valueAt(slot))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] low, int[] high, int[] coordinates)
+    {
+        for (int axis = 0; axis < coordinates.length; axis++) {
+            if ((coordinates[axis] < low[axis]) || (coordinates[axis] > high[axis])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Drops all entries. Direct buffers are released by the garbage collector, the regions of a mapped file are reused.
+     */
+    @Override
+    public void clear()
+    {
+        allocator.reset();
+        segments = allocateSegments(INITIAL_CAPACITY);
+        capacity = INITIAL_CAPACITY;
+        size = 0;
+    }
+
+    private ByteBuffer[] allocateSegments(int capacity)
+    {
+        int recordsPerSegment = Math.min(capacity, 1 << segmentShift);
+        ByteBuffer[] newSegments = new ByteBuffer[capacity / recordsPerSegment];
+        for (int i = 0; i < newSegments.length; i++) {
+            newSegments[i] = allocator.allocate(recordsPerSegment * recordSize).order(ByteOrder.nativeOrder());
+        }
+        return newSegments;
+    }
+
+    private void rehash(int newCapacity)
+    {
+        if (newCapacity > MAX_CAPACITY) {
+            throw new RuntimeException("maximum capacity exceeded");
+        }
+        ByteBuffer[] newSegments = allocateSegments(newCapacity);
+        int[] coordinates = new int[getDimensionCount()];
+        for (int slot = 0; slot < capacity; slot++) {
+            if (isUsed(segments, slot)) {
+                readCoordinates(segments, slot, coordinates);
+                insert(newSegments, newCapacity, coordinates, 0, valueAt(slot));
+            }
+        }
+        segments = newSegments;
+        capacity = newCapacity;
+    }
+
+    /**
+     * Returns an iterator over all values, in no particular order.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<Long> iterator()
+    {
+        return new MapIterator();
+    }
+
+    /**
+     * Source of the memory holding the table. Every buffer must be zeroed.
+     */
+    private interface Allocator
+    {
+        ByteBuffer allocate(int bytes);
+
+        /**
+         * Called, when all buffers allocated so far are no longer used.
+         */
+        void reset();
+    }
+
+    private static class DirectAllocator implements Allocator
+    {
+        @Override
+        public ByteBuffer allocate(int bytes)
+        {
+            return ByteBuffer.allocateDirect(bytes); // zeroed by the JVM
+        }
+
+        @Override
+        public void reset()
+        {
+            // nothing to do, unreachable buffers are released by the garbage collector
+        }
+    }
+
+    private static class MappedAllocator implements Allocator
+    {
+        private static final byte[] ZEROS = new byte[8192];
+        private final FileChannel channel;
+        private long position; // end of the regions mapped so far
+
+        MappedAllocator(FileChannel channel)
+        {
+            this.channel = channel;
+        }
+
+        @Override
+        public ByteBuffer allocate(int bytes)
+        {
+            ByteBuffer buffer;
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, bytes);
+            } catch (IOException e) {
+                throw new RuntimeException("mapping the file failed", e);
+            }
+            position += bytes;
+            while (buffer.hasRemaining()) { // the region may hold data of a former table
+                buffer.put(ZEROS, 0, Math.min(ZEROS.length, buffer.remaining()));
+            }
+            buffer.clear();
+            return buffer;
+        }
+
+        @Override
+        public void reset()
+        {
+            position = 0;
+        }
+    }
+
+    private class MapIterator implements Iterator<Long>
+    {
+        private final ByteBuffer[] iteratedSegments = segments;
+        private final int iteratedCapacity = capacity;
+        private int slot = -1;
+
+        MapIterator()
+        {
+            advance();
+        }
+
+        private void advance()
+        {
+            do {
+                slot++;
+            } while ((slot < iteratedCapacity) && !isUsed(iteratedSegments, slot));
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return (slot < iteratedCapacity);
+        }
+
+        @Override
+        public Long next()
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            long value = segment(iteratedSegments, slot).getLong(position(slot) + VALUE);
+            advance();
+            return value;
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import at.mjst.lib.java.geometry.defines.ExceptionText;
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * Stores objects of type {@code DataType} identified by {@link KdPoint}, if the coordinate range of every axis is known.
+ * Each key is encoded into a single {@code long} by a {@link KeyPacker} and stored within one flat open-addressing
+ * table, so every lookup costs exactly one hash probe and no node tree is built. Keys out of the range of the packer
+ * cannot be added, but may be asked for.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class PackedKdMap<DataType> extends AbstractKdMap<DataType>
+{
+    private final KeyPacker packer;
+    private LongKeyTable<DataType> table;
+
+    /**
+     * Creates a map for coordinates from 0 to {@code 2^bitWidth - 1} for each axis, bits concatenated.
+     *
+     * @param bitWidths count of bits for each axis.
+     */
+    public PackedKdMap(int[] bitWidths)
+    {
+        this(new KeyPacker(bitWidths, false));
+    }
+
+    public PackedKdMap(KeyPacker packer)
+    {
+        super(packer.getDimensionCount());
+        this.packer = packer;
+        clear();
+    }
+
+    public KeyPacker getKeyPacker()
+    {
+        return packer;
+    }
+
+    /**
+     * @return the packed key, which must be within the range of the packer.
+     */
+    private long packStorable(KdPoint key)
+    {
+        validateKey(key);
+        for (int axis = 0; axis < getDimensionCount(); axis++) {
+            if (!packer.fits(axis, key.get(axis))) {
+                throw new IllegalArgumentException(String.format(ExceptionText.COORDINATE_OUT_OF_RANGE,
+                        key.get(axis), axis));
+            }
+        }
+        return packer.pack(key);
+    }
+
+    @Override
+    public void add(KdPoint key, DataType data)
+    {
+        long packed = packStorable(key);
+        if (table.containsKey(packed)) {
+            throw new RuntimeException(ExceptionText.DATA_ALREADY_SET);
+        }
+        table.put(packed, data);
+    }
+
+    @Override
+    public DataType put(KdPoint key, DataType data)
+    {
+        long packed = packStorable(key);
+        int slot = table.find(packed);
+        if (slot >= 0) {
+            DataType formerData = table.valueAt(slot);
+            table.setValueAt(slot, data);
+            return formerData;
+        }
+        table.put(packed, data);
+        return null;
+    }
+
+    @Override
+    public DataType remove(KdPoint key)
+    {
+        int slot = locateSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        DataType data = table.valueAt(slot);
+        table.remove(table.keyAt(slot));
+        return data;
+    }
+
+    /**
+     * @return the slot of key within the table, or -1 if not stored or out of range.
+     */
+    private int locateSlot(KdPoint key)
+    {
+        validateKey(key);
+        return packer.fits(key) ? table.find(packer.pack(key)) : -1;
+    }
+
+    /**
+     * @return the slot of the key held by array from offset on, or -1 if not stored or out of range.
+     */
+    private int locateSlot(int[] coordinates, int offset)
+    {
+        validateCoordinates(coordinates, offset);
+        for (int axis = 0; axis < getDimensionCount(); axis++) {
+            if (!packer.fits(axis, coordinates[offset + axis])) {
+                return -1;
+            }
+        }
+        return table.find(packer.pack(coordinates, offset));
+    }
+
+    @Override
+    public boolean containsKey(KdPoint key)
+    {
+        return locateSlot(key) >= 0;
+    }
+
+    @Override
+    public boolean containsKey(int[] coordinates, int offset)
+    {
+        return locateSlot(coordinates, offset) >= 0;
+    }
+
+    @Override
+    public DataType get(KdPoint key)
+    {
+        int slot = locateSlot(key);
+        return (slot >= 0) ? table.valueAt(slot) : null;
+    }
+
+    @Override
+    public DataType get(int[] coordinates, int offset)
+    {
+        int slot = locateSlot(coordinates, offset);
+        return (slot >= 0) ? table.valueAt(slot) : null;
+    }
+
+    /**
+     * Visits all entries within the box between min and max. Depending on which is less, either every cell of the box
+     * (clipped to the range of the packer) is probed, or all entries of the table are checked.
+     */
+    @Override
+    public boolean query(KdPoint min, KdPoint max, KdEntryVisitor<DataType> visitor)
+    {
+        int[] low = toCoordinates(min);
+        int[] high = toCoordinates(max);
+        long volume = 1;
+        for (int axis = 0; axis < low.length; axis++) {
+            long origin = packer.getOrigin(axis);
+            low[axis] = (int) Math.max(low[axis], origin);
+            high[axis] = (int) Math.min(high[axis], origin + (1L << packer.getBitWidth(axis)) - 1);
+            if (low[axis] > high[axis]) {
+                return true; // box does not intersect the range of this map
+            }
+            volume = Math.min(volume * ((long) high[axis] - low[axis] + 1), Integer.MAX_VALUE);
+        }
+        return (volume <= table.size()) ? probeBox(low, high, visitor) : scanTable(low, high, visitor);
+    }
+
+    private boolean probeBox(int[] low, int[] high, KdEntryVisitor<DataType> visitor)
+    {
+        int[] coordinates = low.clone();
+        while (true) {
+            int slot = table.find(packer.pack(coordinates, 0));
+            if ((slot >= 0) && !visitor.visit(coordinates, table.valueAt(slot))) {
+                return false;
+            }
+            int axis = 0; // advance like an odometer, axis 0 fastest
+            while (coordinates[axis] == high[axis]) {
+                coordinates[axis] = low[axis];
+                if (++axis == coordinates.length) {
+                    return true;
+                }
+            }
+            coordinates[axis]++;
+        }
+    }
+
+    private boolean scanTable(int[] low, int[] high, KdEntryVisitor<DataType> visitor)
+    {
+        int[] coordinates = new int[getDimensionCount()];
+        for (int slot = 0; slot < table.capacity(); slot++) {
+            long packed = table.keyAt(slot);
+            if (packed == LongKeyTable.EMPTY) {
+                continue;
+            }
+            packer.unpack(packed, coordinates, 0);
+            if (contains(low, high, coordinates) && !visitor.visit(coordinates, table.valueAt(slot))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] low, int[] high, int[] coordinates)
+    {
+        for (int axis = 0; axis < coordinates.length; axis++) {
+            if ((coordinates[axis] < low[axis]) || (coordinates[axis] > high[axis])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getSize()
+    {
+        return table.size();
+    }
+
+    @Override
+    public void clear()
+    {
+        table = new LongKeyTable<>();
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code DataType}, in no particular order.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<DataType> iterator()
+    {
+        return new MapIterator();
+    }
+
+    private class MapIterator implements Iterator<DataType>
+    {
+        private final LongKeyTable<DataType> iteratedTable = table;
+        private int slot = -1;
+
+        MapIterator()
+        {
+            advance();
+        }
+
+        private void advance()
+        {
+            do {
+                slot++;
+            } while ((slot < iteratedTable.capacity()) && (iteratedTable.keyAt(slot) == LongKeyTable.EMPTY));
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return (slot < iteratedTable.capacity());
+        }
+
+        @Override
+        public DataType next()
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            DataType data = iteratedTable.valueAt(slot);
+            advance();
+            return data;
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,509 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import at.mjst.lib.java.geometry.defines.ExceptionText;
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * {@link KdMap} made of immutable nodes, so that every modification creates a new version of the map sharing all
+ * unchanged nodes with the former one. Like {@link HashTreeKdMap}, each axis is resolved by a table of its own, which
+ * here is a bitmap-compressed hash trie of 32 slots per node: a modification copies only the few trie nodes along the
+ * path of the key, at most 7 per axis.
+ * <p>
+ * A single writer modifies the map, each modification publishes the new version by a single volatile write. Readers
+ * take a point-in-time view by {@link #snapshot()} in constant time and never lock; the snapshot is not affected by
+ * later modifications. Versions no longer referenced by any snapshot are reclaimed by the garbage collector.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class PersistentKdMap<DataType> extends AbstractKdMap<DataType>
+{
+    private static final int BITS = 5; // bits of the hash consumed per trie node
+    private static final int MASK = (1 << BITS) - 1;
+    private static final Version EMPTY = new Version(null, 0);
+    private final boolean readOnly;
+    private volatile Version version;
+
+    public PersistentKdMap(int dimensionCount)
+    {
+        super(dimensionCount);
+        readOnly = false;
+        version = EMPTY;
+    }
+
+    private PersistentKdMap(int dimensionCount, Version version)
+    {
+        super(dimensionCount);
+        readOnly = true;
+        this.version = version;
+    }
+
+    /**
+     * Returns the current version as a read-only map, not affected by any later modification of this map. Takes
+     * constant time, nothing is copied.
+     *
+     * @return a read-only {@link PersistentKdMap}.
+     */
+    public PersistentKdMap<DataType> snapshot()
+    {
+        return readOnly ? this : new PersistentKdMap<DataType>(getDimensionCount(), version);
+    }
+
+    /**
+     * @return true, if this map is a snapshot, which cannot be modified.
+     */
+    public boolean isReadOnly()
+    {
+        return readOnly;
+    }
+
+    private static int hash(int key)
+    {
+        int h = key * 0x9E3779B9; // bijective, so distinct keys never share a hash
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return the entry of key within trie, or null if missing.
+     */
+    private static Entry find(Trie trie, int key)
+    {
+        int hash = hash(key);
+        for (int shift = 0; trie != null; shift += BITS) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((trie.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = trie.slots[Integer.bitCount(trie.bitmap & (bit - 1))];
+            if (slot instanceof Entry) {
+                return (((Entry) slot).key == key) ? (Entry) slot : null;
+            }
+            trie = (Trie) slot;
+        }
+        return null;
+    }
+
+    /**
+     * @return a copy of trie holding entry, replacing an entry of the same key.
+     */
+    private static Trie put(Trie trie, int shift, Entry entry, int hash)
+    {
+        int bit = 1 << ((hash >>> shift) & MASK);
+        if (trie == null) {
+            return new Trie(bit, new Object[]{entry});
+        }
+        int index = Integer.bitCount(trie.bitmap & (bit - 1));
+        if ((trie.bitmap & bit) == 0) {
+            Object[] slots = new Object[trie.slots.length + 1];
+            System.arraycopy(trie.slots, 0, slots, 0, index);
+            slots[index] = entry;
+            System.arraycopy(trie.slots, index, slots, index + 1, trie.slots.length - index);
+            return new Trie(trie.bitmap | bit, slots);
+        }
+        Object slot = trie.slots[index];
+        Object replacement;
+        if (!(slot instanceof Entry)) {
+            replacement = put((Trie) slot, shift + BITS, entry, hash);
+        } else if (((Entry) slot).key == entry.key) {
+            replacement = entry;
+        } else { // both keys share this slot, push them down into a new node
+            Entry existing = (Entry) slot;
+            replacement = put(put(null, shift + BITS, existing, hash(existing.key)), shift + BITS, entry, hash);
+        }
+        Object[] slots = trie.slots.clone();
+        slots[index] = replacement;
+        return new Trie(trie.bitmap, slots);
+    }
+
+    /**
+     * @return a copy of trie without the entry of key, trie itself if key is missing, or null if nothing is left.
+     */
+    private static Trie remove(Trie trie, int shift, int key, int hash)
+    {
+        int bit = 1 << ((hash >>> shift) & MASK);
+        if ((trie.bitmap & bit) == 0) {
+            return trie;
+        }
+        int index = Integer.bitCount(trie.bitmap & (bit - 1));
+        Object slot = trie.slots[index];
+        Object replacement = null;
+        if (slot instanceof Entry) {
+            if (((Entry) slot).key != key) {
+                return trie;
+            }
+        } else {
+            Trie subTrie = remove((Trie) slot, shift + BITS, key, hash);
+            if (subTrie == slot) {
+                return trie;
+            }
+            boolean single = (subTrie != null) && (subTrie.slots.length == 1) && (subTrie.slots[0] instanceof Entry);
+            replacement = single ? subTrie.slots[0] : subTrie; // pull a single entry up again
+        }
+        if (replacement != null) {
+            Object[] slots = trie.slots.clone();
+            slots[index] = replacement;
+            return new Trie(trie.bitmap, slots);
+        }
+        if (trie.slots.length == 1) {
+            return null;
+        }
+        Object[] slots = new Object[trie.slots.length - 1];
+        System.arraycopy(trie.slots, 0, slots, 0, index);
+        System.arraycopy(trie.slots, index + 1, slots, index, slots.length - index);
+        return new Trie(trie.bitmap & ~bit, slots);
+    }
+
+    /**
+     * @return the entry of the last axis for the key held by array from offset on, or null if not stored.
+     */
+    private Entry locate(Trie trie, int[] coordinates, int offset)
+    {
+        Entry entry = null;
+        for (int axis = 0; (axis < getDimensionCount()) && (trie != null); axis++) {
+            entry = find(trie, coordinates[offset + axis]);
+            if (entry == null) {
+                return null;
+            }
+            trie = (axis < (getDimensionCount() - 1)) ? (Trie) entry.value : null;
+        }
+        return entry;
+    }
+
+    /**
+     * Copies the path of key, storing data at its end.
+     *
+     * @return the new trie of axis, or trie itself if nothing changed.
+     */
+    private Trie store(Trie trie, int[] coordinates, int axis, DataType data, Change change)
+    {
+        int key = coordinates[axis];
+        Entry entry = (trie != null) ? find(trie, key) : null;
+        Object value;
+        if (axis == (getDimensionCount() - 1)) {
+            if (entry != null) {
+                change.found(entry.value);
+                if (!change.replace) {
+                    return trie;
+                }
+            }
+            value = data;
+        } else {
+            Trie subTrie = store((entry != null) ? (Trie) entry.value : null, coordinates, axis + 1, data, change);
+            if ((entry != null) && (subTrie == entry.value)) {
+                return trie;
+            }
+            value = subTrie;
+        }
+        return put(trie, 0, new Entry(key, value), hash(key));
+    }
+
+    /**
+     * Copies the path of key, removing its entry and all tries left empty.
+     *
+     * @return the new trie of axis, trie itself if nothing changed, or null if nothing is left.
+     */
+    private Trie delete(Trie trie, int[] coordinates, int axis, Change change)
+    {
+        int key = coordinates[axis];
+        Entry entry = find(trie, key);
+        if (entry == null) {
+            return trie;
+        }
+        if (axis == (getDimensionCount() - 1)) {
+            change.found(entry.value);
+            return remove(trie, 0, key, hash(key));
+        }
+        Trie subTrie = delete((Trie) entry.value, coordinates, axis + 1, change);
+        if (subTrie == entry.value) {
+            return trie;
+        } else if (subTrie == null) {
+            return remove(trie, 0, key, hash(key));
+        }
+        return put(trie, 0, new Entry(key, subTrie), hash(key));
+    }
+
+    private void validateWritable()
+    {
+        if (readOnly) {
+            throw new UnsupportedOperationException("snapshots are read-only");
+        }
+    }
+
+    @Override
+    public void add(KdPoint key, DataType data)
+    {
+        validateWritable();
+        Version current = version;
+        Change change = new Change(false);
+        Trie root = store(current.root, toCoordinates(key), 0, data, change);
+        if (change.existed) {
+            throw new RuntimeException(ExceptionText.DATA_ALREADY_SET);
+        }
+        version = new Version(root, current.size + 1);
+    }
+
+    @Override
+    public DataType put(KdPoint key, DataType data)
+    {
+        validateWritable();
+        Version current = version;
+        Change change = new Change(true);
+        Trie root = store(current.root, toCoordinates(key), 0, data, change);
+        version = new Version(root, change.existed ? current.size : (current.size + 1));
+        return change.former;
+    }
+
+    @Override
+    public DataType remove(KdPoint key)
+    {
+        validateWritable();
+        Version current = version;
+        int[] coordinates = toCoordinates(key);
+        if (current.root == null) {
+            return null;
+        }
+        Change change = new Change(false);
+        Trie root = delete(current.root, coordinates, 0, change);
+        if (change.existed) {
+            version = new Version(root, current.size - 1);
+        }
+        return change.former;
+    }
+
+    @Override
+    public boolean containsKey(KdPoint key)
+    {
+        return locate(version.root, toCoordinates(key), 0) != null;
+    }
+
+    @Override
+    public boolean containsKey(int[] coordinates, int offset)
+    {
+        validateCoordinates(coordinates, offset);
+        return locate(version.root, coordinates, offset) != null;
+    }
+
+    @Override
+    public DataType get(KdPoint key)
+    {
+        return get(toCoordinates(key), 0);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public DataType get(int[] coordinates, int offset)
+    {
+        validateCoordinates(coordinates, offset);
+        Entry entry = locate(version.root, coordinates, offset);
+        return (entry != null) ? (DataType) entry.value : null;
+    }
+
+    /**
+     * Visits all entries within the box between min and max of the version current at the time of the call. The tries
+     * are ordered by hash, so all keys of a trie are checked against the range of its axis.
+     */
+    @Override
+    public boolean query(KdPoint min, KdPoint max, KdEntryVisitor<DataType> visitor)
+    {
+        Trie root = version.root;
+        return (root == null) || query(root, 0, toCoordinates(min), toCoordinates(max), new int[getDimensionCount()],
+                visitor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean query(Trie trie, int axis, int[] min, int[] max, int[] coordinates,
+                          KdEntryVisitor<DataType> visitor)
+    {
+        for (Object slot : trie.slots) {
+            if (slot instanceof Trie) {
+                if (!query((Trie) slot, axis, min, max, coordinates, visitor)) {
+                    return false;
+                }
+                continue;
+            }
+            Entry entry = (Entry) slot;
+            if ((entry.key < min[axis]) || (entry.key > max[axis])) {
+                continue;
+            }
+            coordinates[axis] = entry.key;
+            if (axis == (getDimensionCount() - 1)) {
+                if (!visitor.visit(coordinates, (DataType) entry.value)) {
+                    return false;
+                }
+            } else if (!query((Trie) entry.value, axis + 1, min, max, coordinates, visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getSize()
+    {
+        return version.size;
+    }
+
+    @Override
+    public void clear()
+    {
+        validateWritable();
+        version = EMPTY;
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code DataType} of the version current at the time of the call, in no
+     * particular order.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<DataType> iterator()
+    {
+        return new MapIterator(version.root);
+    }
+
+    /**
+     * Node of a hash trie, holding an {@link Entry} or a {@link Trie} for each set bit of bitmap.
+     */
+    private static final class Trie
+    {
+        private final int bitmap;
+        private final Object[] slots;
+
+        Trie(int bitmap, Object[] slots)
+        {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    /**
+     * Coordinate of a single axis, with the trie of the next axis or, on the last axis, the stored item as value.
+     */
+    private static final class Entry
+    {
+        private final int key;
+        private final Object value;
+
+        Entry(int key, Object value)
+        {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private static final class Version
+    {
+        private final Trie root; // trie of axis 0, null if empty
+        private final int size;
+
+        Version(Trie root, int size)
+        {
+            this.root = root;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Reports, whether a modification found an entry already stored for the key.
+     */
+    private class Change
+    {
+        private final boolean replace;
+        private boolean existed;
+        private DataType former;
+
+        Change(boolean replace)
+        {
+            this.replace = replace;
+        }
+
+        @SuppressWarnings("unchecked")
+        void found(Object value)
+        {
+            existed = true;
+            former = (DataType) value;
+        }
+    }
+
+    private class MapIterator implements Iterator<DataType>
+    {
+        private final Deque<Frame> stack = new ArrayDeque<>();
+        private Entry next;
+
+        MapIterator(Trie root)
+        {
+            if (root != null) {
+                stack.push(new Frame(root.slots, 0));
+            }
+            advance();
+        }
+
+        private void advance()
+        {
+            next = null;
+            while (!stack.isEmpty()) {
+                Frame frame = stack.peek();
+                if (frame.position == frame.slots.length) {
+                    stack.pop();
+                    continue;
+                }
+                Object slot = frame.slots[frame.position++];
+                if (slot instanceof Trie) {
+                    stack.push(new Frame(((Trie) slot).slots, frame.axis));
+                } else if (frame.axis == (getDimensionCount() - 1)) {
+                    next = (Entry) slot;
+                    return;
+                } else {
+                    stack.push(new Frame(((Trie) ((Entry) slot).value).slots, frame.axis + 1));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public DataType next()
+        {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            DataType data = (DataType) next.value;
+            advance();
+            return data;
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException(); // use PersistentKdMap.remove(KdPoint) instead
+        }
+    }
+
+    private static final class Frame
+    {
+        private final Object[] slots;
+        private final int axis;
+        private int position;
+
+        Frame(Object[] slots, int axis)
+        {
+            this.slots = slots;
+            this.axis = axis;
+        }
+    }
+}
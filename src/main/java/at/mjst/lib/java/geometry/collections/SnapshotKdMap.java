@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import at.mjst.lib.java.geometry.entities.KdPoint;
+import at.mjst.lib.java.geometry.entities.KdPointArray;
+
+/**
+ * Read-only {@link KdMap} served straight from a snapshot file mapped into memory, so opening a snapshot takes no time
+ * regardless of its size: nothing is deserialized, values are decoded by a {@link KdValueCodec} on access only.
+ * Snapshots of any map are written by {@link #write(KdMap, KdValueCodec, FileChannel)} and opened by
+ * {@link #open(FileChannel, KdValueCodec)}.
+ * <p>
+ * The file starts with a header of {@value #HEADER_BYTES} bytes, holding a magic number, the format version, dimension
+ * count, value size and count of entries. It is followed by one record per entry, made of the coordinates of all axes
+ * and the encoded value, sorted by their coordinates, axis 0 first. So the file is no larger than the raw entries plus
+ * the header, keys are found by binary search and queries only read the records within the range of axis 0. All
+ * numbers are little-endian.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class SnapshotKdMap<DataType> extends AbstractKdMap<DataType>
+{
+    private static final int MAGIC = 0x4B444D53; // "KDMS"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 32;
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    private static final int SEGMENT_BYTES = 1 << 30;
+    private static final int MAX_DIMENSION_COUNT = 1 << 20; // keeps a record far below the size of a segment
+    private final KdValueCodec<DataType> codec;
+    private final int recordSize;
+    private final int segmentShift; // records per segment, as power of two
+    private final int size;
+    private final ByteBuffer[] segments;
+
+    private SnapshotKdMap(int dimensionCount, KdValueCodec<DataType> codec, int size, FileChannel channel,
+                          FileChannel.MapMode mode) throws IOException
+    {
+        super(dimensionCount);
+        this.codec = codec;
+        this.size = size;
+        recordSize = dimensionCount * 4 + codec.getByteCount();
+        segmentShift = Integer.numberOfTrailingZeros(Integer.highestOneBit(SEGMENT_BYTES / recordSize));
+        int recordsPerSegment = 1 << segmentShift;
+        segments = new ByteBuffer[(int) (((long) size + recordsPerSegment - 1) >> segmentShift)];
+        for (int i = 0; i < segments.length; i++) {
+            long first = (long) i << segmentShift;
+            long records = Math.min(recordsPerSegment, size - first);
+            segments[i] = channel.map(mode, HEADER_BYTES + first * recordSize, records * recordSize).order(ORDER);
+        }
+    }
+
+    /**
+     * Writes all entries of map into the file of channel, replacing its former content.
+     *
+     * @param map     {@link KdMap} to save, not modified meanwhile.
+     * @param codec   {@link KdValueCodec} encoding the values.
+     * @param channel {@link FileChannel}, open for reading and writing.
+     * @throws IOException if writing fails.
+     */
+    public static <DataType> void write(KdMap<DataType> map, KdValueCodec<DataType> codec, FileChannel channel)
+            throws IOException
+    {
+        final int dimensionCount = map.getDimensionCount();
+        final KdPointArray keys = new KdPointArray(dimensionCount + 1, map.getSize()); // the last axis is the entry
+        final Object[] values = new Object[map.getSize()];
+        map.forEach(new KdEntryVisitor<DataType>()
+        {
+            private final int[] key = new int[dimensionCount + 1];
+
+            @Override
+            public boolean visit(int[] coordinates, DataType data)
+            {
+                System.arraycopy(coordinates, 0, key, 0, dimensionCount);
+                key[dimensionCount] = keys.size();
+                values[keys.size()] = data;
+                keys.add(key, 0);
+                return true;
+            }
+        });
+        keys.sort(0);
+        channel.truncate(0); // mapping extends the file again
+        SnapshotKdMap<DataType> snapshot = new SnapshotKdMap<>(dimensionCount, codec, keys.size(), channel,
+                FileChannel.MapMode.READ_WRITE);
+        for (int index = 0; index < keys.size(); index++) {
+            ByteBuffer segment = snapshot.segment(index);
+            int position = snapshot.position(index);
+            for (int axis = 0; axis < dimensionCount; axis++) {
+                segment.putInt(position + axis * 4, keys.get(index, axis));
+            }
+            @SuppressWarnings("unchecked")
+            DataType data = (DataType) values[keys.get(index, dimensionCount)];
+            codec.write(segment, position + dimensionCount * 4, data);
+        }
+        for (ByteBuffer segment : snapshot.segments) {
+            ((MappedByteBuffer) segment).force();
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ORDER);
+        header.putInt(MAGIC).putInt(VERSION).putInt(dimensionCount).putInt(codec.getByteCount()).putInt(keys.size());
+        header.clear();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+    }
+
+    /**
+     * Opens a snapshot written by {@link #write(KdMap, KdValueCodec, FileChannel)}. The channel must stay open while the
+     * map is used.
+     *
+     * @param channel {@link FileChannel} of the snapshot, open for reading.
+     * @param codec   {@link KdValueCodec} the snapshot was written with.
+     * @return a read-only map.
+     * @throws IOException if the file is no snapshot, was written with a codec of another value size, its header is
+     *                     corrupt or the file is too short, or reading fails.
+     */
+    public static <DataType> SnapshotKdMap<DataType> open(FileChannel channel, KdValueCodec<DataType> codec)
+            throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ORDER);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("snapshot header incomplete");
+            }
+        }
+        header.flip();
+        if ((header.getInt() != MAGIC) || (header.getInt() != VERSION)) {
+            throw new IOException("not a snapshot of a supported version");
+        }
+        int dimensionCount = header.getInt();
+        if (header.getInt() != codec.getByteCount()) {
+            throw new IOException("snapshot was written with a codec of another value size");
+        }
+        int size = header.getInt();
+        if ((dimensionCount <= 0) || (dimensionCount > MAX_DIMENSION_COUNT) || (size < 0)) {
+            throw new IOException("snapshot header corrupt");
+        }
+        if ((HEADER_BYTES + (long) size * (dimensionCount * 4 + codec.getByteCount())) > channel.size()) {
+            throw new IOException("snapshot truncated");
+        }
+        return new SnapshotKdMap<>(dimensionCount, codec, size, channel, FileChannel.MapMode.READ_ONLY);
+    }
+
+    private ByteBuffer segment(int index)
+    {
+        return segments[index >>> segmentShift];
+    }
+
+    private int position(int index)
+    {
+        return (index & ((1 << segmentShift) - 1)) * recordSize;
+    }
+
+    private int coordinateAt(int index, int axis)
+    {
+        return segment(index).getInt(position(index) + axis * 4);
+    }
+
+    private DataType valueAt(int index)
+    {
+        return codec.read(segment(index), position(index) + getDimensionCount() * 4);
+    }
+
+    /**
+     * @return the index of the key held by array from offset on, or -1 if not stored.
+     */
+    private int find(int[] coordinates, int offset)
+    {
+        validateCoordinates(coordinates, offset);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = 0;
+            for (int axis = 0; (axis < getDimensionCount()) && (comparison == 0); axis++) {
+                comparison = Integer.compare(coordinateAt(middle, axis), coordinates[offset + axis]);
+            }
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Not supported, snapshots are read-only.
+     */
+    @Override
+    public void add(KdPoint key, DataType data)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Not supported, snapshots are read-only.
+     */
+    @Override
+    public DataType put(KdPoint key, DataType data)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Not supported, snapshots are read-only.
+     */
+    @Override
+    public DataType remove(KdPoint key)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean containsKey(KdPoint key)
+    {
+        return find(toCoordinates(key), 0) >= 0;
+    }
+
+    @Override
+    public boolean containsKey(int[] coordinates, int offset)
+    {
+        return find(coordinates, offset) >= 0;
+    }
+
+    @Override
+    public DataType get(KdPoint key)
+    {
+        return get(toCoordinates(key), 0);
+    }
+
+    @Override
+    public DataType get(int[] coordinates, int offset)
+    {
+        int index = find(coordinates, offset);
+        return (index >= 0) ? valueAt(index) : null;
+    }
+
+    /**
+     * Visits all entries within the box between min and max. The records within the range of axis 0 are found by
+     * binary search, each of them is checked against the other axes.
+     */
+    @Override
+    public boolean query(KdPoint min, KdPoint max, KdEntryVisitor<DataType> visitor)
+    {
+        int[] low = toCoordinates(min);
+        int[] high = toCoordinates(max);
+        int[] coordinates = new int[getDimensionCount()];
+        int first = 0;
+        int last = size;
+        while (first < last) { // first record not below the box on axis 0
+            int middle = (first + last) >>> 1;
+            if (coordinateAt(middle, 0) < low[0]) {
+                first = middle + 1;
+            } else {
+                last = middle;
+            }
+        }
+        for (int index = first; (index < size) && (coordinateAt(index, 0) <= high[0]); index++) {
+            boolean inside = true;
+            for (int axis = 0; axis < coordinates.length; axis++) {
+                coordinates[axis] = coordinateAt(index, axis);
+                inside &= (coordinates[axis] >= low[axis]) && (coordinates[axis] <= high[axis]);
+            }
+            if (inside && !visitor.visit(coordinates, valueAt(index))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Not supported, snapshots are read-only.
+     */
+    @Override
+    public void clear()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code DataType}, ordered by their keys, axis 0 first.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<DataType> iterator()
+    {
+        return new MapIterator();
+    }
+
+    private class MapIterator implements Iterator<DataType>
+    {
+        private int index;
+
+        @Override
+        public boolean hasNext()
+        {
+            return index < size;
+        }
+
+        @Override
+        public DataType next()
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return valueAt(index++);
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
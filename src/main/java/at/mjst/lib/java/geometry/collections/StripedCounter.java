@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter for many concurrent writers, spreading updates over padded cells chosen by the updating thread, so that
+ * threads rarely contend on the same cache line. Reading sums up all cells and is only exact without concurrent updates.
+ * Serves the purpose of {@code java.util.concurrent.atomic.LongAdder}, which is not available before Java 8.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+class StripedCounter
+{
+    private static final int PADDING = 8; // one cell per 64 byte cache line
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    StripedCounter()
+    {
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+        cells = new AtomicLongArray(stripes * PADDING);
+        mask = stripes - 1;
+    }
+
+    private int cellIndex()
+    {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return ((h ^ (h >>> 16)) & mask) * PADDING;
+    }
+
+    void add(long delta)
+    {
+        cells.getAndAdd(cellIndex(), delta);
+    }
+
+    void increment()
+    {
+        add(1);
+    }
+
+    void decrement()
+    {
+        add(-1);
+    }
+
+    long sum()
+    {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i += PADDING) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+
+    void reset()
+    {
+        for (int i = 0; i < cells.length(); i += PADDING) {
+            cells.set(i, 0);
+        }
+    }
+}
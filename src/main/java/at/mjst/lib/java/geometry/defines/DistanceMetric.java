@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.defines;
+
+/**
+ * Metrics measuring the distance between integer coordinates. Every metric is a sum of per-axis terms, so the term of a
+ * single axis is a lower bound of the whole distance, as needed to prune spatial searches. Distances are exact as long
+ * as they fit into a {@code long}, larger ones saturate at {@link Long#MAX_VALUE} instead of overflowing, so that they
+ * are never taken for near ones.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public enum DistanceMetric
+{
+    /**
+     * Squared euclidean distance, avoids the square root while keeping the order of euclidean distances.
+     */
+    SQUARED_EUCLIDEAN
+            {
+                @Override
+                public long axisDistance(long delta)
+                {
+                    return square(delta);
+                }
+
+                @Override
+                public long fromRadius(long radius)
+                {
+                    return square(radius);
+                }
+            },
+    /**
+     * Manhattan (taxicab) distance, the sum of absolute differences.
+     */
+    MANHATTAN
+            {
+                @Override
+                public long axisDistance(long delta)
+                {
+                    return (delta == Long.MIN_VALUE) ? Long.MAX_VALUE : Math.abs(delta);
+                }
+
+                @Override
+                public long fromRadius(long radius)
+                {
+                    return radius;
+                }
+            };
+    private static final long MAX_SQUARE_ROOT = 3037000499L; // largest value, whose square fits into a long
+
+    /**
+     * @param delta difference of two coordinates on a single axis.
+     * @return the part of the distance contributed by this axis.
+     */
+    public abstract long axisDistance(long delta);
+
+    /**
+     * Converts a radius, given in units of the coordinates, into a distance of this metric.
+     *
+     * @param radius radius, not negative.
+     * @return maximum distance of this metric within radius.
+     */
+    public abstract long fromRadius(long radius);
+
+    /**
+     * Measures the distance between two points stored within arrays.
+     *
+     * @param a              coordinates of the first point.
+     * @param aOffset        index of the first point's coordinate of axis 0.
+     * @param b              coordinates of the second point.
+     * @param bOffset        index of the second point's coordinate of axis 0.
+     * @param dimensionCount count of axes of both points.
+     * @return the distance.
+     */
+    public long distance(int[] a, int aOffset, int[] b, int bOffset, int dimensionCount)
+    {
+        long distance = 0;
+        for (int axis = 0; axis < dimensionCount; axis++) {
+            long axisDistance = axisDistance((long) a[aOffset + axis] - b[bOffset + axis]);
+            if (axisDistance > (Long.MAX_VALUE - distance)) {
+                return Long.MAX_VALUE;
+            }
+            distance += axisDistance;
+        }
+        return distance;
+    }
+
+    /**
+     * @return value squared, or {@link Long#MAX_VALUE} if that does not fit into a {@code long}.
+     */
+    private static long square(long value)
+    {
+        long absolute = (value == Long.MIN_VALUE) ? Long.MAX_VALUE : Math.abs(value);
+        return (absolute > MAX_SQUARE_ROOT) ? Long.MAX_VALUE : absolute * absolute;
+    }
+}
@@ -13,4 +13,16 @@ package at.mjst.lib.java.geometry.defines;
 public interface ExceptionText
 {
     String DIMENSION_COUNT_GREATER_ZERO_REQUIRED = "dimension-count > 0 required";
+    String DIMENSION_COUNT_MISMATCH = "dimension count must be %d";
+    String DATA_ALREADY_SET = "data already set for this key";
+    String COORDINATE_OUT_OF_RANGE = "coordinate %d out of range for axis %d";
+    String COORDINATES_MISSING = "%d coordinates required from offset %d";
+    String AXIS_ORDER_INVALID = "axis order must be a permutation of all axes";
+    String COORDINATE_COUNT_MISMATCH = "%d coordinates given, multiple of %d required";
+    String BATCH_SIZE_MISMATCH = "%d keys given, but %d items";
+    String BATCH_SIZE_GREATER_ZERO_REQUIRED = "batch size > 0 required";
+    String QUEUE_CAPACITY_TOO_SMALL = "queue capacity >= 2 required";
+    String RECORD_MALFORMED = "malformed record at line %d";
+    String RECORD_INCOMPLETE = "%d bytes left after the last complete record";
+    String RECORD_TOO_LONG = "record exceeds the buffer of %d bytes";
 }
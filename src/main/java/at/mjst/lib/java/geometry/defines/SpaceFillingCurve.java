@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.defines;
+
+/**
+ * Curves passing every point of the integer grid once, keeping points close along the curve also close in space. The
+ * position of a point along a curve is given by a curve key of one {@code int} per axis, whose bits interleaved, the bit
+ * of axis 0 first, form the index along the curve. As the index of all 32 bits of every axis does not fit into a
+ * primitive, keys are compared by {@link #compareKeys(int[], int, int[], int, int)} without interleaving them.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public enum SpaceFillingCurve
+{
+    /**
+     * Z-order curve, the key is made of the coordinates themselves. Cheap, but jumps at the borders of each quadrant.
+     */
+    MORTON
+            {
+                @Override
+                public void toCurveKey(int[] coordinates, int offset, int dimensionCount)
+                {
+                    for (int axis = 0; axis < dimensionCount; axis++) {
+                        coordinates[offset + axis] ^= Integer.MIN_VALUE; // negative coordinates first
+                    }
+                }
+            },
+    /**
+     * Hilbert curve, consecutive points of the curve are always neighbours. The key is the transposed Hilbert index
+     * computed by the algorithm of J. Skilling, "Programming the Hilbert curve" (2004).
+     */
+    HILBERT
+            {
+                @Override
+                public void toCurveKey(int[] coordinates, int offset, int dimensionCount)
+                {
+                    MORTON.toCurveKey(coordinates, offset, dimensionCount);
+                    int last = offset + dimensionCount - 1;
+                    for (int q = Integer.MIN_VALUE; q != 1; q >>>= 1) { // undo excess work
+                        int p = q - 1;
+                        for (int i = offset; i <= last; i++) {
+                            if ((coordinates[i] & q) != 0) {
+                                coordinates[offset] ^= p; // invert
+                            } else {
+                                int t = (coordinates[offset] ^ coordinates[i]) & p; // exchange
+                                coordinates[offset] ^= t;
+                                coordinates[i] ^= t;
+                            }
+                        }
+                    }
+                    for (int i = offset + 1; i <= last; i++) { // gray encode
+                        coordinates[i] ^= coordinates[i - 1];
+                    }
+                    int t = 0;
+                    for (int q = Integer.MIN_VALUE; q != 1; q >>>= 1) {
+                        if ((coordinates[last] & q) != 0) {
+                            t ^= q - 1;
+                        }
+                    }
+                    for (int i = offset; i <= last; i++) {
+                        coordinates[i] ^= t;
+                    }
+                }
+            };
+
+    /**
+     * Converts the coordinates of a point into its curve key, in place.
+     *
+     * @param coordinates    array holding the coordinates, receiving the key.
+     * @param offset         index of the coordinate of axis 0.
+     * @param dimensionCount count of axes.
+     */
+    public abstract void toCurveKey(int[] coordinates, int offset, int dimensionCount);
+
+    /**
+     * Compares two curve keys by their interleaved bits. The axis holding the most significant differing bit decides,
+     * which is found without interleaving by comparing the exclusive-or of the coordinates of each axis.
+     *
+     * @param a              first key.
+     * @param aOffset        index of the first key's coordinate of axis 0.
+     * @param b              second key.
+     * @param bOffset        index of the second key's coordinate of axis 0.
+     * @param dimensionCount count of axes of both keys.
+     * @return a negative number, zero or a positive number, if a is before, at or after b along the curve.
+     */
+    public static int compareKeys(int[] a, int aOffset, int[] b, int bOffset, int dimensionCount)
+    {
+        int deciding = 0;
+        int highest = 0; // differing bits of the deciding axis
+        for (int axis = 0; axis < dimensionCount; axis++) {
+            int differing = a[aOffset + axis] ^ b[bOffset + axis];
+            if (lessUnsigned(highest, differing) && lessUnsigned(highest, highest ^ differing)) {
+                deciding = axis; // the most significant bit of differing is above the one of highest
+                highest = differing;
+            }
+        }
+        return lessUnsigned(a[aOffset + deciding], b[bOffset + deciding]) ? -1 : ((highest == 0) ? 0 : 1);
+    }
+
+    private static boolean lessUnsigned(int a, int b)
+    {
+        return (a ^ Integer.MIN_VALUE) < (b ^ Integer.MIN_VALUE);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.entities;
+
+import at.mjst.lib.java.math.SeedableRandom;
+
+/**
+ * {@link KdPoint}, which cannot be changed after construction. Its hash code is computed only once, which makes it a
+ * cheap key for hash based collections. Equal to every {@link KdPoint} holding the same coordinates.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public final class ImmutableKdPoint extends KdPoint
+{
+    private final int hash;
+
+    public ImmutableKdPoint(int[] offsets)
+    {
+        super(offsets);
+        hash = super.hashCode();
+    }
+
+    public ImmutableKdPoint(KdPoint point)
+    {
+        super(point);
+        hash = super.hashCode();
+    }
+
+    @Override
+    public void assign(KdPoint point)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void set(int axis, int offset)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setRandom(int origin, int bound)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setRandom(SeedableRandom random, int origin, int bound)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hash;
+    }
+}
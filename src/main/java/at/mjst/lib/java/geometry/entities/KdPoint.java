@@ -9,6 +9,7 @@ import java.util.HashMap;
 
 import at.mjst.lib.java.geometry.defines.ExceptionText;
 import at.mjst.lib.java.math.Random;
+import at.mjst.lib.java.math.SeedableRandom;
 
 /**
  * k-dimensional Point. Implements a point in k-dimensional coordinate space.
@@ -38,8 +39,7 @@ public class KdPoint
 
     public KdPoint(KdPoint point)
     {
-        this(point.getDimensionCount());
-        assign(point);
+        this(point.offsets);
     }
 
     private int[] generateNewOffsetArray()
@@ -57,23 +57,26 @@ public class KdPoint
     public void assign(KdPoint point)
     {
         if (getDimensionCount() == point.getDimensionCount()) {
-            offsets = point.getOffsets(); // since the offsets are already copied, we can directly assign them here
+            System.arraycopy(point.offsets, 0, offsets, 0, dimensionCount);
         } else {
             throw new IllegalArgumentException(String.format("%d-dimensional point required", getDimensionCount()));
         }
     }
 
-    private int[] getOffsets()
+    /**
+     * Copies the coordinates of all axes from an array, e.g. to reuse a point as cursor.
+     *
+     * @param source array holding the coordinates from offset on.
+     * @param offset index of the coordinate of axis 0.
+     */
+    void load(int[] source, int offset)
     {
-        int[] copiedOffsets = generateNewOffsetArray();
-        System.arraycopy(offsets, 0, copiedOffsets, 0, getDimensionCount());
-        return copiedOffsets;
+        System.arraycopy(source, offset, offsets, 0, dimensionCount);
     }
 
     public int get(int axis)
     {
-        validateDimension(axis);
-        return offsets[axis];
+        return offsets[axis]; // the array has exactly dimensionCount elements and checks the bounds by itself
     }
 
     public void set(int axis, int offset)
@@ -91,7 +94,21 @@ public class KdPoint
     public void setRandom(int origin, int bound)
     {
         for (int i = 0; i < offsets.length; i++) {
-            set(i, Random.randInt(origin, bound));
+            offsets[i] = Random.randInt(origin, bound); // every axis exists, no need to validate
+        }
+    }
+
+    /**
+     * Generates reproducible random coordinates for this point.
+     *
+     * @param random {@link SeedableRandom} providing the coordinates.
+     * @param origin Minimum value.
+     * @param bound  Maximum value, not less than origin.
+     */
+    public void setRandom(SeedableRandom random, int origin, int bound)
+    {
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = random.nextInt(origin, bound);
         }
     }
 
@@ -111,8 +128,7 @@ public class KdPoint
     @Override
     public boolean equals(Object obj)
     {
-        return (super.equals(obj) || (obj instanceof KdPoint) && (dimensionCount == ((KdPoint) obj).getDimensionCount()
-                && Arrays.equals(offsets, ((KdPoint) obj).getOffsets())));
+        return (super.equals(obj) || (obj instanceof KdPoint) && Arrays.equals(offsets, ((KdPoint) obj).offsets));
     }
 
     /**
@@ -0,0 +1,379 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.entities;
+
+import java.util.Arrays;
+
+import at.mjst.lib.java.geometry.defines.ExceptionText;
+
+/**
+ * Growable array of k-dimensional points, keeping the coordinates of all points within a single primitive array, those
+ * of all axes of one point after the other. This is the layout taken by the batch methods of a {@code KdMap}, so a
+ * whole array is passed without any conversion. Compared to one {@link KdPoint} per point, no object is needed per point
+ * and neighbouring points are neighbours in memory.
+ * <p>
+ * Single points are accessed by a {@link Cursor}, a reusable {@link KdPoint} loaded with the coordinates of one point
+ * after the other.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class KdPointArray
+{
+    private static final int INITIAL_CAPACITY = 16;
+    private final int dimensionCount;
+    private int[] coordinates;
+    private int size;
+
+    public KdPointArray(int dimensionCount)
+    {
+        this(dimensionCount, INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param dimensionCount count of axes of every point.
+     * @param capacity       count of points to reserve space for.
+     */
+    public KdPointArray(int dimensionCount, int capacity)
+    {
+        if (dimensionCount <= 0) {
+            throw new IllegalArgumentException(ExceptionText.DIMENSION_COUNT_GREATER_ZERO_REQUIRED);
+        }
+        this.dimensionCount = dimensionCount;
+        coordinates = new int[Math.max(capacity, 1) * dimensionCount];
+    }
+
+    /**
+     * Creates an array backed by the coordinates given, without copying them.
+     *
+     * @param dimensionCount count of axes of every point.
+     * @param coordinates    coordinates of all points, its length must be a multiple of dimensionCount.
+     * @return a new array holding all points of coordinates.
+     */
+    public static KdPointArray wrap(int dimensionCount, int[] coordinates)
+    {
+        KdPointArray array = new KdPointArray(dimensionCount, 1);
+        if ((coordinates.length % dimensionCount) != 0) {
+            throw new IllegalArgumentException(String.format(ExceptionText.COORDINATE_COUNT_MISMATCH,
+                    coordinates.length, dimensionCount));
+        }
+        array.coordinates = coordinates;
+        array.size = coordinates.length / dimensionCount;
+        return array;
+    }
+
+    private void validateIndex(int index)
+    {
+        if ((index < 0) || (index >= size)) {
+            throw new IndexOutOfBoundsException(String.format("point %d out of bounds", index));
+        }
+    }
+
+    private void validateAxis(int axis)
+    {
+        if ((axis < 0) || (axis >= dimensionCount)) {
+            throw new IndexOutOfBoundsException(String.format("axis %d out of bounds", axis));
+        }
+    }
+
+    private void validatePoint(KdPoint point)
+    {
+        if (point.getDimensionCount() != dimensionCount) {
+            throw new IllegalArgumentException(String.format(ExceptionText.DIMENSION_COUNT_MISMATCH, dimensionCount));
+        }
+    }
+
+    public int getDimensionCount()
+    {
+        return dimensionCount;
+    }
+
+    /**
+     * @return count of points.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    public int get(int index, int axis)
+    {
+        validateIndex(index);
+        validateAxis(axis);
+        return coordinates[index * dimensionCount + axis];
+    }
+
+    public void set(int index, int axis, int offset)
+    {
+        validateIndex(index);
+        validateAxis(axis);
+        coordinates[index * dimensionCount + axis] = offset;
+    }
+
+    /**
+     * Appends a point held by an array.
+     *
+     * @param source array holding the coordinates of all axes from offset on.
+     * @param offset index of the coordinate of axis 0.
+     */
+    public void add(int[] source, int offset)
+    {
+        if ((offset < 0) || (offset > (source.length - dimensionCount))) {
+            throw new IllegalArgumentException(String.format(ExceptionText.COORDINATES_MISSING, dimensionCount,
+                    offset));
+        }
+        ensureCapacity(size + 1);
+        System.arraycopy(source, offset, coordinates, size * dimensionCount, dimensionCount);
+        size++;
+    }
+
+    public void add(KdPoint point)
+    {
+        validatePoint(point);
+        ensureCapacity(size + 1);
+        for (int axis = 0; axis < dimensionCount; axis++) {
+            coordinates[size * dimensionCount + axis] = point.get(axis);
+        }
+        size++;
+    }
+
+    private void ensureCapacity(int capacity)
+    {
+        if ((capacity * dimensionCount) > coordinates.length) {
+            int points = Math.max(capacity, (coordinates.length / dimensionCount) << 1);
+            coordinates = Arrays.copyOf(coordinates, points * dimensionCount);
+        }
+    }
+
+    /**
+     * @return a new {@link KdPoint} holding the coordinates of a single point.
+     */
+    public KdPoint toPoint(int index)
+    {
+        validateIndex(index);
+        KdPoint point = new KdPoint(dimensionCount);
+        point.load(coordinates, index * dimensionCount);
+        return point;
+    }
+
+    /**
+     * Returns the coordinates of all points, those of all axes of one point after the other. The array is trimmed to
+     * the size first, so its length is exactly size times dimension count. It is not copied, changes are visible to
+     * both sides until the array grows again.
+     *
+     * @return the array backing this one.
+     */
+    public int[] getCoordinates()
+    {
+        if (coordinates.length != (size * dimensionCount)) {
+            coordinates = Arrays.copyOf(coordinates, size * dimensionCount);
+        }
+        return coordinates;
+    }
+
+    /**
+     * Returns the coordinates of all points like {@link #getCoordinates()}, but without trimming: only the first size
+     * times dimension count elements are coordinates, the rest is reserved for points to add.
+     *
+     * @return the array backing this one.
+     */
+    public int[] getBuffer()
+    {
+        return coordinates;
+    }
+
+    public void clear()
+    {
+        size = 0;
+    }
+
+    /**
+     * @return a new {@link Cursor} positioned before the first point.
+     */
+    public Cursor cursor()
+    {
+        return new Cursor();
+    }
+
+    /**
+     * Computes the smallest axis-aligned box containing all points, as needed by a query.
+     *
+     * @return the lower and the upper corner of the box, or null if there is no point.
+     */
+    public KdPoint[] getBoundingBox()
+    {
+        if (size == 0) {
+            return null;
+        }
+        KdPoint min = toPoint(0);
+        KdPoint max = toPoint(0);
+        for (int axis = 0; axis < dimensionCount; axis++) {
+            int low = min.get(axis);
+            int high = low;
+            for (int position = dimensionCount + axis; position < (size * dimensionCount); position += dimensionCount) {
+                low = Math.min(low, coordinates[position]);
+                high = Math.max(high, coordinates[position]);
+            }
+            min.set(axis, low);
+            max.set(axis, high);
+        }
+        return new KdPoint[]{min, max};
+    }
+
+    /**
+     * Moves all points by delta, coordinates overflow silently.
+     *
+     * @param delta {@link KdPoint} holding the distance to move along each axis.
+     */
+    public void translate(KdPoint delta)
+    {
+        validatePoint(delta);
+        for (int axis = 0; axis < dimensionCount; axis++) {
+            int offset = delta.get(axis);
+            for (int position = axis; position < (size * dimensionCount); position += dimensionCount) {
+                coordinates[position] += offset;
+            }
+        }
+    }
+
+    /**
+     * Sorts the points by the coordinates of axis, equal ones by the following axes in turn, wrapping around to axis 0.
+     * The sort is stable and does not create an object per point.
+     *
+     * @param axis axis to sort by first.
+     */
+    public void sort(int axis)
+    {
+        validateAxis(axis);
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        mergeSort(order, new int[size], 0, size, axis);
+        int[] sorted = new int[size * dimensionCount];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(coordinates, order[i] * dimensionCount, sorted, i * dimensionCount, dimensionCount);
+        }
+        coordinates = sorted;
+    }
+
+    private void mergeSort(int[] order, int[] buffer, int from, int to, int axis)
+    {
+        if ((to - from) < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(order, buffer, from, middle, axis);
+        mergeSort(order, buffer, middle, to, axis);
+        if (compare(order[middle - 1], order[middle], axis) <= 0) {
+            return; // already in order
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            boolean takeLeft = (right == to) || ((left < middle) && (compare(buffer[left], buffer[right], axis) <= 0));
+            order[i] = takeLeft ? buffer[left++] : buffer[right++];
+        }
+    }
+
+    private int compare(int a, int b, int axis)
+    {
+        for (int i = 0; i < dimensionCount; i++) {
+            int current = (axis + i) % dimensionCount;
+            int comparison = Integer.compare(coordinates[a * dimensionCount + current],
+                    coordinates[b * dimensionCount + current]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Removes points equal to their predecessor, keeping the first one. Removes all duplicates after {@link #sort(int)}.
+     *
+     * @return count of points removed.
+     */
+    public int dedup()
+    {
+        if (size == 0) {
+            return 0;
+        }
+        int kept = 1;
+        for (int i = 1; i < size; i++) {
+            if (compare(i, kept - 1, 0) != 0) {
+                System.arraycopy(coordinates, i * dimensionCount, coordinates, kept * dimensionCount, dimensionCount);
+                kept++;
+            }
+        }
+        int removed = size - kept;
+        size = kept;
+        return removed;
+    }
+
+    /**
+     * Flyweight {@link KdPoint} stepping through the points of the array, loading the coordinates of the current point
+     * into itself. As it is a copy, modifying the cursor does not modify the array, unless written back by
+     * {@link #store()}.
+     */
+    public class Cursor extends KdPoint
+    {
+        private int index = -1;
+
+        Cursor()
+        {
+            super(KdPointArray.this.dimensionCount);
+        }
+
+        /**
+         * Moves to the next point.
+         *
+         * @return True, if there is a next point, false if the cursor passed the last one.
+         */
+        public boolean next()
+        {
+            if (index < size) {
+                index++;
+            }
+            if (index == size) {
+                return false;
+            }
+            load(coordinates, index * dimensionCount);
+            return true;
+        }
+
+        /**
+         * Moves to a given point.
+         *
+         * @param index position of the point within the array.
+         */
+        public void moveTo(int index)
+        {
+            validateIndex(index);
+            this.index = index;
+            load(coordinates, index * dimensionCount);
+        }
+
+        /**
+         * @return position of the current point within the array.
+         */
+        public int getIndex()
+        {
+            return index;
+        }
+
+        /**
+         * Writes the coordinates of the cursor back into the array, at the position of the current point.
+         */
+        public void store()
+        {
+            validateIndex(index);
+            for (int axis = 0; axis < dimensionCount; axis++) {
+                coordinates[index * dimensionCount + axis] = get(axis);
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.math;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates reproducible sets of random points within an axis-aligned box, e.g. for tests and benchmarks. The
+ * coordinates of point n are drawn from {@link SeedableRandom#at(long, long)} of the seed and n, so the points do not
+ * depend on the count of threads generating them, nor on the order they are generated in.
+ * <p>
+ * Besides uniformly distributed points, normally distributed ones around the center of the box or around a count of
+ * cluster centers are supported. Their coordinates are rounded and clamped to the box.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class PointGenerator
+{
+    private static final int POINTS_PER_TASK = 1 << 14;
+    private static final long CENTER_SALT = 0x5DEECE66DL; // separates the sequence of the cluster centers
+    private final long seed;
+    private final int[] origins;
+    private final int[] bounds;
+    private final double[] deviations; // per axis, null for uniformly distributed points
+    private final double[] centers; // of all clusters, one after the other
+
+    private PointGenerator(long seed, int[] origins, int[] bounds, int clusterCount, double deviation)
+    {
+        if ((origins.length == 0) || (origins.length != bounds.length)) {
+            throw new IllegalArgumentException("origins and bounds of the same count of axes required");
+        }
+        for (int axis = 0; axis < origins.length; axis++) {
+            if (bounds[axis] < origins[axis]) {
+                throw new IllegalArgumentException("bound must not be less than origin on axis " + axis);
+            }
+        }
+        this.seed = seed;
+        this.origins = origins.clone();
+        this.bounds = bounds.clone();
+        if (clusterCount <= 0) {
+            deviations = null;
+            centers = null;
+            return;
+        }
+        deviations = new double[origins.length];
+        centers = new double[clusterCount * origins.length];
+        SeedableRandom random = new SeedableRandom(seed ^ CENTER_SALT);
+        for (int axis = 0; axis < origins.length; axis++) {
+            double extent = (double) bounds[axis] - origins[axis];
+            deviations[axis] = deviation * extent;
+            for (int cluster = 0; cluster < clusterCount; cluster++) {
+                centers[cluster * origins.length + axis] = (clusterCount == 1) ? origins[axis] + extent / 2 :
+                        random.nextInt(origins[axis], bounds[axis]);
+            }
+        }
+    }
+
+    /**
+     * @param seed    seed of all points.
+     * @param origins minimum coordinate per axis.
+     * @param bounds  maximum coordinate per axis, inclusive.
+     * @return a generator of points distributed uniformly within the box.
+     */
+    public static PointGenerator uniform(long seed, int[] origins, int[] bounds)
+    {
+        return new PointGenerator(seed, origins, bounds, 0, 0);
+    }
+
+    /**
+     * @param seed      seed of all points.
+     * @param origins   minimum coordinate per axis.
+     * @param bounds    maximum coordinate per axis, inclusive.
+     * @param deviation standard deviation, as fraction of the extent of each axis.
+     * @return a generator of points distributed normally around the center of the box.
+     */
+    public static PointGenerator gaussian(long seed, int[] origins, int[] bounds, double deviation)
+    {
+        return new PointGenerator(seed, origins, bounds, 1, deviation);
+    }
+
+    /**
+     * @param seed         seed of all points, including the centers.
+     * @param origins      minimum coordinate per axis.
+     * @param bounds       maximum coordinate per axis, inclusive.
+     * @param clusterCount count of centers, placed uniformly within the box.
+     * @param deviation    standard deviation around each center, as fraction of the extent of each axis.
+     * @return a generator of points distributed normally around centers chosen at random.
+     */
+    public static PointGenerator clustered(long seed, int[] origins, int[] bounds, int clusterCount,
+                                           double deviation)
+    {
+        if (clusterCount <= 0) {
+            throw new IllegalArgumentException("cluster count > 0 required");
+        }
+        return new PointGenerator(seed, origins, bounds, clusterCount, deviation);
+    }
+
+    public int getDimensionCount()
+    {
+        return origins.length;
+    }
+
+    /**
+     * Stores the coordinates of a single point into an array.
+     *
+     * @param coordinates array receiving the coordinates of all axes from offset on.
+     * @param offset      index of the coordinate of axis 0.
+     * @param index       number of the point.
+     */
+    public void generate(int[] coordinates, int offset, long index)
+    {
+        SeedableRandom random = SeedableRandom.at(seed, index);
+        if (deviations == null) {
+            for (int axis = 0; axis < origins.length; axis++) {
+                coordinates[offset + axis] = random.nextInt(origins[axis], bounds[axis]);
+            }
+            return;
+        }
+        int cluster = random.nextInt(0, (centers.length / origins.length) - 1);
+        for (int axis = 0; axis < origins.length; axis++) {
+            double value = centers[cluster * origins.length + axis] + random.nextGaussian() * deviations[axis];
+            long rounded = Math.round(value);
+            coordinates[offset + axis] = (int) Math.max(origins[axis], Math.min(bounds[axis], rounded));
+        }
+    }
+
+    /**
+     * Fills an array with the coordinates of consecutive points, those of all axes of one point after the other.
+     *
+     * @param coordinates array receiving the points, its length must be a multiple of the count of axes.
+     * @param firstIndex  number of the first point.
+     * @param pool        {@link ForkJoinPool} to fill the array in parallel, or null to fill it within the calling
+     *                    thread.
+     */
+    public void fill(int[] coordinates, long firstIndex, ForkJoinPool pool)
+    {
+        if ((coordinates.length % origins.length) != 0) {
+            throw new IllegalArgumentException("length must be a multiple of " + origins.length);
+        }
+        int count = coordinates.length / origins.length;
+        if (pool != null) {
+            pool.invoke(new FillTask(coordinates, firstIndex, 0, count));
+            return;
+        }
+        for (int point = 0; point < count; point++) {
+            generate(coordinates, point * origins.length, firstIndex + point);
+        }
+    }
+
+    /**
+     * @param count count of points.
+     * @param pool  {@link ForkJoinPool} to generate in parallel, or null to generate within the calling thread.
+     * @return new array holding the coordinates of points 0 to count - 1, see {@link #fill(int[], long, ForkJoinPool)}.
+     * @throws IllegalArgumentException if count is negative, or the coordinates of all points exceed an array.
+     */
+    public int[] generate(int count, ForkJoinPool pool)
+    {
+        if ((count < 0) || (count > Integer.MAX_VALUE / origins.length)) {
+            throw new IllegalArgumentException("count between 0 and " + (Integer.MAX_VALUE / origins.length)
+                    + " required");
+        }
+        int[] coordinates = new int[count * origins.length];
+        fill(coordinates, 0, pool);
+        return coordinates;
+    }
+
+    private class FillTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+        private final int[] coordinates;
+        private final long firstIndex;
+        private final int from;
+        private final int to;
+
+        FillTask(int[] coordinates, long firstIndex, int from, int to)
+        {
+            this.coordinates = coordinates;
+            this.firstIndex = firstIndex;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if ((to - from) <= POINTS_PER_TASK) {
+                for (int point = from; point < to; point++) {
+                    generate(coordinates, point * origins.length, firstIndex + point);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new FillTask(coordinates, firstIndex, from, middle),
+                    new FillTask(coordinates, firstIndex, middle, to));
+        }
+    }
+}
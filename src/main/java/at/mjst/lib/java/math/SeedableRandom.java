@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.math;
+
+/**
+ * Seedable pseudo-random generator using the SplitMix64 algorithm, the one behind
+ * {@code java.util.SplittableRandom}, which is not available before Java 8. Equal seeds produce equal sequences on
+ * every platform. The n-th value of a sequence is a function of seed and n only, so generators for any position are
+ * created in constant time by {@link #at(long, long)}, allowing parallel generation to produce the same values
+ * regardless of the count of threads.
+ * <p>
+ * Instances are not thread-safe, use {@link #split()} or {@link #at(long, long)} to obtain a generator per thread.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class SeedableRandom
+{
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final double DOUBLE_UNIT = 1.0 / (1L << 53);
+    private long state;
+
+    public SeedableRandom(long seed)
+    {
+        state = seed;
+    }
+
+    /**
+     * Creates the generator split off at a position of the sequence of seed, the same one as returned by
+     * {@link #split()} after index values were taken from {@code new SeedableRandom(seed)}.
+     *
+     * @param seed  seed of the sequence.
+     * @param index position within the sequence.
+     * @return a new, independent generator.
+     */
+    public static SeedableRandom at(long seed, long index)
+    {
+        return new SeedableRandom(mix64(seed + (index + 1) * GOLDEN_GAMMA));
+    }
+
+    private static long mix64(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public long nextLong()
+    {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    /**
+     * @return a new generator, seeded by the next value of this one.
+     */
+    public SeedableRandom split()
+    {
+        return new SeedableRandom(nextLong());
+    }
+
+    /**
+     * Returns a pseudo-random number between origin and bound, inclusive, like {@link Random#randInt(int, int)}.
+     *
+     * @param origin Minimum value.
+     * @param bound  Maximum value, not less than origin.
+     * @return Integer between origin and bound, inclusive.
+     */
+    public int nextInt(int origin, int bound)
+    {
+        if (bound < origin) {
+            throw new IllegalArgumentException("bound must not be less than origin");
+        }
+        long range = (long) bound - origin + 1; // up to 2^32
+        return (int) (origin + (((nextLong() >>> 32) * range) >>> 32)); // multiply-shift, no division
+    }
+
+    /**
+     * @return a pseudo-random number between 0, inclusive, and 1, exclusive.
+     */
+    public double nextDouble()
+    {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * Returns a normally distributed number by the Box-Muller transform, always taking two values of the sequence.
+     *
+     * @return a pseudo-random number of mean 0 and standard deviation 1.
+     */
+    public double nextGaussian()
+    {
+        double radius = Math.sqrt(-2 * Math.log(1 - nextDouble())); // 1 - u avoids log(0)
+        return radius * Math.cos(2 * Math.PI * nextDouble());
+    }
+}
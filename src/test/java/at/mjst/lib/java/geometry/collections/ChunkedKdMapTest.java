@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * A simple unit-test for {@link ChunkedKdMap}, using a dense cube crossing the origin.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class ChunkedKdMapTest
+{
+    private static final int LOW = -20;
+    private static final int HIGH = 19; // 40 cells per axis, touching 4 chunks of 16 cells per axis
+    @Rule
+    public final ExpectedException exception = ExpectedException.none();
+    private ChunkedKdMap<KdPoint> map;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        map = new ChunkedKdMap<>(3);
+        for (int x = LOW; x <= HIGH; x++) {
+            for (int y = LOW; y <= HIGH; y++) {
+                for (int z = LOW; z <= HIGH; z++) {
+                    KdPoint key = new KdPoint(new int[]{x, y, z});
+                    map.add(key, key);
+                }
+            }
+        }
+    }
+
+    private int countQuery(int[] min, int[] max)
+    {
+        final int[] count = new int[1];
+        map.query(new KdPoint(min), new KdPoint(max), new KdEntryVisitor<KdPoint>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, KdPoint data)
+            {
+                Assert.assertEquals(data, new KdPoint(coordinates));
+                count[0]++;
+                return true;
+            }
+        });
+        return count[0];
+    }
+
+    @Test
+    public void get() throws Exception
+    {
+        Assert.assertEquals(4, map.getChunkBits());
+        Assert.assertEquals(4 * 4 * 4, map.getChunkCount());
+        Assert.assertEquals(40 * 40 * 40, map.getSize());
+        int[] key = {-20, 0, 19};
+        Assert.assertEquals(new KdPoint(key), map.get(key, 0));
+        Assert.assertEquals(new KdPoint(key), map.get(new KdPoint(key)));
+        Assert.assertFalse(map.containsKey(new KdPoint(new int[]{-21, 0, 0})));
+        Assert.assertFalse(map.containsKey(new KdPoint(new int[]{0, 20, 0})));
+        Assert.assertNull(map.get(new KdPoint(new int[]{100, 100, 100})));
+    }
+
+    @Test
+    public void removeFreesChunks() throws Exception
+    {
+        for (int x = LOW; x < 0; x++) {
+            for (int y = LOW; y <= HIGH; y++) {
+                for (int z = LOW; z <= HIGH; z++) {
+                    KdPoint key = new KdPoint(new int[]{x, y, z});
+                    Assert.assertEquals(key, map.remove(key));
+                }
+            }
+        }
+        Assert.assertEquals(2 * 4 * 4, map.getChunkCount()); // chunks of x from -32 to -17 and -16 to -1 are freed
+        Assert.assertEquals(20 * 40 * 40, map.getSize());
+        Assert.assertNull(map.remove(new KdPoint(new int[]{-1, 0, 0})));
+        int count = 0;
+        for (KdPoint point : map) {
+            Assert.assertTrue(point.get(0) >= 0);
+            count++;
+        }
+        Assert.assertEquals(20 * 40 * 40, count);
+    }
+
+    @Test
+    public void query() throws Exception
+    {
+        Assert.assertEquals(2 * 3 * 4, countQuery(new int[]{-1, 5, 16}, new int[]{0, 7, 25}));
+        Assert.assertEquals(40 * 40 * 40, countQuery(new int[]{-100, -100, -100}, new int[]{100, 100, 100}));
+        Assert.assertEquals(0, countQuery(new int[]{20, 0, 0}, new int[]{30, 10, 10}));
+        Assert.assertEquals(1, countQuery(new int[]{-17, -16, 15}, new int[]{-17, -16, 15})); // a single cell
+        Assert.assertEquals(2 * 2 * 2, countQuery(new int[]{-17, -17, 15}, new int[]{-16, -16, 16})); // 8 chunks
+        Assert.assertEquals(0, countQuery(new int[]{5, 5, 5}, new int[]{4, 5, 5}));
+        Assert.assertEquals(40 * 40, countQuery(new int[]{Integer.MIN_VALUE, 3, Integer.MIN_VALUE},
+                new int[]{Integer.MAX_VALUE, 3, Integer.MAX_VALUE}));
+    }
+
+    @Test
+    public void putNull() throws Exception
+    {
+        KdPoint key = new KdPoint(new int[]{0, 0, 0});
+        Assert.assertEquals(key, map.put(key, null));
+        Assert.assertTrue(map.containsKey(key));
+        Assert.assertNull(map.get(key));
+        Assert.assertNull(map.remove(key));
+        Assert.assertFalse(map.containsKey(key));
+    }
+
+    @Test
+    public void addTwice() throws Exception
+    {
+        exception.expect(RuntimeException.class);
+        map.add(new KdPoint(new int[]{0, 0, 0}), null);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * A simple unit-test for {@link ConcurrentHashTreeKdMap}, including several threads adding the same keys.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class ConcurrentHashTreeKdMapTest
+{
+    private static final int THREADS = 4;
+    private static final int EDGE = 30; // keys per axis, added by every thread
+    @Rule
+    public final ExpectedException exception = ExpectedException.none();
+    private final int[][] TEST_VALUES = {{14, 0, 7}, {23, 54, 22}, {0, 0, 0}};
+    private final int[][] MISSING_VALUES = {{14, 4, 7}, {23, 54, 8}, {1, 0, 0}};
+    private KdMap<KdPoint> map;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        map = new ConcurrentHashTreeKdMap<>(3);
+        for (int[] TEST_VALUE : TEST_VALUES) {
+            map.add(new KdPoint(TEST_VALUE), new KdPoint(TEST_VALUE));
+        }
+    }
+
+    @Test
+    public void get() throws Exception
+    {
+        Assert.assertEquals(TEST_VALUES.length, map.getSize());
+        for (int[] TEST_VALUE : TEST_VALUES) {
+            Assert.assertTrue(map.containsKey(new KdPoint(TEST_VALUE)));
+            Assert.assertEquals(new KdPoint(TEST_VALUE), map.get(new KdPoint(TEST_VALUE)));
+        }
+        for (int[] TEST_VALUE : MISSING_VALUES) {
+            Assert.assertFalse(map.containsKey(new KdPoint(TEST_VALUE)));
+            Assert.assertNull(map.get(new KdPoint(TEST_VALUE)));
+        }
+    }
+
+    @Test
+    public void iterator() throws Exception
+    {
+        int count = 0;
+        for (KdPoint point : map) {
+            Assert.assertTrue(map.containsKey(point));
+            count++;
+        }
+        Assert.assertEquals(TEST_VALUES.length, count);
+    }
+
+    @Test
+    public void query() throws Exception
+    {
+        final int[] count = new int[1];
+        map.query(new KdPoint(new int[]{0, 0, 0}), new KdPoint(new int[]{20, 60, 10}), new KdEntryVisitor<KdPoint>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, KdPoint data)
+            {
+                Assert.assertEquals(data, new KdPoint(coordinates));
+                count[0]++;
+                return true;
+            }
+        });
+        Assert.assertEquals(2, count[0]);
+    }
+
+    @Test
+    public void addTwice() throws Exception
+    {
+        exception.expect(RuntimeException.class);
+        map.add(new KdPoint(TEST_VALUES[0]), null);
+    }
+
+    @Test
+    public void concurrentAdd() throws Exception
+    {
+        map.clear();
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger added = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<>(); // assertions fail within the threads
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            threads[t] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    try {
+                        for (int i = 0; i < EDGE * EDGE * EDGE; i++) {
+                            KdPoint key = new KdPoint(new int[]{i % EDGE, (i / EDGE) % EDGE, i / (EDGE * EDGE)});
+                            try {
+                                map.add(key, key);
+                                added.incrementAndGet();
+                            } catch (RuntimeException e) {
+                                Assert.assertTrue(map.containsKey(key)); // another thread was faster
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Throwable thrown = failure.get();
+        if (thrown instanceof Error) {
+            throw (Error) thrown;
+        } else if (thrown != null) {
+            throw (Exception) thrown;
+        }
+        Assert.assertEquals(EDGE * EDGE * EDGE, added.get());
+        Assert.assertEquals(EDGE * EDGE * EDGE, map.getSize());
+        KdPoint key = new KdPoint(new int[]{7, 8, 9});
+        Assert.assertEquals(key, map.get(key));
+    }
+
+    @Test
+    public void clearWhileAdding() throws Exception
+    {
+        Thread adder = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                for (int i = 0; i < EDGE * EDGE * EDGE * 10; i++) {
+                    map.put(new KdPoint(new int[]{i % EDGE, (i / EDGE) % EDGE, (i / (EDGE * EDGE)) % EDGE}), null);
+                }
+            }
+        };
+        adder.start();
+        while (adder.isAlive()) {
+            map.clear();
+        }
+        adder.join();
+        final int[] count = new int[1];
+        map.forEach(new KdEntryVisitor<KdPoint>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, KdPoint data)
+            {
+                count[0]++;
+                return true;
+            }
+        });
+        Assert.assertEquals(count[0], map.getSize());
+    }
+
+    @Test
+    public void removeAndPut() throws Exception
+    {
+        KdPoint key = new KdPoint(TEST_VALUES[0]);
+        Assert.assertEquals(key, map.remove(key));
+        Assert.assertNull(map.remove(key));
+        Assert.assertFalse(map.containsKey(key));
+        Assert.assertEquals(TEST_VALUES.length - 1, map.getSize());
+        Assert.assertNull(map.put(key, key));
+        Assert.assertEquals(key, map.put(key, key));
+        Assert.assertEquals(TEST_VALUES.length, map.getSize());
+    }
+}
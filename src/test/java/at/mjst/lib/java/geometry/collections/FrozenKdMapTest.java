@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * A simple unit-test for {@link FrozenKdMap}, created from a {@link HashTreeKdMap}.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class FrozenKdMapTest
+{
+    private static final int EDGE = 20; // keys per axis
+    @Rule
+    public final ExpectedException exception = ExpectedException.none();
+    private final int[][] MISSING_VALUES = {{14, 4, 70}, {-1, 0, 0}, {0, 0, EDGE}, {1, 1, 1}};
+    private HashTreeKdMap<Long> map;
+    private FrozenKdMap<Long> frozen;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        map = new HashTreeKdMap<>(3, new int[]{2, 0, 1});
+        for (int i = 0; i < EDGE * EDGE * EDGE; i++) {
+            if ((i % 3) != 0) { // leave gaps, to have children tables of varying size
+                map.add(new KdPoint(new int[]{(i * 7) % EDGE, (i / EDGE) % EDGE, i / (EDGE * EDGE)}), (long) i);
+            }
+        }
+        frozen = map.freeze();
+    }
+
+    @Test
+    public void get() throws Exception
+    {
+        Assert.assertEquals(map.getSize(), frozen.getSize());
+        Assert.assertArrayEquals(new int[]{2, 0, 1}, frozen.getAxisOrder());
+        map.forEach(new KdEntryVisitor<Long>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, Long data)
+            {
+                Assert.assertEquals(data, frozen.get(coordinates, 0));
+                Assert.assertTrue(frozen.containsKey(new KdPoint(coordinates)));
+                return true;
+            }
+        });
+        for (int[] MISSING_VALUE : MISSING_VALUES) {
+            Assert.assertFalse(frozen.containsKey(MISSING_VALUE, 0));
+            Assert.assertNull(frozen.get(new KdPoint(MISSING_VALUE)));
+        }
+        long sum = 0;
+        for (long value : frozen) {
+            sum += value;
+        }
+        long expected = 0;
+        for (long value : map) {
+            expected += value;
+        }
+        Assert.assertEquals(expected, sum);
+    }
+
+    @Test
+    public void query() throws Exception
+    {
+        final KdPoint min = new KdPoint(new int[]{3, 2, 5});
+        final KdPoint max = new KdPoint(new int[]{9, 4, 7});
+        final int[] count = new int[2];
+        map.query(min, max, new KdEntryVisitor<Long>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, Long data)
+            {
+                count[0]++;
+                return true;
+            }
+        });
+        frozen.query(min, max, new KdEntryVisitor<Long>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, Long data)
+            {
+                for (int axis = 0; axis < coordinates.length; axis++) {
+                    Assert.assertTrue(coordinates[axis] >= min.get(axis));
+                    Assert.assertTrue(coordinates[axis] <= max.get(axis));
+                }
+                Assert.assertEquals(map.get(coordinates, 0), data);
+                count[1]++;
+                return true;
+            }
+        });
+        Assert.assertTrue(count[0] > 0);
+        Assert.assertEquals(count[0], count[1]);
+    }
+
+    @Test
+    public void count() throws Exception
+    {
+        KdPoint min = new KdPoint(new int[]{3, 2, 5});
+        KdPoint max = new KdPoint(new int[]{12, 9, 5});
+        Assert.assertEquals(map.count(min, max), frozen.count(min, max));
+        Assert.assertFalse(frozen.isEmpty(min, max));
+        Assert.assertTrue(frozen.isEmpty(new KdPoint(new int[]{EDGE, 0, 0}), new KdPoint(new int[]{EDGE, EDGE, EDGE})));
+    }
+
+    @Test
+    public void independent() throws Exception
+    {
+        map.clear();
+        Assert.assertTrue(frozen.getSize() > 0);
+        Assert.assertEquals(0, new HashTreeKdMap<Long>(2).freeze().getSize());
+        Assert.assertFalse(new HashTreeKdMap<Long>(2).freeze().containsKey(new int[]{0, 0}, 0));
+    }
+
+    @Test
+    public void immutable() throws Exception
+    {
+        exception.expect(UnsupportedOperationException.class);
+        frozen.put(new KdPoint(MISSING_VALUES[0]), 0L);
+    }
+}
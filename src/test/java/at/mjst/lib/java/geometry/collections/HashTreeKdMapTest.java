@@ -10,7 +10,17 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import at.mjst.lib.java.geometry.defines.ExceptionText;
+import at.mjst.lib.java.geometry.defines.SpaceFillingCurve;
 import at.mjst.lib.java.geometry.entities.KdPoint;
+import at.mjst.lib.java.geometry.entities.KdPointArray;
 
 /**
  * A simple unit-test for {@link HashTreeKdMap}.
@@ -74,6 +84,71 @@ public class HashTreeKdMapTest
         }
     }
 
+    @Test
+    public void query() throws Exception
+    {
+        addOnce();
+        final int[] count = new int[1];
+        boolean completed = map.query(new KdPoint(new int[]{0, 0, 0}), new KdPoint(new int[]{20, 60, 10}),
+                new KdEntryVisitor<MyDataObject>()
+                {
+                    @Override
+                    public boolean visit(int[] coordinates, MyDataObject data)
+                    {
+                        Assert.assertEquals(data.point, new KdPoint(coordinates));
+                        count[0]++;
+                        return true;
+                    }
+                });
+        Assert.assertTrue(completed);
+        Assert.assertEquals(2, count[0]); // {14, 0, 7} and {0, 0, 0}
+    }
+
+    @Test
+    public void queryStopped() throws Exception
+    {
+        addOnce();
+        final int[] count = new int[1];
+        boolean completed = map.query(new KdPoint(new int[]{0, 0, 0}), new KdPoint(new int[]{99, 99, 99}),
+                new KdEntryVisitor<MyDataObject>()
+                {
+                    @Override
+                    public boolean visit(int[] coordinates, MyDataObject data)
+                    {
+                        count[0]++;
+                        return false;
+                    }
+                });
+        Assert.assertFalse(completed);
+        Assert.assertEquals(1, count[0]);
+    }
+
+    @Test
+    public void forEach() throws Exception
+    {
+        addOnce();
+        final int[] count = new int[1];
+        Assert.assertTrue(map.forEach(new KdEntryVisitor<MyDataObject>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, MyDataObject data)
+            {
+                Assert.assertEquals(data.point, new KdPoint(coordinates));
+                count[0]++;
+                return true;
+            }
+        }));
+        Assert.assertEquals(TEST_VALUES.length, count[0]);
+        Assert.assertFalse(map.forEach(new KdEntryVisitor<MyDataObject>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, MyDataObject data)
+            {
+                return false;
+            }
+        }));
+    }
+
     @Test
     public void addTwice() throws Exception
     {
@@ -82,6 +157,516 @@ public class HashTreeKdMapTest
         add();
     }
 
+    @Test
+    public void remove() throws Exception
+    {
+        addOnce();
+        KdPoint removed = new KdPoint(TEST_VALUES[1]);
+        Assert.assertEquals(removed, map.remove(removed).point);
+        Assert.assertNull(map.remove(removed));
+        Assert.assertNull(map.remove(new KdPoint(MISSING_VALUES[0])));
+        Assert.assertFalse(map.containsKey(removed));
+        Assert.assertEquals(TEST_VALUES.length - 1, map.getSize());
+        int count = 0;
+        for (MyDataObject data : map) { // the index must stay consistent
+            Assert.assertNotEquals(removed, data.point);
+            Assert.assertSame(data, map.get(data.point));
+            count++;
+        }
+        Assert.assertEquals(TEST_VALUES.length - 1, count);
+        map.add(removed, new MyDataObject(removed)); // the pruned path is created again
+        Assert.assertEquals(removed, map.get(removed).point);
+    }
+
+    @Test
+    public void removeAll() throws Exception
+    {
+        addOnce();
+        for (int[] TEST_VALUE : TEST_VALUES) {
+            Assert.assertNotNull(map.remove(new KdPoint(TEST_VALUE)));
+        }
+        Assert.assertEquals(0, map.getSize());
+        Assert.assertFalse(map.iterator().hasNext());
+        Assert.assertTrue(map.query(new KdPoint(new int[]{0, 0, 0}), new KdPoint(new int[]{99, 99, 99}),
+                new KdEntryVisitor<MyDataObject>()
+                {
+                    @Override
+                    public boolean visit(int[] coordinates, MyDataObject data)
+                    {
+                        Assert.fail();
+                        return true;
+                    }
+                }));
+    }
+
+    @Test
+    public void put() throws Exception
+    {
+        addOnce();
+        KdPoint key = new KdPoint(TEST_VALUES[0]);
+        MyDataObject replacement = new MyDataObject(key);
+        Assert.assertEquals(key, map.put(key, replacement).point);
+        Assert.assertSame(replacement, map.get(key));
+        KdPoint missing = new KdPoint(MISSING_VALUES[0]);
+        Assert.assertNull(map.put(missing, new MyDataObject(missing)));
+        Assert.assertEquals(TEST_VALUES.length + 1, map.getSize());
+    }
+
+    @Test
+    public void computeIfAbsent() throws Exception
+    {
+        addOnce();
+        final int[] created = new int[1];
+        KdDataFactory<MyDataObject> factory = new KdDataFactory<MyDataObject>()
+        {
+            @Override
+            public MyDataObject create(KdPoint key)
+            {
+                created[0]++;
+                return new MyDataObject(key);
+            }
+        };
+        KdPoint key = new KdPoint(TEST_VALUES[0]);
+        Assert.assertSame(map.get(key), map.computeIfAbsent(key, factory));
+        KdPoint missing = new KdPoint(MISSING_VALUES[0]);
+        MyDataObject data = map.computeIfAbsent(missing, factory);
+        Assert.assertSame(data, map.computeIfAbsent(missing, factory));
+        Assert.assertEquals(1, created[0]);
+        Assert.assertEquals(TEST_VALUES.length + 1, map.getSize());
+        KdMapCounters counters = new KdMapCounters();
+        ((HashTreeKdMap<MyDataObject>) map).setCounters(counters);
+        KdPoint absent = new KdPoint(new int[]{14, 1, 2}); // shares the node of its first axis
+        Assert.assertNull(map.computeIfAbsent(absent, new KdDataFactory<MyDataObject>()
+        {
+            @Override
+            public MyDataObject create(KdPoint key)
+            {
+                return null;
+            }
+        }));
+        Assert.assertEquals(0, counters.getNodeCreationCount()); // nothing to prune
+        Assert.assertNotNull(map.computeIfAbsent(absent, factory));
+        Assert.assertEquals(2, counters.getNodeCreationCount());
+        Assert.assertEquals(2, map.count(new KdPoint(new int[]{14, 0, 0}), new KdPoint(new int[]{14, 1, 7})));
+    }
+
+    @Test
+    public void getByCoordinates() throws Exception
+    {
+        addOnce();
+        int[] coordinates = {-1, 23, 54, 22, 14, 4, 7};
+        Assert.assertEquals(new KdPoint(TEST_VALUES[1]), map.get(coordinates, 1).point);
+        Assert.assertTrue(map.containsKey(coordinates, 1));
+        Assert.assertNull(map.get(coordinates, 4));
+        Assert.assertFalse(map.containsKey(coordinates, 4));
+        HashTreeKdMap<MyDataObject> hashTreeMap = (HashTreeKdMap<MyDataObject>) map;
+        Assert.assertEquals(new KdPoint(TEST_VALUES[0]), hashTreeMap.get(14, 0, 7).point);
+        Assert.assertNull(hashTreeMap.get(14, 4, 7));
+        exception.expect(IllegalArgumentException.class);
+        map.get(coordinates, 5);
+    }
+
+    @Test
+    public void getByCoordinatesWrongDimension() throws Exception
+    {
+        exception.expect(IllegalArgumentException.class);
+        ((HashTreeKdMap<MyDataObject>) map).get(14, 0);
+    }
+
+    @Test
+    public void aggregate() throws Exception
+    {
+        final int edge = 40;
+        HashTreeKdMap<Long> longMap = new HashTreeKdMap<>(3);
+        long expected = 0;
+        for (int i = 0; i < edge * edge * edge; i++) {
+            longMap.add(new KdPoint(new int[]{i % edge, (i / edge) % edge, i / (edge * edge)}), (long) i);
+            expected += i;
+        }
+        final AtomicInteger created = new AtomicInteger();
+        KdAggregator<Long, long[]> sum = new KdAggregator<Long, long[]>()
+        {
+            @Override
+            public long[] create()
+            {
+                created.incrementAndGet();
+                return new long[2];
+            }
+
+            @Override
+            public void accumulate(long[] result, int[] coordinates, Long data)
+            {
+                Assert.assertEquals(coordinates[0] + (coordinates[1] + coordinates[2] * edge) * edge, data.intValue());
+                result[0] += data;
+                result[1]++;
+            }
+
+            @Override
+            public long[] combine(long[] left, long[] right)
+            {
+                left[0] += right[0];
+                left[1] += right[1];
+                return left;
+            }
+        };
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Assert.assertArrayEquals(new long[]{expected, edge * edge * edge}, longMap.aggregate(sum, pool));
+            Assert.assertTrue(created.get() < 2 * 64); // subtrees grouped into tasks of about 1000 entries
+            created.set(0);
+            Assert.assertArrayEquals(new long[]{0, 1}, longMap.aggregate(new KdPoint(new int[]{0, 0, 0}),
+                    new KdPoint(new int[]{0, 0, 0}), sum, pool));
+            Assert.assertEquals(1, created.get()); // too small a box to fork
+        } finally {
+            pool.shutdown();
+        }
+        Assert.assertArrayEquals(new long[]{expected, edge * edge * edge}, longMap.aggregate(sum));
+        Assert.assertArrayEquals(new long[]{expected, edge * edge * edge}, longMap.aggregate(sum, null));
+        Assert.assertArrayEquals(new long[2], new HashTreeKdMap<Long>(3).aggregate(sum, null));
+    }
+
+    @Test
+    public void aggregateRange() throws Exception
+    {
+        final int edge = 40;
+        HashTreeKdMap<Long> longMap = new HashTreeKdMap<>(3);
+        for (int i = 0; i < edge * edge * edge; i++) {
+            longMap.add(new KdPoint(new int[]{i % edge, (i / edge) % edge, i / (edge * edge)}), (long) i);
+        }
+        KdAggregator<Long, List<Long>> collect = new KdAggregator<Long, List<Long>>()
+        {
+            @Override
+            public List<Long> create()
+            {
+                return new ArrayList<>();
+            }
+
+            @Override
+            public void accumulate(List<Long> result, int[] coordinates, Long data)
+            {
+                result.add(data);
+            }
+
+            @Override
+            public List<Long> combine(List<Long> left, List<Long> right)
+            {
+                left.addAll(right);
+                return left;
+            }
+        };
+        KdPoint min = new KdPoint(new int[]{5, -10, 10});
+        KdPoint max = new KdPoint(new int[]{24, 39, 19});
+        final List<Long> expected = new ArrayList<>();
+        longMap.query(min, max, new KdEntryVisitor<Long>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, Long data)
+            {
+                expected.add(data);
+                return true;
+            }
+        });
+        Assert.assertEquals(20 * edge * 10, expected.size());
+        Collections.sort(expected);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<Long> found = longMap.aggregate(min, max, collect, pool);
+            Collections.sort(found);
+            Assert.assertEquals(expected, found);
+        } finally {
+            pool.shutdown();
+        }
+        Assert.assertTrue(longMap.aggregate(new KdPoint(new int[]{edge, 0, 0}), new KdPoint(new int[]{edge, 0, 0}),
+                collect, null).isEmpty());
+        HashTreeKdMap<Long> smallMap = new HashTreeKdMap<>(3);
+        smallMap.add(new KdPoint(new int[]{1, 2, 3}), 7L);
+        smallMap.add(new KdPoint(new int[]{4, 5, 6}), 8L);
+        Assert.assertEquals(Collections.singletonList(7L), smallMap.aggregate(new KdPoint(new int[]{0, 0, 0}),
+                new KdPoint(new int[]{3, 3, 3}), collect, null));
+    }
+
+    @Test
+    public void count() throws Exception
+    {
+        final int edge = 12;
+        HashTreeKdMap<Long> longMap = new HashTreeKdMap<>(3);
+        for (int i = 0; i < edge * edge * edge; i += 2) {
+            longMap.add(new KdPoint(new int[]{i % edge, (i / edge) % edge, i / (edge * edge)}), (long) i);
+        }
+        int[] even = new int[edge * edge * 3];
+        Long[] evenData = new Long[edge * edge];
+        for (int i = 0; i < evenData.length; i++) {
+            even[i * 3] = -1;
+            even[i * 3 + 1] = i % edge;
+            even[i * 3 + 2] = i / edge;
+            evenData[i] = (long) -i;
+        }
+        longMap.addAll(even, evenData);
+        try {
+            longMap.add(new KdPoint(new int[]{0, 0, 0}), 0L);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertEquals(ExceptionText.DATA_ALREADY_SET, e.getMessage());
+        }
+        Assert.assertEquals(Long.valueOf(2), longMap.put(new KdPoint(new int[]{2, 0, 0}), 3L));
+        Assert.assertEquals(Long.valueOf(1), longMap.computeIfAbsent(new KdPoint(new int[]{1, 0, 0}),
+                new KdDataFactory<Long>()
+                {
+                    @Override
+                    public Long create(KdPoint key)
+                    {
+                        return 1L;
+                    }
+                }));
+        Assert.assertEquals(Long.valueOf(4), longMap.remove(new KdPoint(new int[]{4, 0, 0})));
+        Assert.assertNull(longMap.remove(new KdPoint(new int[]{5, 0, 0})));
+        assertCounts(longMap);
+        longMap.reorder(new int[]{2, 1, 0});
+        assertCounts(longMap);
+        Assert.assertEquals(0, new HashTreeKdMap<Long>(3).count(newPoint(Integer.MIN_VALUE),
+                newPoint(Integer.MAX_VALUE)));
+    }
+
+    private static KdPoint newPoint(int value)
+    {
+        return new KdPoint(new int[]{value, value, value});
+    }
+
+    /**
+     * Compares the counts of several boxes to the entries visited by queries.
+     */
+    private static void assertCounts(HashTreeKdMap<Long> longMap)
+    {
+        int low = Integer.MIN_VALUE;
+        int high = Integer.MAX_VALUE;
+        int[][][] boxes = {
+                {{low, low, low}, {high, high, high}},
+                {{3, low, low}, {7, high, high}},
+                {{low, 2, low}, {high, 2, high}},
+                {{low, low, 0}, {high, high, 0}},
+                {{-1, 0, 0}, {4, 5, 6}},
+                {{1, 1, 1}, {0, 0, 0}},
+                {{100, 0, 0}, {200, 0, 0}}};
+        for (int[][] box : boxes) {
+            final int[] visited = new int[1];
+            KdPoint min = new KdPoint(box[0]);
+            KdPoint max = new KdPoint(box[1]);
+            longMap.query(min, max, new KdEntryVisitor<Long>()
+            {
+                @Override
+                public boolean visit(int[] coordinates, Long data)
+                {
+                    visited[0]++;
+                    return true;
+                }
+            });
+            Assert.assertEquals(visited[0], longMap.count(min, max));
+            Assert.assertEquals(visited[0] == 0, longMap.isEmpty(min, max));
+        }
+        Assert.assertEquals(longMap.getSize(), longMap.count(newPoint(Integer.MIN_VALUE),
+                newPoint(Integer.MAX_VALUE)));
+    }
+
+    @Test
+    public void reorder() throws Exception
+    {
+        HashTreeKdMap<Long> longMap = new HashTreeKdMap<>(3);
+        for (int i = 0; i < 1000; i++) {
+            longMap.add(new KdPoint(new int[]{i, i % 10, i % 2}), (long) i);
+        }
+        Assert.assertArrayEquals(new int[]{2, 1, 0}, longMap.reorder());
+        Assert.assertEquals(1000, longMap.getSize());
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(Long.valueOf(i), longMap.get(new KdPoint(new int[]{i, i % 10, i % 2})));
+            Assert.assertEquals(Long.valueOf(i), longMap.get(i, i % 10, i % 2));
+        }
+        Assert.assertNull(longMap.get(1, 1, 0));
+        final int[] count = new int[1];
+        longMap.query(new KdPoint(new int[]{100, 0, 1}), new KdPoint(new int[]{199, 4, 1}), new KdEntryVisitor<Long>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, Long data)
+            {
+                Assert.assertEquals(coordinates[0], data.intValue());
+                count[0]++;
+                return true;
+            }
+        });
+        Assert.assertEquals(20, count[0]);
+        Assert.assertEquals(Long.valueOf(5), longMap.remove(new KdPoint(new int[]{5, 5, 1})));
+        Assert.assertFalse(longMap.containsKey(new int[]{5, 5, 1}, 0));
+        longMap.reorder(new int[]{0, 1, 2});
+        Assert.assertArrayEquals(new int[]{0, 1, 2}, longMap.getAxisOrder());
+        Assert.assertEquals(Long.valueOf(6), longMap.get(new int[]{6, 6, 0}, 0));
+        Assert.assertEquals(999, longMap.getSize());
+    }
+
+    @Test
+    public void invalidAxisOrder() throws Exception
+    {
+        exception.expect(IllegalArgumentException.class);
+        new HashTreeKdMap<Long>(3, new int[]{0, 2, 0});
+    }
+
+    @Test
+    public void statistics() throws Exception
+    {
+        HashTreeKdMap<Long> longMap = new HashTreeKdMap<>(3);
+        Assert.assertEquals(0, longMap.getStatistics().getDepth());
+        for (int i = 0; i < 100; i++) {
+            longMap.add(new KdPoint(new int[]{i, i % 4, 0}), (long) i);
+        }
+        KdMapStatistics statistics = longMap.getStatistics();
+        Assert.assertArrayEquals(new long[]{100, 100, 100}, statistics.getNodeCounts());
+        Assert.assertEquals(300, statistics.getNodeCount());
+        Assert.assertEquals(100, statistics.getLeafCount());
+        Assert.assertEquals(3, statistics.getDepth());
+        Assert.assertEquals(100.0, statistics.getMeanFanout(0), 0);
+        Assert.assertEquals(1.0, statistics.getMeanFanout(2), 0);
+        long[] histogram = statistics.getFanoutHistogram();
+        Assert.assertEquals(7, histogram.length); // root holds 64 to 127 children
+        Assert.assertEquals(200, histogram[0]);
+        Assert.assertEquals(1, histogram[6]);
+        Assert.assertEquals(1, statistics.getHashedTableCount());
+        Assert.assertTrue(statistics.getMeanProbeLength() >= 1);
+        Assert.assertTrue(statistics.getEstimatedBytes() > 300 * 32); // a node takes 32 bytes, its map referenced
+        longMap.reorder();
+        Assert.assertArrayEquals(new long[]{1, 4, 100}, longMap.getStatistics().getNodeCounts());
+        Assert.assertTrue(longMap.getStatistics().getEstimatedBytes() < statistics.getEstimatedBytes());
+    }
+
+    @Test
+    public void counters() throws Exception
+    {
+        HashTreeKdMap<Long> longMap = new HashTreeKdMap<>(2);
+        KdMapCounters counters = new KdMapCounters();
+        longMap.setCounters(counters);
+        longMap.add(new KdPoint(new int[]{1, 2}), 12L);
+        longMap.add(new KdPoint(new int[]{1, 3}), 13L);
+        Assert.assertEquals(3, counters.getNodeCreationCount());
+        Assert.assertEquals(Long.valueOf(12), longMap.get(1, 2));
+        Assert.assertTrue(longMap.containsKey(new int[]{1, 3}, 0));
+        Assert.assertNull(longMap.get(new KdPoint(new int[]{2, 2})));
+        Assert.assertEquals(2, counters.getHitCount());
+        Assert.assertEquals(1, counters.getMissCount());
+        counters.reset();
+        Assert.assertEquals(0, counters.getHitCount());
+        longMap.setCounters(null);
+        longMap.get(1, 2);
+        Assert.assertEquals(0, counters.getHitCount());
+    }
+
+    @Test
+    public void batch() throws Exception
+    {
+        HashTreeKdMap<Long> longMap = new HashTreeKdMap<>(3);
+        int[] coordinates = new int[4 * 5 * 3];
+        Long[] data = new Long[4 * 5];
+        for (int i = 0; i < data.length; i++) {
+            coordinates[i * 3] = 7;
+            coordinates[i * 3 + 1] = i / 5;
+            coordinates[i * 3 + 2] = i % 5;
+            data[i] = (long) i;
+        }
+        KdMapCounters counters = new KdMapCounters();
+        longMap.setCounters(counters);
+        longMap.addAll(coordinates, data);
+        Assert.assertEquals(1 + 4 + 20, counters.getNodeCreationCount());
+        Assert.assertEquals(20, longMap.getSize());
+        Assert.assertEquals(Long.valueOf(13), longMap.get(7, 2, 3));
+        int[] keys = {7, 3, 4, 7, 3, 5, 8, 3, 4, 7, 0, 0};
+        Long[] results = new Long[4];
+        longMap.getAll(keys, results);
+        Assert.assertArrayEquals(new Long[]{19L, null, null, 0L}, results);
+        BitSet contained = longMap.containsAll(keys);
+        Assert.assertEquals(2, contained.cardinality());
+        Assert.assertTrue(contained.get(0));
+        Assert.assertTrue(contained.get(3));
+        KdPointArray points = KdPointArray.wrap(3, keys);
+        Assert.assertEquals(contained, longMap.containsAll(points));
+        longMap.getAll(points, results);
+        Assert.assertEquals(Long.valueOf(19), results[0]);
+        KdPointArray grown = new KdPointArray(3, 8); // backing array longer than its points
+        for (int i = 0; i < keys.length; i += 3) {
+            grown.add(keys, i);
+        }
+        int[] buffer = grown.getBuffer();
+        Assert.assertTrue(buffer.length > keys.length);
+        Assert.assertEquals(contained, longMap.containsAll(grown));
+        Assert.assertSame(buffer, grown.getBuffer()); // not trimmed
+        exception.expect(RuntimeException.class);
+        exception.expectMessage(ExceptionText.DATA_ALREADY_SET);
+        longMap.addAll(new int[]{7, 3, 9, 7, 3, 4}, new Long[]{1L, 2L});
+    }
+
+    @Test
+    public void batchSizeMismatch() throws Exception
+    {
+        exception.expect(IllegalArgumentException.class);
+        new HashTreeKdMap<Long>(3).getAll(new int[]{1, 2, 3, 4, 5, 6}, new Long[3]);
+    }
+
+    @Test
+    public void curveOrder() throws Exception
+    {
+        HashTreeKdMap<Long> longMap = new HashTreeKdMap<>(2);
+        for (int i = 0; i < 64; i++) {
+            longMap.add(new KdPoint(new int[]{i % 8 - 4, i / 8}), (long) i);
+        }
+        KdCursor<Long> cursor = longMap.cursor(SpaceFillingCurve.HILBERT);
+        int[] former = null;
+        int count = 0;
+        while (cursor.next()) {
+            int[] coordinates = cursor.getCoordinates();
+            Assert.assertEquals(coordinates[0] + 4 + coordinates[1] * 8, cursor.getData().intValue());
+            if (former != null) { // consecutive points of a hilbert curve are neighbours
+                Assert.assertEquals(1, Math.abs(coordinates[0] - former[0]) + Math.abs(coordinates[1] - former[1]));
+            }
+            former = coordinates.clone();
+            count++;
+        }
+        Assert.assertFalse(cursor.next());
+        Assert.assertEquals(64, count);
+        cursor = longMap.cursor(SpaceFillingCurve.MORTON);
+        int[][] expected = {{-4, 0}, {-4, 1}, {-3, 0}, {-3, 1}, {-4, 2}};
+        for (int[] EXPECTED : expected) {
+            Assert.assertTrue(cursor.next());
+            Assert.assertArrayEquals(EXPECTED, cursor.getCoordinates());
+        }
+        cursor = longMap.cursor(SpaceFillingCurve.MORTON, new int[]{-3, 1}, false);
+        Assert.assertTrue(cursor.next());
+        Assert.assertArrayEquals(new int[]{-4, 2}, cursor.getCoordinates());
+        cursor = longMap.cursor(SpaceFillingCurve.MORTON, new int[]{-3, 1}, true);
+        Assert.assertTrue(cursor.next());
+        Assert.assertArrayEquals(new int[]{-3, 1}, cursor.getCoordinates());
+        Assert.assertFalse(longMap.cursor(SpaceFillingCurve.MORTON, new int[]{3, 7}, false).next());
+        longMap.add(new KdPoint(new int[]{3, 8}), 64L); // drops the order reused so far
+        cursor = longMap.cursor(SpaceFillingCurve.MORTON, new int[]{3, 7}, false);
+        Assert.assertTrue(cursor.next());
+        Assert.assertEquals(Long.valueOf(64), cursor.getData());
+        longMap.remove(new KdPoint(new int[]{3, 8}));
+        Assert.assertFalse(longMap.cursor(SpaceFillingCurve.MORTON, new int[]{3, 7}, false).next());
+    }
+
+    @Test
+    public void layout() throws Exception
+    {
+        HashTreeKdMap<Long> longMap = new HashTreeKdMap<>(2);
+        for (int i = 0; i < 256; i++) {
+            longMap.add(new KdPoint(new int[]{i % 16, i / 16}), (long) i);
+        }
+        longMap.layout(SpaceFillingCurve.HILBERT);
+        KdCursor<Long> cursor = longMap.cursor(SpaceFillingCurve.HILBERT);
+        for (Long data : longMap) {
+            Assert.assertTrue(cursor.next());
+            Assert.assertEquals(cursor.getData(), data);
+        }
+        Assert.assertFalse(cursor.next());
+        Assert.assertEquals(Long.valueOf(17), longMap.remove(new KdPoint(new int[]{1, 1})));
+        Assert.assertEquals(255, longMap.getSize());
+        Assert.assertEquals(Long.valueOf(18), longMap.get(2, 1));
+    }
+
     private class MyDataObject
     {
         KdPoint point;
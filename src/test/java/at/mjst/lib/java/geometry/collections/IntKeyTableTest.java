@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * A simple unit-test for {@link IntKeyTable}, covering the sorted as well as the hashed layout.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class IntKeyTableTest
+{
+    private static final int COUNT = 1000;
+    @Rule
+    public final ExpectedException exception = ExpectedException.none();
+    private IntKeyTable<String> table;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        table = new IntKeyTable<>();
+    }
+
+    private void fill(int count)
+    {
+        for (int i = 0; i < count; i++) {
+            table.put(key(i), String.valueOf(i));
+        }
+    }
+
+    private int key(int i)
+    {
+        return (i % 2 == 0) ? i * 7 : -i * 13; // mixes positive and negative keys
+    }
+
+    @Test
+    public void sortedLayout() throws Exception
+    {
+        fill(IntKeyTable.SORTED_LIMIT);
+        Assert.assertEquals(IntKeyTable.SORTED_LIMIT, table.size());
+        for (int i = 0; i < IntKeyTable.SORTED_LIMIT; i++) {
+            Assert.assertEquals(String.valueOf(i), table.get(key(i)));
+        }
+        Assert.assertNull(table.get(1));
+    }
+
+    @Test
+    public void hashedLayout() throws Exception
+    {
+        fill(COUNT);
+        Assert.assertEquals(COUNT, table.size());
+        for (int i = 0; i < COUNT; i++) {
+            Assert.assertEquals(String.valueOf(i), table.get(key(i)));
+        }
+        Assert.assertNull(table.get(1));
+        Assert.assertNull(table.get(Integer.MIN_VALUE));
+    }
+
+    @Test
+    public void replace() throws Exception
+    {
+        fill(COUNT);
+        table.put(key(3), "replaced");
+        Assert.assertEquals(COUNT, table.size());
+        Assert.assertEquals("replaced", table.get(key(3)));
+    }
+
+    private int countRange(int low, int high)
+    {
+        final int[] count = new int[1];
+        table.visitRange(low, high, new IntKeyTable.Visitor<String>()
+        {
+            @Override
+            public boolean visit(int key, String value)
+            {
+                Assert.assertEquals(value, table.get(key));
+                count[0]++;
+                return true;
+            }
+        });
+        return count[0];
+    }
+
+    private int expectedRange(int count, int low, int high)
+    {
+        int expected = 0;
+        for (int i = 0; i < count; i++) {
+            if ((key(i) >= low) && (key(i) <= high)) {
+                expected++;
+            }
+        }
+        return expected;
+    }
+
+    @Test
+    public void visitRange() throws Exception
+    {
+        fill(IntKeyTable.SORTED_LIMIT);
+        Assert.assertEquals(expectedRange(IntKeyTable.SORTED_LIMIT, -20, 30), countRange(-20, 30));
+        fill(COUNT);
+        Assert.assertEquals(expectedRange(COUNT, -100, 100), countRange(-100, 100)); // probes each key
+        Assert.assertEquals(expectedRange(COUNT, -5000, 3000), countRange(-5000, 3000)); // scans all slots
+        Assert.assertEquals(COUNT, countRange(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        Assert.assertEquals(0, countRange(1, 0));
+    }
+
+    @Test
+    public void putNull() throws Exception
+    {
+        exception.expect(IllegalArgumentException.class);
+        table.put(0, null);
+    }
+
+    @Test
+    public void remove() throws Exception
+    {
+        for (int count : new int[]{IntKeyTable.SORTED_LIMIT, COUNT}) { // both layouts, shrinking back to sorted
+            table = new IntKeyTable<>();
+            fill(count);
+            for (int i = 0; i < count; i += 2) {
+                Assert.assertEquals(String.valueOf(i), table.remove(key(i)));
+            }
+            Assert.assertNull(table.remove(key(0)));
+            Assert.assertEquals(count / 2, table.size());
+            for (int i = 0; i < count; i++) {
+                Assert.assertEquals((i % 2 == 0) ? null : String.valueOf(i), table.get(key(i)));
+            }
+            Assert.assertEquals(count / 2, countRange(Integer.MIN_VALUE, Integer.MAX_VALUE));
+            for (int i = 1; i < count; i += 2) {
+                table.remove(key(i));
+            }
+            Assert.assertEquals(0, table.size());
+            fill(count);
+            Assert.assertEquals(count, table.size());
+        }
+    }
+}
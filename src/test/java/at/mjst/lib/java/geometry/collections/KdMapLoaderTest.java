@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import at.mjst.lib.java.geometry.defines.ExceptionText;
+
+/**
+ * A simple unit-test for {@link KdMapLoader}, using tiny batches and buffers to cross their borders often.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class KdMapLoaderTest
+{
+    private static final int COUNT = 1000; // entries per file
+    @Rule
+    public final ExpectedException exception = ExpectedException.none();
+    private HashTreeKdMap<Long> map;
+    private KdMapLoader<Long> loader;
+
+    private static ReadableByteChannel channel(byte[] bytes)
+    {
+        return Channels.newChannel(new ByteArrayInputStream(bytes));
+    }
+
+    @Before
+    public void setUp() throws Exception
+    {
+        map = new HashTreeKdMap<>(3);
+        loader = new KdMapLoader<>(map, 7, 2, 32);
+    }
+
+    @Test
+    public void loadBinary() throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int i = 0; i < COUNT; i++) {
+            out.writeInt(i);
+            out.writeInt(-i);
+            out.writeInt(i % 10);
+            out.writeLong(i * 3L);
+        }
+        Assert.assertEquals(COUNT, loader.loadBinary(channel(bytes.toByteArray()), KdValueCodec.LONG,
+                ByteOrder.BIG_ENDIAN));
+        Assert.assertEquals(COUNT, map.getSize());
+        for (int i = 0; i < COUNT; i++) {
+            Assert.assertEquals(Long.valueOf(i * 3L), map.get(i, -i, i % 10));
+        }
+        Assert.assertEquals(COUNT * 20, loader.getBytesRead());
+        Assert.assertEquals(COUNT, loader.getPointsParsed());
+        Assert.assertEquals(COUNT, loader.getPointsInserted());
+        Assert.assertTrue(loader.getPointsPerSecond() > 0);
+    }
+
+    @Test
+    public void loadCsv() throws Exception
+    {
+        StringBuilder text = new StringBuilder("\n");
+        for (int i = 0; i < COUNT; i++) {
+            text.append(i).append(", ").append(-i).append(",\t+").append(i % 10).append(" , ").append(i * 3);
+            text.append((i % 2 == 0) ? "\r\n" : "\n\n");
+        }
+        text.append("5,5,5,5"); // last line without line feed
+        Assert.assertEquals(COUNT + 1, loader.loadCsv(channel(text.toString().getBytes(StandardCharsets.US_ASCII)),
+                KdValueParser.LONG));
+        Assert.assertEquals(COUNT + 1, map.getSize());
+        for (int i = 0; i < COUNT; i++) {
+            Assert.assertEquals(Long.valueOf(i * 3L), map.get(i, -i, i % 10));
+        }
+        Assert.assertEquals(Long.valueOf(5), map.get(5, 5, 5));
+    }
+
+    @Test
+    public void loadCsvExtremes() throws Exception
+    {
+        HashTreeKdMap<Long> lineMap = new HashTreeKdMap<>(1);
+        new KdMapLoader<>(lineMap).loadCsv(channel("-2147483648,1\n2147483647,2".getBytes(StandardCharsets.US_ASCII)),
+                KdValueParser.LONG);
+        Assert.assertEquals(Long.valueOf(1), lineMap.get(new int[]{Integer.MIN_VALUE}, 0));
+        Assert.assertEquals(Long.valueOf(2), lineMap.get(new int[]{Integer.MAX_VALUE}, 0));
+    }
+
+    @Test
+    public void malformedLine() throws Exception
+    {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage(String.format(ExceptionText.RECORD_MALFORMED, 3));
+        loader.loadCsv(channel("1,2,3,4\n\n1,x,3,4\n".getBytes(StandardCharsets.US_ASCII)), KdValueParser.LONG);
+    }
+
+    @Test
+    public void coordinateOverflow() throws Exception
+    {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage(String.format(ExceptionText.RECORD_MALFORMED, 1));
+        loader.loadCsv(channel("2147483648,2,3,4\n".getBytes(StandardCharsets.US_ASCII)), KdValueParser.LONG);
+    }
+
+    @Test
+    public void incompleteRecord() throws Exception
+    {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage(String.format(ExceptionText.RECORD_INCOMPLETE, 3));
+        loader.loadBinary(channel(new byte[23]), KdValueCodec.LONG, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Test
+    public void lineTooLong() throws Exception
+    {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage(String.format(ExceptionText.RECORD_TOO_LONG, 32));
+        loader.loadCsv(channel("1,2,3,                                    4\n".getBytes(StandardCharsets.US_ASCII)),
+                KdValueParser.LONG);
+    }
+
+    @Test
+    public void insertFailure() throws Exception
+    {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < COUNT; i++) {
+            text.append(i % 100).append(",0,0,").append(i).append('\n');
+        }
+        try {
+            loader.loadCsv(channel(text.toString().getBytes(StandardCharsets.US_ASCII)), KdValueParser.LONG);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertEquals(ExceptionText.DATA_ALREADY_SET, e.getMessage());
+        }
+        Assert.assertTrue(loader.getPointsInserted() < 100);
+    }
+
+    @Test
+    public void invalidQueueCapacity() throws Exception
+    {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage(ExceptionText.QUEUE_CAPACITY_TOO_SMALL);
+        new KdMapLoader<>(map, 1, 1, 1);
+    }
+}
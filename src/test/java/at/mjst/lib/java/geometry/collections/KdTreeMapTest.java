@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import at.mjst.lib.java.geometry.defines.DistanceMetric;
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * A simple unit-test for {@link KdTreeMap}, spatial searches are compared against brute force.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class KdTreeMapTest
+{
+    private static final int RANDOM_COUNT = 2000;
+    private static final int BULK_COUNT = 50000;
+    @Rule
+    public final ExpectedException exception = ExpectedException.none();
+    private final int[][] TEST_VALUES = {{14, 0, 7}, {23, 54, 22}, {0, 0, 0}};
+    private final int[][] MISSING_VALUES = {{14, 4, 7}, {23, 54, 8}, {1, 0, 0}};
+    private KdTreeMap<KdPoint> map;
+    private KdPoint[] points;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        map = new KdTreeMap<>(3);
+        for (int[] TEST_VALUE : TEST_VALUES) {
+            map.add(new KdPoint(TEST_VALUE), new KdPoint(TEST_VALUE));
+        }
+    }
+
+    private void fillRandom()
+    {
+        map.clear();
+        Random random = new Random(4711);
+        points = new KdPoint[RANDOM_COUNT];
+        for (int i = 0; i < RANDOM_COUNT; i++) {
+            KdPoint point = new KdPoint(new int[]{random.nextInt(200), random.nextInt(200), random.nextInt(200)});
+            if (!map.containsKey(point)) {
+                map.add(point, point);
+            }
+            points[i] = point;
+        }
+    }
+
+    private long[] bruteForceDistances(KdPoint center, DistanceMetric metric)
+    {
+        int[] origin = {center.get(0), center.get(1), center.get(2)};
+        long[] distances = new long[map.getSize()];
+        int i = 0;
+        for (KdPoint point : map) {
+            distances[i++] = metric.distance(origin, 0, new int[]{point.get(0), point.get(1), point.get(2)}, 0, 3);
+        }
+        Arrays.sort(distances);
+        return distances;
+    }
+
+    @Test
+    public void containsKey() throws Exception
+    {
+        for (int[] TEST_VALUE : TEST_VALUES) {
+            Assert.assertTrue(map.containsKey(new KdPoint(TEST_VALUE)));
+            Assert.assertEquals(new KdPoint(TEST_VALUE), map.get(new KdPoint(TEST_VALUE)));
+        }
+        for (int[] TEST_VALUE : MISSING_VALUES) {
+            Assert.assertFalse(map.containsKey(new KdPoint(TEST_VALUE)));
+            Assert.assertNull(map.get(new KdPoint(TEST_VALUE)));
+        }
+    }
+
+    @Test
+    public void forEach() throws Exception
+    {
+        map.remove(new KdPoint(TEST_VALUES[0]));
+        final int[] count = new int[1];
+        Assert.assertTrue(map.forEach(new KdEntryVisitor<KdPoint>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, KdPoint data)
+            {
+                Assert.assertEquals(data, new KdPoint(coordinates));
+                count[0]++;
+                return true;
+            }
+        }));
+        Assert.assertEquals(TEST_VALUES.length - 1, count[0]);
+    }
+
+    @Test
+    public void addTwice() throws Exception
+    {
+        exception.expect(RuntimeException.class);
+        map.add(new KdPoint(TEST_VALUES[1]), null);
+    }
+
+    @Test
+    public void query() throws Exception
+    {
+        fillRandom();
+        final KdPoint min = new KdPoint(new int[]{20, 50, 0});
+        final KdPoint max = new KdPoint(new int[]{80, 90, 120});
+        final int[] count = new int[1];
+        map.query(min, max, new KdEntryVisitor<KdPoint>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, KdPoint data)
+            {
+                Assert.assertEquals(data, new KdPoint(coordinates));
+                count[0]++;
+                return true;
+            }
+        });
+        int expected = 0;
+        for (KdPoint point : map) {
+            boolean inside = true;
+            for (int axis = 0; axis < 3; axis++) {
+                inside &= (point.get(axis) >= min.get(axis)) && (point.get(axis) <= max.get(axis));
+            }
+            expected += inside ? 1 : 0;
+        }
+        Assert.assertEquals(expected, count[0]);
+    }
+
+    @Test
+    public void nearest() throws Exception
+    {
+        fillRandom();
+        for (DistanceMetric metric : DistanceMetric.values()) {
+            KdTreeMap<KdPoint>.NeighbourSearch search = map.newNeighbourSearch(metric);
+            for (int i = 0; i < 50; i++) {
+                KdPoint center = new KdPoint(new int[]{i * 4, 199 - i * 3, i});
+                long[] expected = bruteForceDistances(center, metric);
+                int count = search.nearest(center, 10);
+                Assert.assertEquals(10, count);
+                for (int j = 0; j < count; j++) {
+                    Assert.assertEquals(expected[j], search.getDistance(j));
+                }
+            }
+        }
+        List<KdPoint> nearest = map.nearest(points[7], 1);
+        Assert.assertEquals(points[7], nearest.get(0));
+    }
+
+    @Test
+    public void nearestMoreThanSize() throws Exception
+    {
+        KdTreeMap<KdPoint>.NeighbourSearch search = map.newNeighbourSearch(DistanceMetric.MANHATTAN);
+        Assert.assertEquals(TEST_VALUES.length, search.nearest(new KdPoint(new int[]{1, 1, 1}), 10));
+        Assert.assertEquals(new KdPoint(TEST_VALUES[2]), search.getData(0));
+        Assert.assertEquals(3, search.getDistance(0));
+    }
+
+    @Test
+    public void bulkLoad() throws Exception
+    {
+        int[][] axisCoordinates = new int[3][BULK_COUNT];
+        Integer[] data = new Integer[BULK_COUNT];
+        for (int i = 0; i < BULK_COUNT; i++) {
+            axisCoordinates[0][i] = i % 50; // many equal coordinates on every axis
+            axisCoordinates[1][i] = (i / 50) % 40;
+            axisCoordinates[2][i] = i / 2000;
+            data[i] = i;
+        }
+        KdTreeMap<Integer> bulkMap = new KdTreeMap<>(axisCoordinates, data);
+        Assert.assertEquals(BULK_COUNT, bulkMap.getSize());
+        for (int i = 0; i < BULK_COUNT; i += 7) {
+            KdPoint key = new KdPoint(new int[]{axisCoordinates[0][i], axisCoordinates[1][i], axisCoordinates[2][i]});
+            Assert.assertEquals(Integer.valueOf(i), bulkMap.get(key));
+        }
+        KdTreeMap<Integer>.NeighbourSearch search = bulkMap.newNeighbourSearch(DistanceMetric.MANHATTAN);
+        Assert.assertEquals(7, search.nearest(new KdPoint(new int[]{10, 10, 10}), 7));
+        Assert.assertEquals(0, search.getDistance(0));
+        Assert.assertEquals(1, search.getDistance(6));
+    }
+
+    @Test
+    public void bulkLoadDuplicate() throws Exception
+    {
+        exception.expect(RuntimeException.class);
+        new KdTreeMap<>(new int[][]{{1, 2, 1}, {5, 5, 5}}, new String[]{"a", "b", "c"});
+    }
+
+    @Test
+    public void rebalance() throws Exception
+    {
+        map.clear();
+        for (int i = 0; i < RANDOM_COUNT; i++) { // sorted keys degrade the tree towards a list
+            map.add(new KdPoint(new int[]{i, i, i}), new KdPoint(new int[]{i, i, i}));
+        }
+        map.rebalance();
+        Assert.assertEquals(RANDOM_COUNT, map.getSize());
+        for (int i = 0; i < RANDOM_COUNT; i++) {
+            Assert.assertEquals(new KdPoint(new int[]{i, i, i}), map.get(new KdPoint(new int[]{i, i, i})));
+        }
+        Assert.assertEquals(new KdPoint(new int[]{3, 3, 3}), map.nearest(new KdPoint(new int[]{3, 4, 3}), 1).get(0));
+    }
+
+    @Test
+    public void nearestHugeK() throws Exception
+    {
+        KdTreeMap<KdPoint>.NeighbourSearch search = map.newNeighbourSearch(DistanceMetric.MANHATTAN);
+        Assert.assertEquals(TEST_VALUES.length, search.nearest(new KdPoint(new int[]{1, 1, 1}), Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void nearestExtremeCoordinates() throws Exception
+    {
+        KdTreeMap<String> extremeMap = new KdTreeMap<>(3);
+        extremeMap.add(new KdPoint(new int[]{Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE}), "far");
+        extremeMap.add(new KdPoint(new int[]{-1 << 30, -1 << 30, -1 << 30}), "middle");
+        extremeMap.add(new KdPoint(new int[]{Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE + 1}), "near");
+        int[] cornerCoordinates = {Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+        KdPoint corner = new KdPoint(cornerCoordinates);
+        for (DistanceMetric metric : DistanceMetric.values()) {
+            KdTreeMap<String>.NeighbourSearch search = extremeMap.newNeighbourSearch(metric);
+            Assert.assertEquals(3, search.nearest(corner, 3));
+            Assert.assertEquals("near", search.getData(0));
+            Assert.assertEquals(1, search.getDistance(0));
+            Assert.assertEquals("middle", search.getData(1));
+            Assert.assertEquals("far", search.getData(2));
+            Assert.assertTrue(search.getDistance(1) < search.getDistance(2));
+        }
+        Assert.assertEquals(Long.MAX_VALUE, DistanceMetric.SQUARED_EUCLIDEAN.distance(cornerCoordinates, 0,
+                new int[]{Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE}, 0, 3));
+        Assert.assertEquals(Long.MAX_VALUE, DistanceMetric.SQUARED_EUCLIDEAN.fromRadius(1L << 32));
+        Assert.assertEquals(3037000499L * 3037000499L, DistanceMetric.SQUARED_EUCLIDEAN.fromRadius(-3037000499L));
+        final int[] count = new int[1];
+        extremeMap.withinRadius(corner, 1L << 31, DistanceMetric.SQUARED_EUCLIDEAN, new KdEntryVisitor<String>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, String data)
+            {
+                Assert.assertFalse("far".equals(data));
+                count[0]++;
+                return true;
+            }
+        });
+        Assert.assertEquals(2, count[0]);
+    }
+
+    @Test
+    public void withinRadius() throws Exception
+    {
+        fillRandom();
+        for (DistanceMetric metric : DistanceMetric.values()) {
+            KdPoint center = new KdPoint(new int[]{100, 100, 100});
+            final int[] count = new int[1];
+            map.withinRadius(center, 30, metric, new KdEntryVisitor<KdPoint>()
+            {
+                @Override
+                public boolean visit(int[] coordinates, KdPoint data)
+                {
+                    count[0]++;
+                    return true;
+                }
+            });
+            int expected = 0;
+            for (long distance : bruteForceDistances(center, metric)) {
+                expected += (distance <= metric.fromRadius(30)) ? 1 : 0;
+            }
+            Assert.assertEquals(expected, count[0]);
+        }
+    }
+
+    @Test
+    public void remove() throws Exception
+    {
+        fillRandom();
+        int size = map.getSize();
+        for (int i = 0; i < RANDOM_COUNT; i += 2) { // removes more than half, so the tree is compacted
+            if (map.remove(points[i]) != null) {
+                size--;
+            }
+            Assert.assertFalse(map.containsKey(points[i]));
+        }
+        Assert.assertEquals(size, map.getSize());
+        int count = 0;
+        for (KdPoint point : map) {
+            Assert.assertEquals(point, map.get(point));
+            count++;
+        }
+        Assert.assertEquals(size, count);
+        for (int i = 1; i < RANDOM_COUNT; i += 2) {
+            if (map.containsKey(points[i])) {
+                KdPoint nearest = map.nearest(points[i], 1).get(0);
+                Assert.assertEquals(points[i], nearest);
+            }
+        }
+        map.add(points[0], points[0]); // revives or inserts a node
+        Assert.assertEquals(points[0], map.get(points[0]));
+        Assert.assertEquals(size + 1, map.getSize());
+    }
+
+    @Test
+    public void put() throws Exception
+    {
+        KdPoint key = new KdPoint(TEST_VALUES[0]);
+        Assert.assertEquals(key, map.put(key, null));
+        Assert.assertTrue(map.containsKey(key));
+        Assert.assertNull(map.remove(key));
+        Assert.assertNull(map.put(key, key));
+        Assert.assertEquals(key, map.get(key));
+        Assert.assertEquals(TEST_VALUES.length, map.getSize());
+    }
+
+    @Test
+    public void getByCoordinates() throws Exception
+    {
+        int[] coordinates = {-1, 23, 54, 22, 14, 4, 7};
+        Assert.assertEquals(new KdPoint(TEST_VALUES[1]), map.get(coordinates, 1));
+        Assert.assertTrue(map.containsKey(coordinates, 1));
+        Assert.assertNull(map.get(coordinates, 4));
+        map.remove(new KdPoint(TEST_VALUES[1]));
+        Assert.assertFalse(map.containsKey(coordinates, 1));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * A simple unit-test for {@link KeyPacker}.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class KeyPackerTest
+{
+    @Rule
+    public final ExpectedException exception = ExpectedException.none();
+    private final int[][] TEST_VALUES = {{0, 0, 0}, {-5, 1000, 3}, {10, 0, 7}, {-1024, 1023, 0}};
+
+    private void roundTrip(KeyPacker packer)
+    {
+        int[] decoded = new int[3];
+        for (int[] TEST_VALUE : TEST_VALUES) {
+            long packed = packer.pack(new KdPoint(TEST_VALUE));
+            Assert.assertTrue(packed >= 0);
+            Assert.assertEquals(packed, packer.pack(TEST_VALUE, 0));
+            packer.unpack(packed, decoded, 0);
+            Assert.assertArrayEquals(TEST_VALUE, decoded);
+        }
+    }
+
+    @Test
+    public void concatenated() throws Exception
+    {
+        roundTrip(new KeyPacker(new int[]{-1024, 0, 0}, new int[]{11, 10, 3}, false));
+    }
+
+    @Test
+    public void interleaved() throws Exception
+    {
+        roundTrip(new KeyPacker(new int[]{-1024, 0, 0}, new int[]{11, 10, 3}, true));
+    }
+
+    @Test
+    public void mortonOrder() throws Exception
+    {
+        KeyPacker packer = new KeyPacker(new int[]{2, 2}, true);
+        Assert.assertEquals(0, packer.pack(new int[]{0, 0}, 0));
+        Assert.assertEquals(1, packer.pack(new int[]{1, 0}, 0));
+        Assert.assertEquals(2, packer.pack(new int[]{0, 1}, 0));
+        Assert.assertEquals(3, packer.pack(new int[]{1, 1}, 0));
+        Assert.assertEquals(4, packer.pack(new int[]{2, 0}, 0));
+        Assert.assertEquals(15, packer.pack(new int[]{3, 3}, 0));
+    }
+
+    @Test
+    public void fits() throws Exception
+    {
+        KeyPacker packer = new KeyPacker(new int[]{-4}, new int[]{3}, false);
+        Assert.assertTrue(packer.fits(0, -4));
+        Assert.assertTrue(packer.fits(0, 3));
+        Assert.assertFalse(packer.fits(0, -5));
+        Assert.assertFalse(packer.fits(0, 4));
+    }
+
+    @Test
+    public void tooManyBits() throws Exception
+    {
+        exception.expect(IllegalArgumentException.class);
+        new KeyPacker(new int[]{32, 32}, false);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * A simple unit-test for {@link OffHeapKdMap}, within direct buffers as well as within a mapped file.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class OffHeapKdMapTest
+{
+    private static final int EDGE = 40; // keys per axis
+    @Rule
+    public final ExpectedException exception = ExpectedException.none();
+    private final int[][] TEST_VALUES = {{14, 0, 7}, {23, 54, 22}, {0, 0, 0}, {-3, -127, 63}};
+    private final int[][] MISSING_VALUES = {{14, 4, 7}, {23, 54, 8}, {1, 0, 0}, {-200, 0, 0}};
+    private OffHeapKdMap map;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        map = new OffHeapKdMap(3);
+        for (int i = 0; i < TEST_VALUES.length; i++) {
+            map.add(new KdPoint(TEST_VALUES[i]), (long) i);
+        }
+    }
+
+    private void fillAndRemove(OffHeapKdMap map)
+    {
+        map.clear();
+        int[] key = new int[3];
+        for (int i = 0; i < EDGE * EDGE * EDGE; i++) {
+            key[0] = i % EDGE;
+            key[1] = (i / EDGE) % EDGE;
+            key[2] = -i / (EDGE * EDGE);
+            Assert.assertTrue(map.putLong(key, 0, i));
+        }
+        Assert.assertEquals(EDGE * EDGE * EDGE, map.getSize());
+        for (int i = 0; i < EDGE * EDGE * EDGE; i += 3) { // shifts records back into the gaps
+            Assert.assertEquals(Long.valueOf(i),
+                    map.remove(new KdPoint(new int[]{i % EDGE, (i / EDGE) % EDGE, -i / (EDGE * EDGE)})));
+        }
+        for (int i = 0; i < EDGE * EDGE * EDGE; i++) {
+            key[0] = i % EDGE;
+            key[1] = (i / EDGE) % EDGE;
+            key[2] = -i / (EDGE * EDGE);
+            Assert.assertEquals((i % 3 == 0) ? -1 : i, map.getLong(key, 0, -1));
+        }
+    }
+
+    @Test
+    public void get() throws Exception
+    {
+        for (int i = 0; i < TEST_VALUES.length; i++) {
+            Assert.assertEquals(Long.valueOf(i), map.get(new KdPoint(TEST_VALUES[i])));
+            Assert.assertTrue(map.containsKey(TEST_VALUES[i], 0));
+        }
+        for (int[] MISSING_VALUE : MISSING_VALUES) {
+            Assert.assertNull(map.get(new KdPoint(MISSING_VALUE)));
+            Assert.assertEquals(-1, map.getLong(MISSING_VALUE, 0, -1));
+        }
+    }
+
+    @Test
+    public void putAndRemove() throws Exception
+    {
+        KdPoint key = new KdPoint(TEST_VALUES[1]);
+        Assert.assertEquals(Long.valueOf(1), map.put(key, 42L));
+        Assert.assertEquals(Long.valueOf(42), map.remove(key));
+        Assert.assertNull(map.remove(key));
+        Assert.assertEquals(TEST_VALUES.length - 1, map.getSize());
+        long sum = 0;
+        for (long value : map) {
+            sum += value;
+        }
+        Assert.assertEquals(0 + 2 + 3, sum);
+    }
+
+    @Test
+    public void direct() throws Exception
+    {
+        fillAndRemove(map);
+    }
+
+    @Test
+    public void mapped() throws Exception
+    {
+        File file = File.createTempFile("offheap", ".map");
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            FileChannel channel = randomAccessFile.getChannel();
+            OffHeapKdMap mappedMap = new OffHeapKdMap(3, channel);
+            fillAndRemove(mappedMap);
+            fillAndRemove(mappedMap); // reuses the regions of the file
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void query() throws Exception
+    {
+        final int[] count = new int[1];
+        map.query(new KdPoint(new int[]{-5, -200, 0}), new KdPoint(new int[]{20, 10, 63}), new KdEntryVisitor<Long>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, Long data)
+            {
+                Assert.assertArrayEquals(TEST_VALUES[data.intValue()], coordinates);
+                count[0]++;
+                return true;
+            }
+        });
+        Assert.assertEquals(3, count[0]);
+    }
+
+    @Test
+    public void addTwice() throws Exception
+    {
+        exception.expect(RuntimeException.class);
+        map.add(new KdPoint(TEST_VALUES[0]), 1L);
+    }
+
+    @Test
+    public void addNull() throws Exception
+    {
+        exception.expect(IllegalArgumentException.class);
+        map.add(new KdPoint(MISSING_VALUES[0]), null);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * A simple unit-test for {@link PackedKdMap}.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class PackedKdMapTest
+{
+    @Rule
+    public final ExpectedException exception = ExpectedException.none();
+    private final int[][] TEST_VALUES = {{14, 0, 7}, {23, 54, 22}, {0, 0, 0}, {-3, 127, 63}};
+    private final int[][] MISSING_VALUES = {{14, 4, 7}, {23, 54, 8}, {1, 0, 0}, {-200, 0, 0}};
+    private KdMap<KdPoint> map;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        map = new PackedKdMap<>(new KeyPacker(new int[]{-64, 0, 0}, new int[]{8, 7, 6}, true));
+        add();
+    }
+
+    private void add() throws Exception
+    {
+        for (int[] TEST_VALUE : TEST_VALUES) {
+            map.add(new KdPoint(TEST_VALUE), new KdPoint(TEST_VALUE));
+        }
+    }
+
+    @Test
+    public void size() throws Exception
+    {
+        Assert.assertEquals(TEST_VALUES.length, map.getSize());
+        map.clear();
+        Assert.assertEquals(0, map.getSize());
+    }
+
+    @Test
+    public void containsKey() throws Exception
+    {
+        for (int[] TEST_VALUE : TEST_VALUES) {
+            Assert.assertTrue(map.containsKey(new KdPoint(TEST_VALUE)));
+        }
+        for (int[] TEST_VALUE : MISSING_VALUES) {
+            Assert.assertFalse(map.containsKey(new KdPoint(TEST_VALUE)));
+        }
+    }
+
+    @Test
+    public void get() throws Exception
+    {
+        for (int[] TEST_VALUE : TEST_VALUES) {
+            KdPoint testPoint = new KdPoint(TEST_VALUE);
+            Assert.assertEquals(testPoint, map.get(testPoint));
+        }
+        for (int[] TEST_VALUE : MISSING_VALUES) {
+            Assert.assertNull(map.get(new KdPoint(TEST_VALUE)));
+        }
+    }
+
+    @Test
+    public void iterator() throws Exception
+    {
+        int count = 0;
+        for (KdPoint point : map) {
+            Assert.assertTrue(map.containsKey(point));
+            count++;
+        }
+        Assert.assertEquals(TEST_VALUES.length, count);
+    }
+
+    private int countQuery(int[] min, int[] max)
+    {
+        final int[] count = new int[1];
+        map.query(new KdPoint(min), new KdPoint(max), new KdEntryVisitor<KdPoint>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, KdPoint data)
+            {
+                Assert.assertEquals(data, new KdPoint(coordinates));
+                count[0]++;
+                return true;
+            }
+        });
+        return count[0];
+    }
+
+    @Test
+    public void query() throws Exception
+    {
+        Assert.assertEquals(2, countQuery(new int[]{-5, 0, 0}, new int[]{0, 127, 63})); // probes every cell
+        Assert.assertEquals(3, countQuery(new int[]{-500, 0, 0}, new int[]{20, 500, 500})); // scans the table
+        Assert.assertEquals(0, countQuery(new int[]{500, 0, 0}, new int[]{600, 10, 10})); // out of range
+    }
+
+    @Test
+    public void addTwice() throws Exception
+    {
+        exception.expect(RuntimeException.class);
+        add();
+    }
+
+    @Test
+    public void addOutOfRange() throws Exception
+    {
+        exception.expect(IllegalArgumentException.class);
+        map.add(new KdPoint(new int[]{0, 128, 0}), null);
+    }
+
+    @Test
+    public void remove() throws Exception
+    {
+        KdPoint key = new KdPoint(TEST_VALUES[1]);
+        Assert.assertEquals(key, map.remove(key));
+        Assert.assertNull(map.remove(key));
+        Assert.assertNull(map.remove(new KdPoint(MISSING_VALUES[3]))); // out of range
+        Assert.assertEquals(TEST_VALUES.length - 1, map.getSize());
+        Assert.assertFalse(map.containsKey(key));
+        for (int[] TEST_VALUE : TEST_VALUES) {
+            if (!new KdPoint(TEST_VALUE).equals(key)) {
+                Assert.assertTrue(map.containsKey(new KdPoint(TEST_VALUE)));
+            }
+        }
+    }
+
+    @Test
+    public void put() throws Exception
+    {
+        KdPoint key = new KdPoint(TEST_VALUES[0]);
+        Assert.assertEquals(key, map.put(key, null));
+        Assert.assertTrue(map.containsKey(key));
+        Assert.assertNull(map.get(key));
+        Assert.assertNull(map.put(new KdPoint(MISSING_VALUES[0]), key));
+        Assert.assertEquals(TEST_VALUES.length + 1, map.getSize());
+    }
+
+    @Test
+    public void getByCoordinates() throws Exception
+    {
+        int[] coordinates = {-1, 23, 54, 22, -200, 0, 0};
+        Assert.assertEquals(new KdPoint(TEST_VALUES[1]), map.get(coordinates, 1));
+        Assert.assertTrue(map.containsKey(coordinates, 1));
+        Assert.assertNull(map.get(coordinates, 4)); // out of range
+        Assert.assertFalse(map.containsKey(coordinates, 4));
+    }
+
+    @Test
+    public void batch() throws Exception
+    {
+        int[] coordinates = {14, 0, 7, 14, 4, 7, -3, 127, 63};
+        KdPoint[] results = new KdPoint[3];
+        map.getAll(coordinates, results);
+        Assert.assertEquals(new KdPoint(TEST_VALUES[0]), results[0]);
+        Assert.assertNull(results[1]);
+        Assert.assertEquals(new KdPoint(TEST_VALUES[3]), results[2]);
+        Assert.assertEquals(2, map.containsAll(coordinates).cardinality());
+        map.addAll(new int[]{1, 1, 1, 1, 1, 2}, new KdPoint[]{new KdPoint(3), new KdPoint(3)});
+        Assert.assertEquals(TEST_VALUES.length + 2, map.getSize());
+        exception.expect(IllegalArgumentException.class);
+        map.containsAll(new int[]{1, 2});
+    }
+}
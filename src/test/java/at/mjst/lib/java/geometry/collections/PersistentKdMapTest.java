@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * A simple unit-test for {@link PersistentKdMap}.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class PersistentKdMapTest
+{
+    @Rule
+    public final ExpectedException exception = ExpectedException.none();
+    private final int[][] TEST_VALUES = {{14, 0, 7}, {23, 54, 22}, {0, 0, 0}, {-3, Integer.MAX_VALUE, 63}};
+    private final int[][] MISSING_VALUES = {{14, 4, 7}, {23, 54, 8}, {1, 0, 0}, {Integer.MIN_VALUE, 0, 0}};
+    private PersistentKdMap<KdPoint> map;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        map = new PersistentKdMap<>(3);
+        for (int[] TEST_VALUE : TEST_VALUES) {
+            map.add(new KdPoint(TEST_VALUE), new KdPoint(TEST_VALUE));
+        }
+    }
+
+    @Test
+    public void get() throws Exception
+    {
+        Assert.assertEquals(TEST_VALUES.length, map.getSize());
+        for (int[] TEST_VALUE : TEST_VALUES) {
+            Assert.assertEquals(new KdPoint(TEST_VALUE), map.get(TEST_VALUE, 0));
+            Assert.assertTrue(map.containsKey(new KdPoint(TEST_VALUE)));
+        }
+        for (int[] MISSING_VALUE : MISSING_VALUES) {
+            Assert.assertNull(map.get(new KdPoint(MISSING_VALUE)));
+            Assert.assertFalse(map.containsKey(MISSING_VALUE, 0));
+        }
+        int count = 0;
+        for (KdPoint point : map) {
+            Assert.assertTrue(map.containsKey(point));
+            count++;
+        }
+        Assert.assertEquals(TEST_VALUES.length, count);
+    }
+
+    @Test
+    public void addTwice() throws Exception
+    {
+        exception.expect(RuntimeException.class);
+        map.add(new KdPoint(TEST_VALUES[1]), null);
+    }
+
+    @Test
+    public void snapshot() throws Exception
+    {
+        PersistentKdMap<KdPoint> snapshot = map.snapshot();
+        Assert.assertTrue(snapshot.isReadOnly());
+        KdPoint point = new KdPoint(MISSING_VALUES[0]);
+        map.add(point, point);
+        Assert.assertEquals(new KdPoint(TEST_VALUES[0]), map.put(new KdPoint(TEST_VALUES[0]), point));
+        Assert.assertEquals(new KdPoint(TEST_VALUES[1]), map.remove(new KdPoint(TEST_VALUES[1])));
+        Assert.assertNull(map.remove(new KdPoint(TEST_VALUES[1])));
+        Assert.assertEquals(TEST_VALUES.length, map.getSize());
+        Assert.assertEquals(point, map.get(TEST_VALUES[0], 0));
+        Assert.assertFalse(map.containsKey(TEST_VALUES[1], 0));
+        Assert.assertEquals(TEST_VALUES.length, snapshot.getSize());
+        Assert.assertFalse(snapshot.containsKey(point));
+        Assert.assertEquals(new KdPoint(TEST_VALUES[0]), snapshot.get(TEST_VALUES[0], 0));
+        Assert.assertTrue(snapshot.containsKey(TEST_VALUES[1], 0));
+        map.clear();
+        Assert.assertEquals(0, map.getSize());
+        Assert.assertFalse(map.iterator().hasNext());
+        Assert.assertEquals(TEST_VALUES.length, snapshot.getSize());
+        exception.expect(UnsupportedOperationException.class);
+        snapshot.add(point, point);
+    }
+
+    @Test
+    public void randomized() throws Exception
+    {
+        PersistentKdMap<Integer> persistent = new PersistentKdMap<>(2);
+        HashTreeKdMap<Integer> reference = new HashTreeKdMap<>(2);
+        Random random = new Random(4711);
+        for (int i = 0; i < 20000; i++) {
+            KdPoint key = new KdPoint(new int[]{random.nextInt(64) - 32, random.nextInt(1 << 20)});
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(reference.remove(key), persistent.remove(key));
+            } else {
+                Assert.assertEquals(reference.put(key, i), persistent.put(key, i));
+            }
+        }
+        Assert.assertEquals(reference.getSize(), persistent.getSize());
+        final HashTreeKdMap<Integer> expected = reference;
+        final int[] count = new int[1];
+        persistent.query(new KdPoint(new int[]{-8, 0}), new KdPoint(new int[]{8, 1 << 19}), new KdEntryVisitor<Integer>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, Integer data)
+            {
+                Assert.assertEquals(expected.get(coordinates, 0), data);
+                count[0]++;
+                return true;
+            }
+        });
+        final int[] expectedCount = new int[1];
+        reference.query(new KdPoint(new int[]{-8, 0}), new KdPoint(new int[]{8, 1 << 19}), new KdEntryVisitor<Integer>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, Integer data)
+            {
+                expectedCount[0]++;
+                return true;
+            }
+        });
+        Assert.assertEquals(expectedCount[0], count[0]);
+    }
+
+    @Test
+    public void concurrentReader() throws Exception
+    {
+        final PersistentKdMap<Integer> persistent = new PersistentKdMap<>(2);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try {
+                    for (int i = 0; i < 200; i++) {
+                        PersistentKdMap<Integer> snapshot = persistent.snapshot();
+                        int count = 0;
+                        for (Integer ignored : snapshot) {
+                            count++;
+                        }
+                        Assert.assertEquals(snapshot.getSize(), count); // a consistent view
+                    }
+                } catch (Throwable throwable) {
+                    failure.set(throwable);
+                }
+            }
+        };
+        reader.start();
+        for (int i = 0; i < 20000; i++) {
+            persistent.add(new KdPoint(new int[]{i % 100, i / 100}), i);
+        }
+        reader.join();
+        Assert.assertNull(failure.get());
+        Assert.assertEquals(20000, persistent.getSize());
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.collections;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import at.mjst.lib.java.geometry.entities.KdPoint;
+
+/**
+ * A simple unit-test for {@link SnapshotKdMap}, writing a {@link HashTreeKdMap} and reading it back.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class SnapshotKdMapTest
+{
+    private static final int EDGE = 30; // keys per axis
+    @Rule
+    public final ExpectedException exception = ExpectedException.none();
+    private final int[][] MISSING_VALUES = {{14, 4, 70}, {-1, 0, 0}, {0, 0, EDGE}};
+    private File file;
+    private RandomAccessFile randomAccessFile;
+    private KdMap<Long> map;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        map = new HashTreeKdMap<>(3);
+        for (int i = 0; i < EDGE * EDGE * EDGE; i++) {
+            map.add(new KdPoint(new int[]{i % EDGE, (i / EDGE) % EDGE, i / (EDGE * EDGE)}), (long) i);
+        }
+        file = File.createTempFile("snapshot", ".kdm");
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        SnapshotKdMap.write(map, KdValueCodec.LONG, randomAccessFile.getChannel());
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        randomAccessFile.close();
+        file.delete();
+    }
+
+    @Test
+    public void open() throws Exception
+    {
+        SnapshotKdMap<Long> snapshot = SnapshotKdMap.open(randomAccessFile.getChannel(), KdValueCodec.LONG);
+        Assert.assertEquals(map.getSize(), snapshot.getSize());
+        Assert.assertEquals(3, snapshot.getDimensionCount());
+        int[] key = new int[3];
+        for (int i = 0; i < EDGE * EDGE * EDGE; i++) {
+            key[0] = i % EDGE;
+            key[1] = (i / EDGE) % EDGE;
+            key[2] = i / (EDGE * EDGE);
+            Assert.assertEquals(Long.valueOf(i), snapshot.get(key, 0));
+        }
+        for (int[] MISSING_VALUE : MISSING_VALUES) {
+            Assert.assertFalse(snapshot.containsKey(new KdPoint(MISSING_VALUE)));
+        }
+        long sum = 0;
+        for (long value : snapshot) {
+            sum += value;
+        }
+        Assert.assertEquals((long) (EDGE * EDGE * EDGE - 1) * (EDGE * EDGE * EDGE) / 2, sum);
+    }
+
+    @Test
+    public void query() throws Exception
+    {
+        SnapshotKdMap<Long> snapshot = SnapshotKdMap.open(randomAccessFile.getChannel(), KdValueCodec.LONG);
+        final int[] count = new int[1];
+        snapshot.query(new KdPoint(new int[]{0, 0, 0}), new KdPoint(new int[]{4, 9, 0}), new KdEntryVisitor<Long>()
+        {
+            @Override
+            public boolean visit(int[] coordinates, Long data)
+            {
+                Assert.assertEquals(coordinates[0] + coordinates[1] * EDGE, data.intValue());
+                count[0]++;
+                return true;
+            }
+        });
+        Assert.assertEquals(50, count[0]);
+    }
+
+    @Test
+    public void compact() throws Exception
+    {
+        Assert.assertEquals(32 + EDGE * EDGE * EDGE * (3 * 4 + 8), randomAccessFile.length());
+    }
+
+    @Test
+    public void empty() throws Exception
+    {
+        SnapshotKdMap.write(new HashTreeKdMap<Long>(2), KdValueCodec.LONG, randomAccessFile.getChannel());
+        SnapshotKdMap<Long> snapshot = SnapshotKdMap.open(randomAccessFile.getChannel(), KdValueCodec.LONG);
+        Assert.assertEquals(0, snapshot.getSize());
+        Assert.assertFalse(snapshot.containsKey(new int[]{0, 0}, 0));
+        Assert.assertFalse(snapshot.iterator().hasNext());
+    }
+
+    /**
+     * Overwrites a little-endian int of the header.
+     */
+    private void patchHeader(int position, int value) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(value).flip();
+        randomAccessFile.getChannel().write(buffer, position);
+    }
+
+    @Test
+    public void corruptDimensionCount() throws Exception
+    {
+        patchHeader(8, 0);
+        exception.expect(IOException.class);
+        SnapshotKdMap.open(randomAccessFile.getChannel(), KdValueCodec.LONG);
+    }
+
+    @Test
+    public void corruptSize() throws Exception
+    {
+        patchHeader(16, -1);
+        exception.expect(IOException.class);
+        SnapshotKdMap.open(randomAccessFile.getChannel(), KdValueCodec.LONG);
+    }
+
+    @Test
+    public void truncated() throws Exception
+    {
+        randomAccessFile.setLength(randomAccessFile.length() - 1);
+        exception.expect(IOException.class);
+        exception.expectMessage("snapshot truncated");
+        SnapshotKdMap.open(randomAccessFile.getChannel(), KdValueCodec.LONG);
+    }
+
+    @Test
+    public void readOnly() throws Exception
+    {
+        SnapshotKdMap<Long> snapshot = SnapshotKdMap.open(randomAccessFile.getChannel(), KdValueCodec.LONG);
+        exception.expect(UnsupportedOperationException.class);
+        snapshot.add(new KdPoint(MISSING_VALUES[0]), 0L);
+    }
+
+    @Test
+    public void wrongCodec() throws Exception
+    {
+        exception.expect(IOException.class);
+        SnapshotKdMap.open(randomAccessFile.getChannel(), KdValueCodec.INTEGER);
+    }
+
+    @Test
+    public void noSnapshot() throws Exception
+    {
+        randomAccessFile.setLength(0);
+        randomAccessFile.writeLong(4711);
+        exception.expect(IOException.class);
+        SnapshotKdMap.open(randomAccessFile.getChannel(), KdValueCodec.LONG);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.geometry.entities;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * A simple unit-test for {@link KdPointArray}.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class KdPointArrayTest
+{
+    @Rule
+    public final ExpectedException exception = ExpectedException.none();
+    private final int[][] TEST_VALUES = {{14, 0, 7}, {-3, 54, 22}, {0, 0, 0}, {14, 0, 7}, {14, -1, 9}};
+    private KdPointArray array;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        array = new KdPointArray(3, 2);
+        for (int[] TEST_VALUE : TEST_VALUES) {
+            array.add(new KdPoint(TEST_VALUE));
+        }
+    }
+
+    @Test
+    public void get() throws Exception
+    {
+        Assert.assertEquals(TEST_VALUES.length, array.size());
+        Assert.assertEquals(54, array.get(1, 1));
+        Assert.assertEquals(new KdPoint(TEST_VALUES[4]), array.toPoint(4));
+        Assert.assertEquals(TEST_VALUES.length * 3, array.getCoordinates().length);
+        array.add(new int[]{9, 1, 2, 3}, 1);
+        Assert.assertEquals(new KdPoint(new int[]{1, 2, 3}), array.toPoint(TEST_VALUES.length));
+        exception.expect(IndexOutOfBoundsException.class);
+        array.get(TEST_VALUES.length + 1, 0);
+    }
+
+    @Test
+    public void getInvalidAxis() throws Exception
+    {
+        exception.expect(IndexOutOfBoundsException.class);
+        array.get(0, 3); // would read axis 0 of the next point
+    }
+
+    @Test
+    public void buffer() throws Exception
+    {
+        int[] buffer = array.getBuffer();
+        Assert.assertTrue(buffer.length > TEST_VALUES.length * 3); // grown, not trimmed
+        Assert.assertEquals(22, buffer[1 * 3 + 2]);
+        Assert.assertSame(buffer, array.getBuffer());
+    }
+
+    @Test
+    public void cursor() throws Exception
+    {
+        KdPointArray.Cursor cursor = array.cursor();
+        int index = 0;
+        while (cursor.next()) {
+            Assert.assertEquals(new KdPoint(TEST_VALUES[index]), cursor);
+            Assert.assertEquals(index, cursor.getIndex());
+            index++;
+        }
+        Assert.assertEquals(TEST_VALUES.length, index);
+        Assert.assertFalse(cursor.next());
+        cursor.moveTo(2);
+        cursor.set(1, 77);
+        Assert.assertEquals(0, array.get(2, 1));
+        cursor.store();
+        Assert.assertEquals(77, array.get(2, 1));
+    }
+
+    @Test
+    public void boundingBox() throws Exception
+    {
+        KdPoint[] box = array.getBoundingBox();
+        Assert.assertEquals(new KdPoint(new int[]{-3, -1, 0}), box[0]);
+        Assert.assertEquals(new KdPoint(new int[]{14, 54, 22}), box[1]);
+        array.translate(new KdPoint(new int[]{3, 1, -10}));
+        box = array.getBoundingBox();
+        Assert.assertEquals(new KdPoint(new int[]{0, 0, -10}), box[0]);
+        Assert.assertEquals(new KdPoint(new int[]{17, 55, 12}), box[1]);
+        array.clear();
+        Assert.assertNull(array.getBoundingBox());
+    }
+
+    @Test
+    public void sortAndDedup() throws Exception
+    {
+        array.sort(1);
+        int[][] expected = {{14, -1, 9}, {0, 0, 0}, {14, 0, 7}, {14, 0, 7}, {-3, 54, 22}};
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(new KdPoint(expected[i]), array.toPoint(i));
+        }
+        Assert.assertEquals(1, array.dedup());
+        Assert.assertEquals(4, array.size());
+        Assert.assertEquals(new KdPoint(expected[4]), array.toPoint(3));
+        array.sort(0);
+        Assert.assertEquals(new KdPoint(expected[4]), array.toPoint(0));
+        Assert.assertEquals(0, array.dedup());
+    }
+
+    @Test
+    public void wrap() throws Exception
+    {
+        int[] coordinates = {1, 2, 3, 4};
+        KdPointArray wrapped = KdPointArray.wrap(2, coordinates);
+        Assert.assertEquals(2, wrapped.size());
+        Assert.assertSame(coordinates, wrapped.getCoordinates());
+        exception.expect(IllegalArgumentException.class);
+        KdPointArray.wrap(3, coordinates);
+    }
+}
@@ -11,6 +11,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import at.mjst.lib.java.geometry.defines.Axis;
+import at.mjst.lib.java.math.SeedableRandom;
 
 /**
  * A simple unit-test for {@link KdPoint}.
@@ -105,6 +106,38 @@ public class KdPointTest
         point.set(TEST_VALUES.length, 47);
     }
 
+    @Test
+    public void getOutOfBounds() throws Exception
+    {
+        exception.expect(IndexOutOfBoundsException.class);
+        point.get(TEST_VALUES.length);
+    }
+
+    @Test
+    public void immutable() throws Exception
+    {
+        KdPoint immutablePoint = new ImmutableKdPoint(point);
+        Assert.assertEquals(point, immutablePoint);
+        Assert.assertEquals(immutablePoint, point);
+        Assert.assertEquals(point.hashCode(), immutablePoint.hashCode());
+        point.set(0, 1); // a copy was taken
+        Assert.assertEquals(TEST_VALUES[0], immutablePoint.get(0));
+        exception.expect(UnsupportedOperationException.class);
+        immutablePoint.set(0, 1);
+    }
+
+    @Test
+    public void setRandom() throws Exception
+    {
+        KdPoint other = new KdPoint(3);
+        point.setRandom(new SeedableRandom(7), -5, 5);
+        other.setRandom(new SeedableRandom(7), -5, 5);
+        Assert.assertEquals(point, other);
+        for (int axis = 0; axis < 3; axis++) {
+            Assert.assertTrue((point.get(axis) >= -5) && (point.get(axis) <= 5));
+        }
+    }
+
     @Test
     public void getDimensionCount() throws Exception
     {
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016, Ing. Michael J. Stallinger and/or his affiliates. All rights reserved.
+ * This source code is subject to license terms, see the LICENSE file for details.
+ */
+package at.mjst.lib.java.math;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A simple unit-test for {@link PointGenerator} and {@link SeedableRandom}.
+ *
+ * @author Ing. Michael J. Stallinger (projects@mjst.at)
+ * @since 2026-10-18
+ */
+public class PointGeneratorTest
+{
+    private static final int[] ORIGINS = {-100, 0, 5};
+    private static final int[] BOUNDS = {100, 1000, 5};
+    @Rule
+    public final ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void seedableRandom() throws Exception
+    {
+        SeedableRandom random = new SeedableRandom(42);
+        SeedableRandom same = new SeedableRandom(42);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(random.nextLong(), same.nextLong());
+        }
+        Assert.assertEquals(random.split().nextLong(), SeedableRandom.at(42, 3).nextLong());
+        for (int i = 0; i < 1000; i++) {
+            int value = random.nextInt(Integer.MIN_VALUE, Integer.MAX_VALUE - 1);
+            Assert.assertTrue(value < Integer.MAX_VALUE);
+            value = random.nextInt(-3, 3);
+            Assert.assertTrue((value >= -3) && (value <= 3));
+            double fraction = random.nextDouble();
+            Assert.assertTrue((fraction >= 0) && (fraction < 1));
+        }
+    }
+
+    @Test
+    public void reproducible() throws Exception
+    {
+        PointGenerator generator = PointGenerator.uniform(4711, ORIGINS, BOUNDS);
+        int[] sequential = generator.generate(100000, null);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            Assert.assertArrayEquals(sequential, generator.generate(100000, pool));
+        } finally {
+            pool.shutdown();
+        }
+        int[] tail = new int[3 * 10];
+        generator.fill(tail, 99990, null);
+        for (int i = 0; i < tail.length; i++) {
+            Assert.assertEquals(sequential[99990 * 3 + i], tail[i]);
+        }
+        Assert.assertFalse(Arrays.equals(sequential,
+                PointGenerator.uniform(4712, ORIGINS, BOUNDS).generate(100000, null)));
+        assertWithin(sequential);
+    }
+
+    @Test
+    public void distributions() throws Exception
+    {
+        int[] gaussian = PointGenerator.gaussian(1, ORIGINS, BOUNDS, 0.1).generate(10000, null);
+        assertWithin(gaussian);
+        long sum = 0;
+        for (int i = 1; i < gaussian.length; i += 3) {
+            sum += gaussian[i];
+        }
+        Assert.assertEquals(500, sum / 10000, 10); // centered
+        PointGenerator clustered = PointGenerator.clustered(1, ORIGINS, BOUNDS, 4, 0.01);
+        int[] points = clustered.generate(10000, null);
+        assertWithin(points);
+        Assert.assertArrayEquals(points, PointGenerator.clustered(1, ORIGINS, BOUNDS, 4, 0.01).generate(10000, null));
+    }
+
+    @Test
+    public void countOverflow() throws Exception
+    {
+        exception.expect(IllegalArgumentException.class);
+        PointGenerator.uniform(1, ORIGINS, BOUNDS).generate(Integer.MAX_VALUE / 2, null);
+    }
+
+    @Test
+    public void invalidBounds() throws Exception
+    {
+        exception.expect(IllegalArgumentException.class);
+        PointGenerator.uniform(1, new int[]{0, 5}, new int[]{1, 4});
+    }
+
+    private void assertWithin(int[] coordinates)
+    {
+        for (int i = 0; i < coordinates.length; i++) {
+            Assert.assertTrue(coordinates[i] >= ORIGINS[i % 3]);
+            Assert.assertTrue(coordinates[i] <= BOUNDS[i % 3]);
+        }
+    }
+}